@@ -0,0 +1,103 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Converts between the text command protocol and BinaryProtocol frames,
+ * mainly for testing the binary mode against the text mode.
+ *
+ * Modes (standard input to standard output):
+ *   encode [batch]  text command lines to binary command frames
+ *                   (batch commands per frame, default 1000)
+ *   decode          binary command frames back to text command lines
+ *   responses       binary response frames to the text the command loop prints
+ *
+ * Example:
+ *   java BinaryCommandConverter encode < script.txt | java Solution --binary
+ *       | java BinaryCommandConverter responses
+ * prints the same output as java Solution < script.txt.
+ */
+public class BinaryCommandConverter {
+
+    public static void main(String[] args) throws IOException {
+        String mode = args.length > 0 ? args[0] : "encode";
+        switch (mode) {
+            case "encode":
+                encode(args.length > 1 ? Integer.parseInt(args[1]) : 1000);
+                break;
+            case "decode":
+                decode();
+                break;
+            case "responses":
+                responses();
+                break;
+            default:
+                System.err.println("Usage: java BinaryCommandConverter encode [batch] | decode | responses");
+                System.exit(2);
+        }
+    }
+
+    private static void encode(int batch) throws IOException {
+        FastLineReader reader = new FastLineReader(System.in, 1 << 16);
+        CommandParser parser = new CommandParser();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out, 1 << 16));
+        ByteArrayOutputStream commands = new ByteArrayOutputStream();
+        int count = 0;
+        while (reader.next()) {
+            if (!parser.parse(reader.lineBuffer(), reader.lineStart(), reader.lineEnd())) continue;
+            BinaryProtocol.writeCommand(commands, parser, parser.fieldCount());
+            if (++count == batch) {
+                flushFrame(out, commands, count);
+                count = 0;
+            }
+        }
+        if (count > 0) flushFrame(out, commands, count);
+        out.flush();
+    }
+
+    private static void flushFrame(DataOutputStream out, ByteArrayOutputStream commands, int count)
+            throws IOException {
+        ByteArrayOutputStream frame = new ByteArrayOutputStream(commands.size() + 5);
+        BinaryProtocol.writeVarint(frame, count);
+        commands.writeTo(frame);
+        BinaryProtocol.writeFrame(out, frame);
+        commands.reset();
+    }
+
+    private static void decode() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in, 1 << 16));
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+        for (ByteBuffer frame = BinaryProtocol.readFrame(in); frame != null; frame = BinaryProtocol.readFrame(in)) {
+            int count = BinaryProtocol.readVarint(frame);
+            for (int i = 0; i < count; i++) {
+                BinaryCommand cmd = BinaryProtocol.readCommand(frame);
+                StringBuilder line = new StringBuilder(cmd.field(0));
+                for (int f = 1; f < cmd.fieldCount(); f++) {
+                    line.append(';').append(cmd.field(f));
+                }
+                out.println(line);
+            }
+        }
+        out.flush();
+    }
+
+    private static void responses() throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in, 1 << 16));
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+        for (ByteBuffer frame = BinaryProtocol.readFrame(in); frame != null; frame = BinaryProtocol.readFrame(in)) {
+            int count = BinaryProtocol.readVarint(frame);
+            for (int i = 0; i < count; i++) {
+                TaskList<String> lines = BinaryProtocol.readResponse(frame);
+                for (int l = 0; l < lines.size(); l++) {
+                    out.println(lines.get(l));
+                }
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,78 @@
+import java.util.function.LongSupplier;
+
+/**
+ * TaskList next to ChunkedTaskList for positional edits and scans.
+ *
+ *   edits  ops random insert(i) and removeAt(i) pairs at random positions,
+ *          so the size stays the same
+ *   scan   get(0) ... get(size - 1), summing the priorities
+ *
+ * TaskList shifts everything after the position on each edit; ChunkedTaskList
+ * shifts within one chunk of ChunkedTaskList.CHUNK_SIZE items. Times are the
+ * best of three runs, in milliseconds.
+ *
+ * Usage: java ChunkedListBenchmark [ops]
+ */
+public class ChunkedListBenchmark {
+    private static final int[] SIZES = {1_000, 100_000, 1_000_000};
+
+    public static void main(String[] args) {
+        int ops = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        System.out.printf("%-10s %18s %18s %18s %18s%n", "size", "TaskList edits", "chunked edits",
+                "TaskList scan", "chunked scan");
+        for (int size : SIZES) {
+            TaskItem[] items = new TaskItem[size];
+            for (int i = 0; i < size; i++) {
+                items[i] = new TaskItem("T" + i, "task " + i, "2025-01-01", 1 + i % 9);
+            }
+            IarrayList<TaskItem> plain = fill(new TaskList<>(), items);
+            IarrayList<TaskItem> chunked = fill(new ChunkedTaskList<>(), items);
+            System.out.printf("%-10d %18.1f %18.1f %18.2f %18.2f%n", size, best(() -> edits(plain, ops)),
+                    best(() -> edits(chunked, ops)), best(() -> scan(plain)), best(() -> scan(chunked)));
+        }
+    }
+
+    private static IarrayList<TaskItem> fill(IarrayList<TaskItem> list, TaskItem[] items) {
+        for (TaskItem t : items) {
+            list.add(t);
+        }
+        return list;
+    }
+
+    private static long edits(IarrayList<TaskItem> list, int ops) {
+        long x = 0x9E3779B97F4A7C15L;
+        long sink = 0;
+        for (int i = 0; i < ops; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            int size = list.size();
+            TaskItem t = list.removeAt((int) ((x >>> 33) % size));
+            list.insert((int) ((x & 0x7fffffff) % size), t);
+            sink += t.getPriority();
+        }
+        return sink;
+    }
+
+    private static long scan(IarrayList<TaskItem> list) {
+        long sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i).getPriority();
+        }
+        return sum;
+    }
+
+    // Best of three runs after one warm-up, in milliseconds
+    private static double best(LongSupplier run) {
+        long sink = run.getAsLong();
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 3; r++) {
+            long t0 = System.nanoTime();
+            sink += run.getAsLong();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        if (sink == 42) System.out.print(""); // keep the results alive
+        return best / 1e6;
+    }
+}
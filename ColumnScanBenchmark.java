@@ -0,0 +1,104 @@
+import java.util.function.LongSupplier;
+
+/**
+ * Status and priority filters over a large task list: the object loops the
+ * manager used before, next to TaskColumns scans.
+ *
+ *   count TODO >= p  tasks that are TODO with priority at least 5
+ *   status filter    the GET_STATUS filter for DONE, collecting the tasks
+ *   TODO filter      the filter in front of getNextHighPriorityTask's heap,
+ *                    as a selection only
+ *
+ * "columns" scans columns that are already built; "build + columns" also
+ * builds them first, which is what the first query after a change costs.
+ * Times are the best of five runs, in milliseconds.
+ *
+ * Usage: java ColumnScanBenchmark [tasks]
+ */
+public class ColumnScanBenchmark {
+    private static final String[] STATUSES = {"TODO", "SCHEDULED", "DONE"};
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+
+        TaskList<TaskItem> list = new TaskList<>();
+        long x = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < tasks; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            TaskItem t = new TaskItem("T" + i, "task " + i, "2025-01-01", 1 + (int) ((x >>> 33) % 10));
+            t.setStatus(STATUSES[(int) ((x >>> 20) % 3)]);
+            list.add(t);
+        }
+        TaskColumns columns = TaskColumns.of(list, 0);
+
+        System.out.printf("%-18s %14s %14s %16s %10s%n", "", "loop (ms)", "columns (ms)", "build + columns",
+                "speedup");
+        row("count TODO >= p", () -> countLoop(list),
+                () -> columns.count(TaskColumns.TODO, 5),
+                () -> TaskColumns.of(list, 0).count(TaskColumns.TODO, 5));
+        row("status filter", () -> statusLoop(list).size(),
+                () -> collect(list, columns.select(TaskColumns.DONE, Integer.MIN_VALUE)).size(),
+                () -> collect(list, TaskColumns.of(list, 0).select(TaskColumns.DONE, Integer.MIN_VALUE)).size());
+        row("TODO filter", () -> todoLoop(list),
+                () -> columns.select(TaskColumns.TODO, Integer.MIN_VALUE).length,
+                () -> TaskColumns.of(list, 0).select(TaskColumns.TODO, Integer.MIN_VALUE).length);
+    }
+
+    private static void row(String name, LongSupplier loop, LongSupplier scan, LongSupplier buildAndScan) {
+        double l = best(loop);
+        double s = best(scan);
+        double b = best(buildAndScan);
+        System.out.printf("%-18s %14.2f %14.2f %16.2f %9.1fx%n", name, l, s, b, l / s);
+    }
+
+    private static long countLoop(TaskList<TaskItem> list) {
+        long n = 0;
+        for (int i = 0; i < list.size(); i++) {
+            TaskItem t = list.get(i);
+            if ("TODO".equalsIgnoreCase(t.getStatus()) && t.getPriority() >= 5) n++;
+        }
+        return n;
+    }
+
+    private static TaskList<TaskItem> statusLoop(TaskList<TaskItem> list) {
+        TaskList<TaskItem> results = new TaskList<>();
+        for (int i = 0; i < list.size(); i++) {
+            if (list.get(i).getStatus().equalsIgnoreCase("DONE")) results.add(list.get(i));
+        }
+        return results;
+    }
+
+    // Marks the TODO tasks in a bitmap, like the scan does
+    private static long todoLoop(TaskList<TaskItem> list) {
+        long[] bits = new long[(list.size() + 63) >>> 6];
+        for (int i = 0; i < list.size(); i++) {
+            if ("TODO".equalsIgnoreCase(list.get(i).getStatus())) bits[i >>> 6] |= 1L << i;
+        }
+        return bits.length;
+    }
+
+    private static TaskList<TaskItem> collect(TaskList<TaskItem> list, long[] bits) {
+        TaskList<TaskItem> results = new TaskList<>();
+        for (int w = 0; w < bits.length; w++) {
+            for (long b = bits[w]; b != 0; b &= b - 1) {
+                results.add(list.get((w << 6) + Long.numberOfTrailingZeros(b)));
+            }
+        }
+        return results;
+    }
+
+    // Best of five runs after one warm-up, in milliseconds
+    private static double best(LongSupplier run) {
+        long sink = run.getAsLong();
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 5; r++) {
+            long t0 = System.nanoTime();
+            sink += run.getAsLong();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        if (sink == 42) System.out.print(""); // keep the results alive
+        return best / 1e6;
+    }
+}
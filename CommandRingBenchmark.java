@@ -0,0 +1,176 @@
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Throughput and latency of many producers feeding one manager, through a
+ * CommandRing next to a synchronized baseline.
+ *
+ *   synchronized  each producer runs Solution.execute() itself while holding
+ *                 one lock, capturing the output the same way
+ *   ring          producers submit to a CommandRing and the main thread is
+ *                 the single writer; each producer keeps up to window
+ *                 commands in flight and waits for their futures
+ *
+ * Every producer sends commands per producer from a read/write mix over 100
+ * tasks (SEARCH_ID, SCHEDULE_ID, PROCESS_NEXT, GET_NEXT_PRIORITY). Latency is
+ * measured per command from submit to result, and p50 and p99 are printed
+ * in microseconds.
+ *
+ * Usage: java CommandRingBenchmark [commandsPerProducer] [window] [capacity]
+ */
+public class CommandRingBenchmark {
+    private static final int[] PRODUCERS = {1, 2, 4, 8};
+    private static final int TASKS = 100;
+
+    public static void main(String[] args) throws Exception {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int window = args.length > 1 ? Integer.parseInt(args[1]) : 32;
+        int capacity = args.length > 2 ? Integer.parseInt(args[2]) : 1024;
+
+        PrintStream console = System.out;
+        console.printf("%-14s %-10s %14s %10s %10s %10s%n", "mode", "producers", "commands/ms", "p50 (us)",
+                "p99 (us)", "batch");
+        for (int producers : PRODUCERS) {
+            // warm up both modes once before measuring
+            synchronizedRun(producers, commands / 10);
+            ringRun(producers, commands / 10, window, capacity);
+
+            double[] s = synchronizedRun(producers, commands);
+            console.printf("%-14s %-10d %14.0f %10.1f %10.1f %10s%n", "synchronized", producers, s[0], s[1], s[2],
+                    "-");
+            double[] r = ringRun(producers, commands, window, capacity);
+            console.printf("%-14s %-10d %14.0f %10.1f %10.1f %10.1f%n", "ring", producers, r[0], r[1], r[2], r[3]);
+        }
+    }
+
+    // Returns {commands per ms, p50 us, p99 us}
+    private static double[] synchronizedRun(int producers, int commands) throws InterruptedException {
+        ToDoListManager<TaskItem> manager = setUp();
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(captured, false));
+        long[][] latencies = new long[producers][];
+        Thread[] threads = new Thread[producers];
+        try {
+            for (int p = 0; p < producers; p++) {
+                ParsedCommand[] script = script(p, commands);
+                long[] lat = latencies[p] = new long[commands];
+                threads[p] = new Thread(() -> {
+                    long sink = 0;
+                    for (int i = 0; i < script.length; i++) {
+                        long t0 = System.nanoTime();
+                        synchronized (manager) {
+                            Solution.execute(manager, script[i]);
+                            System.out.flush();
+                            sink += captured.toString().length();
+                            captured.reset();
+                        }
+                        lat[i] = System.nanoTime() - t0;
+                    }
+                    if (sink == 42) System.err.print(""); // keep the output alive
+                });
+            }
+            long t0 = System.nanoTime();
+            for (Thread t : threads) t.start();
+            for (Thread t : threads) t.join();
+            long elapsed = System.nanoTime() - t0;
+            return summary(latencies, producers * (long) commands, elapsed, 0);
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    // Returns {commands per ms, p50 us, p99 us, average batch size}
+    private static double[] ringRun(int producers, int commands, int window, int capacity)
+            throws InterruptedException {
+        CommandRing ring = new CommandRing(setUp(), capacity);
+        long[][] latencies = new long[producers][];
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            ParsedCommand[] script = script(p, commands);
+            long[] lat = latencies[p] = new long[commands];
+            threads[p] = new Thread(() -> {
+                @SuppressWarnings({"unchecked", "rawtypes"})
+                CompletableFuture<String>[] inFlight = new CompletableFuture[window];
+                long[] started = new long[window];
+                long sink = 0;
+                try {
+                    for (int i = 0; i < script.length + window; i++) {
+                        int w = i % window;
+                        if (i >= window) {
+                            sink += inFlight[w].get().length();
+                            lat[i - window] = System.nanoTime() - started[w];
+                        }
+                        if (i < script.length) {
+                            started[w] = System.nanoTime();
+                            inFlight[w] = ring.submit(script[i]);
+                        }
+                    }
+                } catch (InterruptedException | ExecutionException e) {
+                    throw new IllegalStateException(e);
+                }
+                if (sink == 42) System.err.print(""); // keep the output alive
+            });
+        }
+        long t0 = System.nanoTime();
+        for (Thread t : threads) t.start();
+        Thread closer = new Thread(() -> {
+            try {
+                for (Thread t : threads) t.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ring.close();
+        });
+        closer.start();
+        ring.run();
+        long elapsed = System.nanoTime() - t0;
+        return summary(latencies, producers * (long) commands, elapsed, ring.batches());
+    }
+
+    private static double[] summary(long[][] latencies, long total, long elapsed, long batches) {
+        long[] all = new long[(int) total];
+        int n = 0;
+        for (long[] lat : latencies) {
+            System.arraycopy(lat, 0, all, n, lat.length);
+            n += lat.length;
+        }
+        Arrays.sort(all);
+        return new double[] {total / (elapsed / 1e6), all[all.length / 2] / 1e3, all[(int) (all.length * 0.99)] / 1e3,
+                batches == 0 ? 0 : total / (double) batches};
+    }
+
+    private static ToDoListManager<TaskItem> setUp() {
+        ToDoListManager<TaskItem> manager = new ToDoListManager<>();
+        for (int i = 0; i < TASKS; i++) {
+            manager.addItem(new TaskItem("T" + i, "task " + i, "2025-01-01", 1 + i % 9));
+        }
+        return manager;
+    }
+
+    private static ParsedCommand[] script(int producer, int commands) {
+        CommandParser parser = new CommandParser();
+        ParsedCommand[] script = new ParsedCommand[commands];
+        long x = producer * 0x9E3779B97F4A7C15L + 1;
+        for (int i = 0; i < commands; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            int r = (int) (x >>> 33);
+            String id = "T" + (r / 4) % TASKS;
+            String line;
+            switch (r % 4) {
+                case 0: line = "SEARCH_ID;" + id; break;
+                case 1: line = "SCHEDULE_ID;" + id; break;
+                case 2: line = "PROCESS_NEXT"; break;
+                default: line = "GET_NEXT_PRIORITY"; break;
+            }
+            parser.parse(line);
+            script[i] = new ParsedCommand(parser);
+        }
+        return script;
+    }
+}
@@ -0,0 +1,61 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Random;
+
+/**
+ * Writes a generated command script for Solution to standard output,
+ * for measuring the command loop on large inputs.
+ *
+ * The script adds a fixed set of tasks and then issues a read-heavy mix of
+ * commands (searches, status queries, DISPLAY, scheduling) so that the undo
+ * history stays small while the line count grows into the millions.
+ *
+ * Usage: java CommandScriptGenerator lines [tasks] [seed] > script.txt
+ */
+public class CommandScriptGenerator {
+    private static final String[] WORDS = {
+        "report", "meeting", "invoice", "review", "deploy", "backup", "email", "budget"
+    };
+    private static final String[] STATUSES = {"TODO", "SCHEDULED", "DONE"};
+
+    public static void main(String[] args) throws IOException {
+        long lines = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000L;
+        int tasks = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+        Random rnd = new Random(seed);
+        Writer out = new BufferedWriter(new OutputStreamWriter(System.out), 1 << 16);
+
+        for (int i = 0; i < tasks; i++) {
+            out.write("ADD;T" + i + ";" + WORDS[i % WORDS.length] + " " + i + ";2025-"
+                    + two(1 + i % 12) + "-" + two(1 + i % 28) + ";" + (1 + rnd.nextInt(9)) + "\n");
+        }
+        for (long n = tasks; n < lines - 1; n++) {
+            int r = rnd.nextInt(100);
+            String id = "T" + rnd.nextInt(tasks + tasks / 10 + 1);
+            if (r < 40) {
+                out.write("SEARCH_ID;" + id + "\n");
+            } else if (r < 55) {
+                out.write("SEARCH_DESC;" + WORDS[rnd.nextInt(WORDS.length)] + "\n");
+            } else if (r < 65) {
+                out.write("GET_STATUS;" + STATUSES[rnd.nextInt(STATUSES.length)] + "\n");
+            } else if (r < 75) {
+                out.write("GET_NEXT_PRIORITY\n");
+            } else if (r < 85) {
+                out.write("SCHEDULE_ID;" + id + "\n");
+            } else if (r < 95) {
+                out.write("PROCESS_NEXT\n");
+            } else {
+                out.write("DISPLAY\n");
+            }
+        }
+        out.write("EXIT\n");
+        out.flush();
+    }
+
+    private static String two(int v) {
+        return v < 10 ? "0" + v : String.valueOf(v);
+    }
+}
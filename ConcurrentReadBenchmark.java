@@ -0,0 +1,144 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Read throughput of a shared manager with one writer and 1 to 16 readers.
+ *
+ * The writer keeps scheduling and processing tasks (pausing pauseMicros
+ * between writes). Each reader repeats a query mix: 80% SEARCH_ID, 15%
+ * SEARCH_DESC and 5% GET_STATUS. Two setups are compared:
+ * "synchronized" wraps every call on a plain ToDoListManager in one lock,
+ * which is the simplest safe option; "stamped" uses ConcurrentToDoListManager.
+ * Each run lasts runMillis. Reads per millisecond are summed over all readers.
+ *
+ * Usage: java ConcurrentReadBenchmark [tasks] [runMillis] [pauseMicros]
+ */
+public class ConcurrentReadBenchmark {
+    private static final int[] READERS = {1, 2, 4, 8, 16};
+    private static final String[] WORDS = {"report", "meeting", "invoice", "review"};
+    private static final String[] STATUSES = {"TODO", "SCHEDULED", "DONE"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int runMillis = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+        int pauseMicros = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+
+        System.out.printf("%-8s %22s %22s %18s %18s%n", "readers", "synchronized (reads/ms)",
+                "stamped (reads/ms)", "sync (writes/ms)", "stamped (writes/ms)");
+        for (int readers : READERS) {
+            // warm up each setup once before measuring
+            run(false, readers, tasks, runMillis / 4, pauseMicros);
+            run(true, readers, tasks, runMillis / 4, pauseMicros);
+
+            double[] sync = run(false, readers, tasks, runMillis, pauseMicros);
+            double[] stamped = run(true, readers, tasks, runMillis, pauseMicros);
+            System.out.printf("%-8d %22.0f %22.0f %18.1f %18.1f%n", readers, sync[0], stamped[0], sync[1],
+                    stamped[1]);
+        }
+    }
+
+    // Returns {reads per ms, writes per ms}
+    private static double[] run(boolean stamped, int readers, int tasks, int runMillis, int pauseMicros)
+            throws InterruptedException {
+        ToDoListManager<TaskItem> plain = new ToDoListManager<>();
+        TaskList<TaskItem> all = plain.getAllTasks();
+        for (int i = 0; i < tasks; i++) {
+            all.add(new TaskItem("T" + i, WORDS[i % WORDS.length] + " " + i, "2025-01-01", 1 + i % 9));
+        }
+        AbstractListManager<TaskItem> manager = stamped ? new ConcurrentToDoListManager<>(plain) : plain;
+        Object monitor = stamped ? null : plain;
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong reads = new AtomicLong();
+        AtomicLong writes = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(readers + 1);
+
+        new Thread(() -> {
+            await(start);
+            long n = 0;
+            while (!stop.get()) {
+                write(manager, monitor, n, tasks);
+                n++;
+                LockSupport.parkNanos(pauseMicros * 1_000L);
+            }
+            writes.addAndGet(n);
+            done.countDown();
+        }).start();
+        for (int r = 0; r < readers; r++) {
+            long seed = r;
+            new Thread(() -> {
+                await(start);
+                long n = 0;
+                long sink = 0;
+                long x = seed * 0x9E3779B97F4A7C15L + 1;
+                while (!stop.get()) {
+                    x ^= x << 13;
+                    x ^= x >>> 7;
+                    x ^= x << 17;
+                    sink += read(manager, monitor, (int) (x >>> 33), tasks);
+                    n++;
+                }
+                if (sink == 42) System.out.print(""); // keep the reads alive
+                reads.addAndGet(n);
+                done.countDown();
+            }).start();
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        Thread.sleep(runMillis);
+        stop.set(true);
+        done.await();
+        double ms = (System.nanoTime() - t0) / 1_000_000.0;
+        return new double[] {reads.get() / ms, writes.get() / ms};
+    }
+
+    private static int read(AbstractListManager<TaskItem> manager, Object monitor, int r, int tasks) {
+        if (monitor == null) return query(manager, r, tasks);
+        synchronized (monitor) {
+            return query(manager, r, tasks);
+        }
+    }
+
+    private static int query(AbstractListManager<TaskItem> manager, int r, int tasks) {
+        int kind = r % 100;
+        if (kind < 80) {
+            TaskItem t = manager.searchById("T" + (r / 100) % tasks);
+            return t == null ? 0 : t.getPriority();
+        } else if (kind < 95) {
+            return manager.searchByDescription(WORDS[(r / 100) % WORDS.length]).size();
+        } else {
+            return manager.getTasksByStatusSortedByPriority(STATUSES[(r / 100) % STATUSES.length]).size();
+        }
+    }
+
+    private static void write(AbstractListManager<TaskItem> manager, Object monitor, long n, int tasks) {
+        if (monitor == null) {
+            update(manager, n, tasks);
+            return;
+        }
+        synchronized (monitor) {
+            update(manager, n, tasks);
+        }
+    }
+
+    // Scheduling and processing change statuses without growing the undo history
+    private static void update(AbstractListManager<TaskItem> manager, long n, int tasks) {
+        if (n % 2 == 0) {
+            manager.scheduleTask("T" + (n / 2) % tasks);
+        } else {
+            manager.processNextScheduledTask();
+        }
+    }
+
+    private static void await(CountDownLatch start) {
+        try {
+            start.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
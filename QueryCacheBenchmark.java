@@ -0,0 +1,80 @@
+/**
+ * Repeated SEARCH_DESC and GET_STATUS queries with the query cache off
+ * (capacity 0) and on (the default capacity).
+ *
+ * Each run sends queries commands: SEARCH_DESC on one of distinct keywords
+ * (half of them) and GET_STATUS on TODO, SCHEDULED or DONE (the other half),
+ * with one SCHEDULE_ID or PROCESS_NEXT after every writeEvery queries. Every
+ * write makes all cached results stale, so the fewer writes and the fewer
+ * distinct queries, the more hits. Prints queries per millisecond and the
+ * cache's hit, miss and eviction counters.
+ *
+ * Usage: java QueryCacheBenchmark [tasks] [queries] [keywords]
+ */
+public class QueryCacheBenchmark {
+    private static final int[] WRITE_EVERY = {10, 100, 1_000};
+    private static final String[] STATUSES = {"TODO", "SCHEDULED", "DONE"};
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int queries = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int keywords = args.length > 2 ? Integer.parseInt(args[2]) : 16;
+
+        System.out.printf("%-12s %-10s %14s %10s %10s %10s%n", "writeEvery", "cache", "queries/ms", "hits",
+                "misses", "evictions");
+        for (int writeEvery : WRITE_EVERY) {
+            for (int capacity : new int[] {0, QueryCache.DEFAULT_CAPACITY}) {
+                run(tasks, queries / 10, keywords, writeEvery, capacity); // warm up
+                ToDoListManager<TaskItem> manager = setUp(tasks, keywords, capacity);
+                double rate = run(manager, tasks, queries, keywords, writeEvery);
+                QueryCache<TaskList<TaskItem>> cache = manager.getQueryCache();
+                System.out.printf("%-12d %-10s %14.1f %10d %10d %10d%n", writeEvery,
+                        capacity == 0 ? "off" : String.valueOf(capacity), rate, cache.hits(), cache.misses(),
+                        cache.evictions());
+            }
+        }
+    }
+
+    private static void run(int tasks, int queries, int keywords, int writeEvery, int capacity) {
+        run(setUp(tasks, keywords, capacity), tasks, queries, keywords, writeEvery);
+    }
+
+    // Returns queries per millisecond
+    private static double run(ToDoListManager<TaskItem> manager, int tasks, int queries, int keywords,
+            int writeEvery) {
+        long sink = 0;
+        long x = 0x9E3779B97F4A7C15L;
+        long t0 = System.nanoTime();
+        for (int i = 0; i < queries; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            int r = (int) (x >>> 33);
+            if (r % 2 == 0) {
+                sink += manager.searchByDescription("word" + (r / 2) % keywords).size();
+            } else {
+                sink += manager.getTasksByStatusSortedByPriority(STATUSES[(r / 2) % STATUSES.length]).size();
+            }
+            if (i % writeEvery == writeEvery - 1) {
+                if ((i / writeEvery) % 2 == 0) {
+                    manager.scheduleTask("T" + (r / 2) % tasks);
+                } else {
+                    manager.processNextScheduledTask();
+                }
+            }
+        }
+        double ms = (System.nanoTime() - t0) / 1_000_000.0;
+        if (sink == 42) System.out.print(""); // keep the results alive
+        return queries / ms;
+    }
+
+    private static ToDoListManager<TaskItem> setUp(int tasks, int keywords, int capacity) {
+        ToDoListManager<TaskItem> manager = new ToDoListManager<>();
+        manager.getQueryCache().setCapacity(capacity);
+        TaskList<TaskItem> all = manager.getAllTasks();
+        for (int i = 0; i < tasks; i++) {
+            all.add(new TaskItem("T" + i, "word" + i % keywords + " task " + i, "2025-01-01", 1 + i % 9));
+        }
+        return manager;
+    }
+}
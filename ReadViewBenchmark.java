@@ -0,0 +1,114 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long reads next to a writer: one reader keeps formatting every task (like
+ * DISPLAY) while one writer keeps scheduling and processing tasks. Three ways
+ * of reading are compared:
+ *
+ *   synchronized  a plain ToDoListManager, with reader and writer holding one
+ *                 lock for a whole pass or write
+ *   copy          ConcurrentToDoListManager.getAllTasks(), a fresh copy per pass
+ *   view          ConcurrentToDoListManager.openView(), a pinned version
+ *
+ * For each it prints full passes per second, writes per second, and how many
+ * passes saw a torn state. The writer keeps exactly one task SCHEDULED
+ * between writes, so a consistent pass sees 0 or 1.
+ *
+ * Usage: java ReadViewBenchmark [tasks] [seconds]
+ */
+public class ReadViewBenchmark {
+    private static final String[] MODES = {"synchronized", "copy", "view"};
+
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        System.out.printf("%-14s %12s %12s %8s %14s%n", "reads", "passes/s", "writes/s", "torn", "live versions");
+        for (String mode : MODES) {
+            run(mode, tasks, 1); // warm up
+            System.gc();
+            long[] r = run(mode, tasks, seconds);
+            System.out.printf("%-14s %12.1f %12.0f %8d %14s%n", mode, r[0] / (double) seconds,
+                    r[1] / (double) seconds, r[2], r[3] < 0 ? "-" : String.valueOf(r[3]));
+        }
+    }
+
+    // Returns {passes, writes, torn passes, live versions at the end (-1 if not versioned)}
+    private static long[] run(String mode, int tasks, int seconds) throws InterruptedException {
+        ToDoListManager<TaskItem> plain = new ToDoListManager<>();
+        TaskList<TaskItem> all = plain.getAllTasks();
+        for (int i = 0; i < tasks; i++) {
+            all.add(new TaskItem("T" + i, "task number " + i, "2025-01-01", 1 + i % 9));
+        }
+        ConcurrentToDoListManager<TaskItem> shared = new ConcurrentToDoListManager<>(plain);
+        boolean locked = mode.equals("synchronized");
+        AbstractListManager<TaskItem> writes = locked ? plain : shared;
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicLong writeCount = new AtomicLong();
+        Thread writer = new Thread(() -> {
+            long n = 0;
+            while (!stop.get()) {
+                String id = "T" + (n % tasks);
+                if (locked) {
+                    synchronized (plain) {
+                        writes.scheduleTask(id);
+                        writes.processNextScheduledTask();
+                    }
+                } else {
+                    writes.scheduleTask(id);
+                    writes.processNextScheduledTask();
+                }
+                n++;
+            }
+            writeCount.set(2 * n);
+        });
+
+        long passes = 0;
+        long torn = 0;
+        writer.start();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        while (System.nanoTime() < end) {
+            int scheduled;
+            if (locked) {
+                synchronized (plain) {
+                    scheduled = pass(plain.getAllTasks());
+                }
+            } else if (mode.equals("copy")) {
+                scheduled = pass(shared.getAllTasks());
+            } else {
+                try (ReadView<TaskItem> view = shared.openView()) {
+                    scheduled = pass(view);
+                }
+            }
+            if (scheduled > 1) torn++;
+            passes++;
+        }
+        stop.set(true);
+        writer.join();
+        return new long[] {passes, writeCount.get(), torn, locked || mode.equals("copy") ? -1 : shared.liveVersions()};
+    }
+
+    // One DISPLAY-like pass; returns the number of SCHEDULED tasks seen
+    private static int pass(TaskList<TaskItem> tasks) {
+        int scheduled = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            scheduled += visit(tasks.get(i));
+        }
+        return scheduled;
+    }
+
+    private static int pass(ReadView<TaskItem> view) {
+        int scheduled = 0;
+        for (int i = 0; i < view.size(); i++) {
+            scheduled += visit(view.get(i));
+        }
+        return scheduled;
+    }
+
+    private static int visit(TaskItem t) {
+        if (t.toString().length() == 0) System.out.print(""); // keep the formatting alive
+        return "SCHEDULED".equals(t.getStatus()) ? 1 : 0;
+    }
+}
@@ -0,0 +1,92 @@
+import java.util.function.IntSupplier;
+
+/**
+ * Cost of removing tasks from a TaskList.
+ *
+ *   remove completed  removes every DONE task, either with one removeAt()
+ *                     per task from the back (the old removeCompletedTasks)
+ *                     or with one removeIf() pass
+ *   remove by ID      removes removals tasks one at a time by ID with
+ *                     removeFirst(), shifting the array each time or leaving
+ *                     tombstones that are compacted later
+ *
+ * doneRatio is the share of DONE tasks. Times are the best of three runs,
+ * in milliseconds.
+ *
+ * Usage: java RemovalBenchmark [tasks] [doneRatio] [removals]
+ */
+public class RemovalBenchmark {
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        double doneRatio = args.length > 1 ? Double.parseDouble(args[1]) : 0.9;
+        int removals = args.length > 2 ? Integer.parseInt(args[2]) : 5_000;
+
+        TaskItem[] items = new TaskItem[tasks];
+        long x = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < tasks; i++) {
+            items[i] = new TaskItem("T" + i, "task " + i, "2025-01-01", 1 + i % 9);
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            if ((x >>> 11) * 0x1.0p-53 < doneRatio) items[i].setStatus("DONE");
+        }
+        String[] ids = new String[removals];
+        for (int i = 0; i < removals; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+            ids[i] = "T" + (int) ((x >>> 33) % tasks);
+        }
+
+        System.out.printf("%-20s %14s %14s%n", "", "old (ms)", "new (ms)");
+        System.out.printf("%-20s %14.1f %14.1f%n", "remove completed", best(() -> removeBackwards(items)),
+                best(() -> removeIf(items)));
+        System.out.printf("%-20s %14.1f %14.1f%n", "remove by ID", best(() -> removeById(items, ids, false)),
+                best(() -> removeById(items, ids, true)));
+    }
+
+    private static int removeBackwards(TaskItem[] items) {
+        TaskList<TaskItem> list = fill(items, false);
+        for (int i = list.size() - 1; i >= 0; i--) {
+            if ("DONE".equalsIgnoreCase(list.get(i).getStatus())) list.removeAt(i);
+        }
+        return list.size();
+    }
+
+    private static int removeIf(TaskItem[] items) {
+        TaskList<TaskItem> list = fill(items, false);
+        list.removeIf(t -> "DONE".equalsIgnoreCase(t.getStatus()));
+        return list.size();
+    }
+
+    private static int removeById(TaskItem[] items, String[] ids, boolean tombstones) {
+        TaskList<TaskItem> list = fill(items, tombstones);
+        for (String id : ids) {
+            list.removeFirst(t -> t.getId().equals(id));
+        }
+        return list.get(0) == null ? -1 : list.size(); // the first get() compacts
+    }
+
+    private static TaskList<TaskItem> fill(TaskItem[] items, boolean tombstones) {
+        TaskList<TaskItem> list = new TaskList<>();
+        list.setTombstones(tombstones);
+        for (TaskItem t : items) {
+            list.add(t);
+        }
+        return list;
+    }
+
+    // Best of three runs after one warm-up, in milliseconds
+    private static double best(IntSupplier run) {
+        int sink = run.getAsInt();
+        long best = Long.MAX_VALUE;
+        for (int r = 0; r < 3; r++) {
+            long t0 = System.nanoTime();
+            sink += run.getAsInt();
+            best = Math.min(best, System.nanoTime() - t0);
+        }
+        if (sink == 42) System.out.print(""); // keep the results alive
+        return best / 1e6;
+    }
+}
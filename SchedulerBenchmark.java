@@ -0,0 +1,92 @@
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Contention benchmark for the scheduled-task queue.
+ *
+ * Runs 1 to 32 producer threads calling enqueue() against a fixed pool of
+ * consumer threads calling dequeue(), and prints the throughput of the
+ * lock-free queue next to a Scheduler guarded by a single lock.
+ *
+ * Usage: java SchedulerBenchmark [itemsPerRun] [consumers]
+ */
+public class SchedulerBenchmark {
+    private static final int[] PRODUCERS = {1, 2, 4, 8, 16, 32};
+
+    public static void main(String[] args) throws InterruptedException {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int consumers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+
+        System.out.printf("%-10s %18s %18s%n", "producers", "locked (ops/ms)", "lock-free (ops/ms)");
+        for (int producers : PRODUCERS) {
+            // warm up both queues once before measuring
+            run(new LockedScheduler<>(), producers, consumers, items / 10);
+            run(new LockFreeScheduler<>(), producers, consumers, items / 10);
+
+            double locked = run(new LockedScheduler<>(), producers, consumers, items);
+            double lockFree = run(new LockFreeScheduler<>(), producers, consumers, items);
+            System.out.printf("%-10d %18.0f %18.0f%n", producers, locked, lockFree);
+        }
+    }
+
+    // Returns completed enqueue+dequeue pairs per millisecond
+    private static double run(Ischeduler<Integer> queue, int producers, int consumers, int items)
+            throws InterruptedException {
+        int perProducer = items / producers;
+        int total = perProducer * producers;
+        AtomicInteger consumed = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers + consumers);
+
+        for (int p = 0; p < producers; p++) {
+            int first = p * perProducer; // items must be distinct: the queue ignores duplicates
+            new Thread(() -> {
+                await(start);
+                for (int i = 0; i < perProducer; i++) {
+                    queue.enqueue(first + i);
+                }
+                done.countDown();
+            }).start();
+        }
+        for (int c = 0; c < consumers; c++) {
+            new Thread(() -> {
+                await(start);
+                while (consumed.get() < total) {
+                    if (queue.dequeue() != null) {
+                        consumed.incrementAndGet();
+                    } else {
+                        Thread.onSpinWait();
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - t0;
+        return total / (elapsed / 1_000_000.0);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Baseline: the single-threaded Scheduler behind one lock
+    private static class LockedScheduler<T> implements Ischeduler<T> {
+        private final Scheduler<T> queue = new Scheduler<>();
+
+        public synchronized void enqueue(T item) { queue.enqueue(item); }
+        public synchronized T dequeue() { return queue.dequeue(); }
+        public synchronized boolean contains(T item) { return queue.contains(item); }
+        public synchronized boolean remove(T item) { return queue.remove(item); }
+        public synchronized boolean isEmpty() { return queue.isEmpty(); }
+        public synchronized int size() { return queue.size(); }
+        public synchronized TaskList<T> toList() { return queue.toList(); }
+    }
+}
@@ -0,0 +1,81 @@
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Write throughput of ShardedToDoListManager by number of shards and
+ * writer threads.
+ *
+ * Every writer applies ops/writers random writes: 50% UPDATE, 25% COMPLETE
+ * and 25% SCHEDULE_ID on random task IDs. One shard is the same as one
+ * ConcurrentToDoListManager. More shards help twice: writers on different
+ * shards do not wait for each other, and the undo snapshot each UPDATE or
+ * COMPLETE takes only copies one shard's tasks.
+ *
+ * Usage: java ShardedWriteBenchmark [tasks] [ops]
+ */
+public class ShardedWriteBenchmark {
+    private static final int[] SHARDS = {1, 2, 4, 8};
+    private static final int[] WRITERS = {1, 2, 4};
+
+    public static void main(String[] args) throws InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int ops = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+
+        System.out.printf("%-8s", "shards");
+        for (int writers : WRITERS) {
+            System.out.printf(" %22s", writers + " writer(s) (ops/ms)");
+        }
+        System.out.println();
+        for (int shards : SHARDS) {
+            System.out.printf("%-8d", shards);
+            for (int writers : WRITERS) {
+                // warm up once before measuring
+                run(shards, writers, tasks, ops / 4);
+                System.gc();
+                System.out.printf(" %22.1f", run(shards, writers, tasks, ops));
+            }
+            System.out.println();
+        }
+    }
+
+    // Returns writes per millisecond
+    private static double run(int shards, int writers, int tasks, int ops) throws InterruptedException {
+        ShardedToDoListManager<TaskItem> manager = new ShardedToDoListManager<>(shards);
+        for (int i = 0; i < tasks; i++) {
+            manager.addItem(new TaskItem("T" + i, "task " + i, "2025-01-01", 1 + i % 9));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(writers);
+        for (int w = 0; w < writers; w++) {
+            long seed = w;
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long x = seed * 0x9E3779B97F4A7C15L + 1;
+                for (int i = 0; i < ops / writers; i++) {
+                    x ^= x << 13;
+                    x ^= x >>> 7;
+                    x ^= x << 17;
+                    int r = (int) (x >>> 33);
+                    String id = "T" + (r / 4) % tasks;
+                    if (r % 4 < 2) {
+                        manager.updateItem(id, new TaskItem(id, "task " + i, "2025-02-01", 1 + r % 9));
+                    } else if (r % 4 == 2) {
+                        manager.completeTask(id);
+                    } else {
+                        manager.scheduleTask(id);
+                    }
+                }
+                done.countDown();
+            }).start();
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        return ops / ((System.nanoTime() - t0) / 1_000_000.0);
+    }
+}
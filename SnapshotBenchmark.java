@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Startup cost of loading a snapshot, by number of tasks.
+ *
+ * For each size a snapshot with that many tasks (1% of them scheduled) is
+ * written, then loaded into a new manager. "load" is the time until the
+ * manager can take commands; "first scan" is a SEARCH_ID for a missing ID,
+ * which touches every task and so reads every record from the mapping.
+ *
+ * Usage: java SnapshotBenchmark [dir]
+ */
+public class SnapshotBenchmark {
+    private static final int[] SIZES = {10_000, 100_000, 1_000_000, 4_000_000};
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Path.of(args.length > 0 ? args[0] : System.getProperty("java.io.tmpdir"));
+        Path file = Files.createTempFile(dir, "snapshot", ".bin");
+        try {
+            // warm up the load path once before measuring
+            write(file, 100_000);
+            load(file);
+
+            System.out.printf("%-10s %10s %12s %14s%n", "tasks", "MB", "load (ms)", "first scan (ms)");
+            for (int size : SIZES) {
+                write(file, size);
+                System.gc();
+                double[] r = load(file);
+                System.out.printf("%-10d %10.1f %12.1f %14.1f%n", size, Files.size(file) / 1e6, r[0], r[1]);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void write(Path file, int size) throws IOException {
+        TaskList<TaskItem> tasks = new TaskList<>();
+        TaskList<TaskItem> queue = new TaskList<>();
+        for (int i = 0; i < size; i++) {
+            TaskItem t = new TaskItem("T" + i, "task number " + i, "2025-" + two(1 + i % 12) + "-" + two(1 + i % 28),
+                    1 + i % 9);
+            if (i % 100 == 0) {
+                t.setStatus("SCHEDULED");
+                queue.add(t);
+            }
+            tasks.add(t);
+        }
+        SnapshotFile.write(file, tasks, queue, new TaskDependencyGraph(), 0, 0, 0);
+    }
+
+    // Returns {load ms, first scan ms}
+    private static double[] load(Path file) throws IOException {
+        long t0 = System.nanoTime();
+        ToDoListManager<TaskItem> manager = new ToDoListManager<>();
+        manager.loadSnapshot(file);
+        long t1 = System.nanoTime();
+        if (manager.searchById("missing") != null) System.out.print("");
+        long t2 = System.nanoTime();
+        return new double[] {(t1 - t0) / 1e6, (t2 - t1) / 1e6};
+    }
+
+    private static String two(int v) {
+        return v < 10 ? "0" + v : String.valueOf(v);
+    }
+}
@@ -1,4 +1,80 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
 import java.util.Scanner;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /* ============================
    FREEZE: Interfaces & Driver
@@ -103,6 +179,15 @@ interface IarrayList<T> {
 	 */
 	T removeAt(int index);
 
+	/**
+	 * Inserts an item at the given index.
+	 * Elements from this index on move one position right.
+	 * @param index the position for the new item (size() appends it)
+	 * @param item the element to insert
+	 * @throws IndexOutOfBoundsException if index is invalid
+	 */
+	void insert(int index, T item);
+
 	/**
 	 * Returns the number of items stored in the list.
 	 * @return the size of the list
@@ -348,170 +433,574 @@ abstract class AbstractListManager<T extends ListItem> {
  */
 public class Solution {
 
+	/** Input buffer size for --fast mode */
+	private static final int INPUT_BUFFER = 1 << 16;
+	/** Output buffer size for --fast mode; output is flushed when it fills */
+	private static final int OUTPUT_BUFFER = 1 << 16;
+
+	/** The write-ahead log every mutating command is appended to, or null (see --wal) */
+	static WriteAheadLog log;
+	/** The snapshot file checkpoints are written to, or null (see --snapshot) */
+	static Path snapshotPath;
+	/** Mutating commands between checkpoints; 0 writes a checkpoint only at EXIT */
+	static int snapshotEvery;
+	private static int sinceSnapshot;
+	/** The open transaction of standard input; CommandServer keeps one per client */
+	private static final Transaction transaction = new Transaction();
+
 	/**
 	 * The main method that reads commands and runs the To-Do List system.
 	 *
-	 * @param args not used
+	 * <p>Options:</p>
+	 * <ul>
+	 *   <li>--fast: read input through a large byte buffer and write all output
+	 *       through one buffered stream, flushed when the buffer fills, at EXIT
+	 *       and at the end of input.</li>
+	 *   <li>--interactive: with --fast, also flush after every command. This is
+	 *       the default when the program runs on a console.</li>
+	 *   <li>--pipeline[=N]: read, parse (on N threads, default 2), apply and
+	 *       write output on separate threads; see CommandPipeline.</li>
+	 *   <li>--binary: read binary command frames from standard input and write
+	 *       binary response frames; see BinaryProtocol.</li>
+	 *   <li>--binary-port=N: serve binary frames to clients on localhost port N,
+	 *       one connection at a time, against the same manager.</li>
+	 *   <li>--serve=N: serve the text protocol to any number of clients on
+	 *       localhost port N; see CommandServer.</li>
+	 *   <li>--serve-unix=PATH: the same on a Unix-domain socket.</li>
+	 *   <li>--wal=PATH: recover the tasks from the write-ahead log at PATH,
+	 *       then append every command that changes them; see WriteAheadLog.</li>
+	 *   <li>--wal-sync=none|batch|always: when the log is fsynced
+	 *       (default batch).</li>
+	 *   <li>--snapshot=PATH: start from the snapshot at PATH (then replay the
+	 *       rest of the log) and write a new snapshot at EXIT; see SnapshotFile.
+	 *       Undo cannot go back past a snapshot.</li>
+	 *   <li>--snapshot-every=N: also write the snapshot after every N commands
+	 *       that change the tasks.</li>
+	 *   <li>--archive=DIR: keep the segments written by ARCHIVE in DIR; see
+	 *       TaskArchive. Use it with --snapshot or --wal, which record which
+	 *       segments belong to the saved tasks.</li>
+	 *   <li>--query-cache=N: keep up to N SEARCH_DESC and GET_STATUS results
+	 *       (default 64, 0 turns the cache off); see QueryCache.</li>
+	 *   <li>--tombstones: REMOVE marks the task's slot and the list is
+	 *       compacted later, instead of shifting every later task; see TaskList.</li>
+	 * </ul>
+	 *
+	 * @param args command-line options (see above)
 	 */
 	public static void main(String[] args) {
-		Scanner sc = new Scanner(System.in);
+		boolean fast = false;
+		boolean interactive = System.console() != null;
+		int pipelineParsers = 0;
+		boolean binary = false;
+		int binaryPort = -1;
+		SocketAddress serveAddress = null;
+		String logPath = null;
+		String logSync = "batch";
+		String snapshot = null;
+		int every = 0;
+		String archiveDir = null;
+		int queryCache = QueryCache.DEFAULT_CAPACITY;
+		boolean tombstones = false;
+		for (String arg : args) {
+			if ("--fast".equals(arg)) fast = true;
+			else if ("--interactive".equals(arg)) interactive = true;
+			else if ("--pipeline".equals(arg)) pipelineParsers = 2;
+			else if (arg.startsWith("--pipeline=")) pipelineParsers = Integer.parseInt(arg.substring(11));
+			else if ("--binary".equals(arg)) binary = true;
+			else if (arg.startsWith("--binary-port=")) binaryPort = Integer.parseInt(arg.substring(14));
+			else if (arg.startsWith("--serve="))
+				serveAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(arg.substring(8)));
+			else if (arg.startsWith("--serve-unix=")) serveAddress = UnixDomainSocketAddress.of(arg.substring(13));
+			else if (arg.startsWith("--wal=")) logPath = arg.substring(6);
+			else if (arg.startsWith("--wal-sync=")) logSync = arg.substring(11);
+			else if (arg.startsWith("--snapshot=")) snapshot = arg.substring(11);
+			else if (arg.startsWith("--snapshot-every=")) every = Integer.parseInt(arg.substring(17));
+			else if (arg.startsWith("--archive=")) archiveDir = arg.substring(10);
+			else if (arg.startsWith("--query-cache=")) queryCache = Integer.parseInt(arg.substring(14));
+			else if ("--tombstones".equals(arg)) tombstones = true;
+		}
+
 		ToDoListManager<TaskItem> manager = new ToDoListManager<>();
+		manager.getQueryCache().setCapacity(queryCache);
+		manager.setTombstones(tombstones);
+		if (archiveDir != null) {
+			try {
+				manager.setArchive(new TaskArchive(Path.of(archiveDir)));
+			} catch (IOException ex) {
+				System.err.println("ERROR: " + ex.getMessage());
+				return;
+			}
+		}
+		long logOffset = 0, logRecords = 0;
+		if (snapshot != null && Files.exists(Path.of(snapshot))) {
+			try {
+				SnapshotFile loaded = manager.loadSnapshot(Path.of(snapshot));
+				logOffset = loaded.logOffset();
+				logRecords = loaded.logRecords();
+			} catch (IOException ex) {
+				System.err.println("ERROR: " + ex.getMessage());
+				return;
+			}
+		}
+		if (logPath != null) {
+			try {
+				log = WriteAheadLog.open(Path.of(logPath), WriteAheadLog.policy(logSync), manager, logOffset, logRecords);
+			} catch (IOException | IllegalArgumentException ex) {
+				System.err.println("ERROR: " + ex.getMessage());
+				return;
+			}
+			// also runs when a server is stopped with a signal
+			Runtime.getRuntime().addShutdownHook(new Thread(Solution::closeLog));
+		}
+		if (snapshot != null) {
+			snapshotPath = Path.of(snapshot);
+			snapshotEvery = every;
+		}
+		if (serveAddress != null) {
+			try {
+				new CommandServer(manager, serveAddress).run();
+			} catch (IOException ex) {
+				System.err.println("ERROR: " + ex.getMessage());
+			}
+			return;
+		}
+		if (binary || binaryPort >= 0) {
+			try {
+				if (binaryPort < 0) {
+					BinaryProtocol.serve(manager, System.in, new FileOutputStream(FileDescriptor.out));
+				} else {
+					serveBinary(manager, binaryPort);
+				}
+			} catch (IOException ex) {
+				System.err.println("ERROR: " + ex.getMessage());
+			}
+			return;
+		}
+		if (pipelineParsers > 0) {
+			try {
+				new CommandPipeline(manager, pipelineParsers).run(System.in, durableOutput(new FileOutputStream(FileDescriptor.out)));
+			} catch (IOException ex) {
+				System.err.println("ERROR: " + ex.getMessage());
+			}
+			return;
+		}
+		if (fast) {
+			runBuffered(manager, System.in, interactive);
+			return;
+		}
 
+		// with a log, every response waits until its command is durable
+		if (log != null) System.setOut(new PrintStream(durableOutput(new FileOutputStream(FileDescriptor.out)), true));
+		Scanner sc = new Scanner(System.in);
+		CommandParser parser = new CommandParser();
 		while (sc.hasNextLine()) {
 			String line = sc.nextLine();
 			if (line == null) break;
-			line = line.trim();
-			if (line.isEmpty()) continue;
+			if (!parser.parse(line)) continue;
+			if (!execute(manager, parser)) break;
+		}
 
-			String[] p = line.split(";", -1);
-			String cmd = p[0];
+		sc.close();
+	}
 
-			try {
-				switch (cmd) {
-
-				/** ADD a new task */
-				case "ADD":
-					manager.addItem(new TaskItem(p[1], p[2], p[3], Integer.parseInt(p[4])));
-					System.out.println("TASK ADDED");
-					break;
-
-					/** UPDATE an existing task */
-				case "UPDATE":
-					manager.updateItem(p[1], new TaskItem(p[1], p[2], p[3], Integer.parseInt(p[4])));
-					System.out.println("TASK UPDATED");
-					break;
-
-					/** REMOVE a task */
-				case "REMOVE":
-					manager.removeItem(p[1]);
-					System.out.println("TASK REMOVED");
-					break;
-
-					/** DISPLAY all tasks */
-				case "DISPLAY":
-					TaskList<? extends ListItem> all = manager.getAllTasks();
-					if (all.size() == 0) System.out.println("NOT FOUND");
-					else for (int i = 0; i < all.size(); i++) System.out.println(all.get(i).toString());
-					break;
-
-					/** SEARCH for a task by ID */
-				case "SEARCH_ID":
-					ListItem found = manager.searchById(p[1]);
-					System.out.println(found == null ? "NOT FOUND" : found.toString());
-					break;
-
-					/** SEARCH for tasks by description */
-				case "SEARCH_DESC":
-					TaskList<? extends ListItem> res = manager.searchByDescription(p[1]);
-					if (res.size() == 0) System.out.println("NOT FOUND");
-					else for (int i = 0; i < res.size(); i++) System.out.println(res.get(i).toString());
-					break;
-
-					/** SORT tasks by description */
-				case "SORT_DESC":
-					manager.sortByDescription();
-					System.out.println("SORTED");
-					break;
-
-					/** SORT tasks by due date */
-				case "SORT_DUE":
-					manager.sortByDueDate();
-					System.out.println("SORTED");
-					break;
-
-					/** SORT tasks by priority */
-				case "SORT_PRIO":
-					manager.sortByPriority();
-					System.out.println("SORTED");
-					break;
-
-					/** UNDO the last action */
-				case "UNDO":
-					manager.undo();
-					System.out.println("UNDO");
-					break;
-
-					/** REDO the undone action */
-				case "REDO":
-					manager.redo();
-					System.out.println("REDO");
-					break;
-
-					/** Mark a task as COMPLETE */
-				case "COMPLETE":
-					boolean done = manager.completeTask(p[1]);
-					System.out.println(done ? "TASK COMPLETED" : "NOT FOUND");
-					break;
-
-					/** Remove all completed tasks */
-				case "REMOVE_COMPLETED":
-					manager.removeCompletedTasks();
-					System.out.println("COMPLETED REMOVED");
-					break;
-
-					/** Get tasks by status and sort by priority */
-				case "GET_STATUS":
-					TaskList<TaskItem> filtered = manager.getTasksByStatusSortedByPriority(p[1]);
-					if (filtered.size() == 0) System.out.println("NOT FOUND");
-					else for (int i = 0; i < filtered.size(); i++) System.out.println(filtered.get(i).toString());
-					break;
-
-					/** Traverse the BST with DFS (in-order) */
-				case "BST_DFS":
-					manager.traverseBSTDFS();
-					break;
-
-					/** Traverse the BST with BFS */
-				case "BST_BFS":
-					manager.traverseBSTBFS();
-					break;
-
-					/** Schedule an existing task by ID */
-				case "SCHEDULE_ID":
-					System.out.println(manager.scheduleTask(p[1]) ? "TASK SCHEDULED" : "NOT FOUND");
-					break;
-
-					/** Schedule a new task */
-				case "SCHEDULE":
-					manager.scheduleTask(new TaskItem(p[1], p[2], p[3], Integer.parseInt(p[4])));
-					System.out.println("NEW TASK SCHEDULED");
-					break;
-
-
-					/** Process the next SCHEDULED task in the scheduling queue: removes it from the queue, marks it as DONE **/
-				case "PROCESS_NEXT":
-					TaskItem next = manager.processNextScheduledTask();
-					System.out.println(next == null ? "NOT FOUND" : next.toString());
-					break;
-
-					/** Get next high priority task with TODO status*/
-				case "GET_NEXT_PRIORITY":
-					TaskItem top = manager.getNextHighPriorityTask();
-					System.out.println(top == null ? "NOT FOUND" : top.toString());
-					break;
-
-					/** DISPLAY the heap (only TODO tasks) */
-				case "DISPLAY_HEAP":
-					manager.displayHeap();
-					break;
-
-					/** EXIT the program */
-				case "EXIT":
-					System.out.println("GOODBYE");
-					sc.close();
-					return;
+	/**
+	 * Runs one parsed command line against the manager and prints its result.
+	 *
+	 * @param manager the manager to run the command on
+	 * @param p the parsed command line
+	 * @return false if the command was EXIT, true otherwise
+	 */
+	static boolean execute(ToDoListManager<TaskItem> manager, Icommand p) {
+		return execute(manager, p, transaction);
+	}
+
+	/**
+	 * Runs one parsed command line for a client with its own transaction.
+	 * Between BEGIN and COMMIT, commands that change the tasks are queued in
+	 * the transaction instead of running.
+	 *
+	 * @param manager the manager to run the command on
+	 * @param p the parsed command line
+	 * @param transaction the client's transaction
+	 * @return false if the command was EXIT, true otherwise
+	 */
+	static boolean execute(ToDoListManager<TaskItem> manager, Icommand p, Transaction transaction) {
+		try {
+			if (transaction.isOpen() && WriteAheadLog.isMutation(p.command())) {
+				transaction.add(p);
+				System.out.println("QUEUED");
+				return true;
+			}
+			if (log != null && WriteAheadLog.isMutation(p.command())) log.append(p);
+			boolean more = run(manager, p, transaction);
+			if (WriteAheadLog.isMutation(p.command())) changesMade(manager, 1);
+			return more;
+		} catch (Exception ex) {
+			System.out.println("ERROR: " + ex.getMessage());
+		}
+		return true;
+	}
+
+	// Helper: the command switch; failures are thrown to the caller
+	private static boolean run(ToDoListManager<TaskItem> manager, Icommand p, Transaction transaction)
+			throws Exception {
+		switch (p.command()) {
+
+		/** ADD a new task */
+		case CommandParser.ADD:
+			manager.addItem(new TaskItem(p.field(1), p.field(2), p.field(3), p.intField(4)));
+			System.out.println("TASK ADDED");
+			break;
+
+			/** UPDATE an existing task */
+		case CommandParser.UPDATE:
+			manager.updateItem(p.field(1), new TaskItem(p.field(1), p.field(2), p.field(3), p.intField(4)));
+			System.out.println("TASK UPDATED");
+			break;
+
+			/** REMOVE a task */
+		case CommandParser.REMOVE:
+			manager.removeItem(p.field(1));
+			System.out.println("TASK REMOVED");
+			break;
+
+			/** DISPLAY all tasks */
+		case CommandParser.DISPLAY:
+			TaskList<? extends ListItem> all = manager.getAllTasks();
+			if (all.size() == 0) System.out.println("NOT FOUND");
+			else for (int i = 0; i < all.size(); i++) System.out.println(all.get(i).toString());
+			break;
+
+			/** SEARCH for a task by ID */
+		case CommandParser.SEARCH_ID:
+			ListItem found = manager.searchById(p.field(1));
+			System.out.println(found == null ? "NOT FOUND" : found.toString());
+			break;
+
+			/** SEARCH for tasks by description */
+		case CommandParser.SEARCH_DESC:
+			TaskList<? extends ListItem> res = manager.searchByDescription(p.field(1));
+			if (res.size() == 0) System.out.println("NOT FOUND");
+			else for (int i = 0; i < res.size(); i++) System.out.println(res.get(i).toString());
+			break;
+
+			/** SORT tasks by description */
+		case CommandParser.SORT_DESC:
+			manager.sortByDescription();
+			System.out.println("SORTED");
+			break;
+
+			/** SORT tasks by due date */
+		case CommandParser.SORT_DUE:
+			manager.sortByDueDate();
+			System.out.println("SORTED");
+			break;
+
+			/** SORT tasks by priority */
+		case CommandParser.SORT_PRIO:
+			manager.sortByPriority();
+			System.out.println("SORTED");
+			break;
+
+			/** UNDO the last action */
+		case CommandParser.UNDO:
+			manager.undo();
+			System.out.println("UNDO");
+			break;
+
+			/** REDO the undone action */
+		case CommandParser.REDO:
+			manager.redo();
+			System.out.println("REDO");
+			break;
+
+			/** Mark a task as COMPLETE */
+		case CommandParser.COMPLETE:
+			boolean done = manager.completeTask(p.field(1));
+			System.out.println(done ? "TASK COMPLETED" : "NOT FOUND");
+			break;
+
+			/** Remove all completed tasks */
+		case CommandParser.REMOVE_COMPLETED:
+			manager.removeCompletedTasks();
+			System.out.println("COMPLETED REMOVED");
+			break;
+
+			/** Get tasks by status and sort by priority */
+		case CommandParser.GET_STATUS:
+			TaskList<TaskItem> filtered = manager.getTasksByStatusSortedByPriority(p.field(1));
+			if (filtered.size() == 0) System.out.println("NOT FOUND");
+			else for (int i = 0; i < filtered.size(); i++) System.out.println(filtered.get(i).toString());
+			break;
+
+			/** Traverse the BST with DFS (in-order) */
+		case CommandParser.BST_DFS:
+			manager.traverseBSTDFS();
+			break;
+
+			/** Traverse the BST with BFS */
+		case CommandParser.BST_BFS:
+			manager.traverseBSTBFS();
+			break;
+
+			/** Schedule an existing task by ID */
+		case CommandParser.SCHEDULE_ID:
+			System.out.println(manager.scheduleTask(p.field(1)) ? "TASK SCHEDULED" : "NOT FOUND");
+			break;
+
+			/** Schedule a new task */
+		case CommandParser.SCHEDULE:
+			manager.scheduleTask(new TaskItem(p.field(1), p.field(2), p.field(3), p.intField(4)));
+			System.out.println("NEW TASK SCHEDULED");
+			break;
+
+
+			/** Process the next SCHEDULED task in the scheduling queue: removes it from the queue, marks it as DONE **/
+		case CommandParser.PROCESS_NEXT:
+			TaskItem next = manager.processNextScheduledTask();
+			System.out.println(next == null ? "NOT FOUND" : next.toString());
+			break;
+
+			/** Add a dependency: the first task waits for the second one */
+		case CommandParser.DEPEND:
+			if (manager.searchById(p.field(1)) == null || manager.searchById(p.field(2)) == null) System.out.println("NOT FOUND");
+			else {
+				// a cycle throws; false means the edge was already there
+				System.out.println(manager.addDependency(p.field(1), p.field(2)) ? "DEPENDENCY ADDED" : "DEPENDENCY EXISTS");
+			}
+			break;
+
+			/** Schedule a task as soon as all of its prerequisites are DONE */
+		case CommandParser.SCHEDULE_READY:
+			if (!manager.isActive(p.field(1))) System.out.println("NOT FOUND");
+			else System.out.println(manager.scheduleWhenReady(p.field(1)) ? "TASK SCHEDULED" : "TASK WAITING");
+			break;
+
+			/** Process every SCHEDULED task whose due date has been reached */
+		case CommandParser.PROCESS_DUE:
+			TaskList<TaskItem> dueTasks = manager.processDueTasks(p.field(1));
+			if (dueTasks.size() == 0) System.out.println("NOT FOUND");
+			else for (int i = 0; i < dueTasks.size(); i++) System.out.println(dueTasks.get(i).toString());
+			break;
+
+			/** Process up to n tasks from the scheduling queue at once */
+		case CommandParser.PROCESS_NEXT_BATCH:
+			TaskList<TaskItem> batch = manager.processNextScheduledTasks(p.intField(1));
+			if (batch.size() == 0) System.out.println("NOT FOUND");
+			else for (int i = 0; i < batch.size(); i++) System.out.println(batch.get(i).toString());
+			break;
+
+			/** Get next high priority task with TODO status*/
+		case CommandParser.GET_NEXT_PRIORITY:
+			TaskItem top = manager.getNextHighPriorityTask();
+			System.out.println(top == null ? "NOT FOUND" : top.toString());
+			break;
+
+			/** DISPLAY the heap (only TODO tasks) */
+		case CommandParser.DISPLAY_HEAP:
+			manager.displayHeap();
+			break;
+
+			/** IMPORT tasks from a CSV (.csv) or JSON Lines file */
+		case CommandParser.IMPORT:
+			System.out.println(manager.importTasks(Path.of(p.field(1))) + " TASKS IMPORTED");
+			break;
+
+			/** EXPORT all tasks to a CSV (.csv) or JSON Lines file */
+		case CommandParser.EXPORT:
+			System.out.println(manager.exportTasks(Path.of(p.field(1))) + " TASKS EXPORTED");
+			break;
+
+			/** Move all DONE tasks to the on-disk archive */
+		case CommandParser.ARCHIVE:
+			System.out.println(manager.archiveCompletedTasks() + " TASKS ARCHIVED");
+			break;
+
+			/** BEGIN a transaction: queue changes until COMMIT */
+		case CommandParser.BEGIN:
+			transaction.begin();
+			System.out.println("TRANSACTION STARTED");
+			break;
+
+			/** COMMIT the queued changes as one undo step */
+		case CommandParser.COMMIT:
+			commit(manager, transaction);
+			break;
+
+			/** ROLLBACK: drop the queued changes */
+		case CommandParser.ROLLBACK:
+			transaction.end();
+			System.out.println("ROLLED BACK");
+			break;
+
+			/** EXIT the program */
+		case CommandParser.EXIT:
+			if (transaction.isOpen()) transaction.end(); // queued changes are dropped
+			checkpoint(manager);
+			System.out.println("GOODBYE");
+			return false;
+
+			/** Unknown command */
+		default:
+			System.out.println("UNKNOWN COMMAND");
+		}
+		return true;
+	}
+
+	// Runs the commands queued since BEGIN inside one ToDoListManager
+	// transaction, logged between BEGIN and COMMIT records. If one of them
+	// fails, the ones before it are rolled back and the rest are not run.
+	private static void commit(ToDoListManager<TaskItem> manager, Transaction transaction) throws Exception {
+		TaskList<ParsedCommand> queued = transaction.end();
+		long records = log == null ? 0 : log.records();
+		if (log != null) log.append(CommandParser.BEGIN);
+		manager.beginTransaction();
+		try {
+			for (int i = 0; i < queued.size(); i++) {
+				if (log != null) log.append(queued.get(i));
+				run(manager, queued.get(i), transaction);
+			}
+		} catch (Exception ex) {
+			manager.rollbackTransaction();
+			if (log != null) log.append(CommandParser.ROLLBACK);
+			System.out.println("ERROR: " + ex.getMessage());
+			System.out.println("ROLLED BACK");
+			return;
+		}
+		manager.commitTransaction();
+		if (log != null) log.append(CommandParser.COMMIT);
+		System.out.println("COMMITTED");
+		changesMade(manager, log != null ? (int) (log.records() - records) : queued.size());
+	}
+
+	// Writes a checkpoint every snapshotEvery changes; count is how many
+	// commands (log records, with a log) the last command line added
+	private static void changesMade(ToDoListManager<TaskItem> manager, int count) {
+		if (snapshotEvery <= 0) return;
+		// with a log, checkpoints fall on the same records however often the program restarts
+		if (log != null ? log.records() % snapshotEvery < count : (sinceSnapshot += count) >= snapshotEvery) {
+			checkpoint(manager);
+		}
+	}
+
+	/**
+	 * Accepts binary-protocol clients on a localhost port, one at a time,
+	 * until a client sends EXIT.
+	 *
+	 * @param manager the manager shared by all clients
+	 * @param port the TCP port to listen on
+	 * @throws IOException if the port cannot be opened
+	 */
+	static void serveBinary(ToDoListManager<TaskItem> manager, int port) throws IOException {
+		try (ServerSocket server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress())) {
+			while (true) {
+				try (Socket client = server.accept()) {
+					if (BinaryProtocol.serve(manager, client.getInputStream(), client.getOutputStream())) return;
+				} catch (IOException ex) {
+					System.err.println("ERROR: " + ex.getMessage());
+				}
+			}
+		}
+	}
 
-					/** Unknown command */
-				default:
-					System.out.println("UNKNOWN COMMAND");
+	/**
+	 * The --fast command loop: a FastLineReader for input, a CommandParser that
+	 * splits each line in place, and one buffered, non-auto-flushing System.out
+	 * for output. Produces exactly the same output as the Scanner loop.
+	 *
+	 * @param manager the manager to run the commands on
+	 * @param in the command input
+	 * @param interactive true to flush after every command
+	 */
+	static void runBuffered(ToDoListManager<TaskItem> manager, InputStream in, boolean interactive) {
+		PrintStream console = System.out;
+		PrintStream out = new PrintStream(
+				new BufferedOutputStream(durableOutput(new FileOutputStream(FileDescriptor.out)), OUTPUT_BUFFER), false);
+		System.setOut(out);
+		try {
+			FastLineReader reader = new FastLineReader(in, INPUT_BUFFER);
+			CommandParser parser = new CommandParser();
+			while (reader.next()) {
+				if (!parser.parse(reader.lineBuffer(), reader.lineStart(), reader.lineEnd())) continue;
+				boolean more = execute(manager, parser);
+				if (interactive) {
+					commitLog();
+					out.flush();
 				}
+				if (!more) break;
+			}
+		} catch (IOException ex) {
+			out.println("ERROR: " + ex.getMessage());
+		} finally {
+			commitLog();
+			out.flush();
+			System.setOut(console);
+		}
+	}
 
-			} catch (Exception ex) {
-				System.out.println("ERROR: " + ex.getMessage());
+	/**
+	 * Wraps the stream that responses are written to so that the log is
+	 * committed before any bytes reach it: a response then never leaves the
+	 * process before the commands it answers are durable. Without --wal the
+	 * stream is returned as it is.
+	 *
+	 * @param sink the stream the responses go to
+	 * @return the stream to write the responses to
+	 */
+	static OutputStream durableOutput(OutputStream sink) {
+		if (log == null) return sink;
+		return new FilterOutputStream(sink) {
+			@Override
+			public void write(int b) throws IOException {
+				commitLog();
+				out.write(b);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				commitLog();
+				out.write(b, off, len);
 			}
+		};
+	}
+
+	/**
+	 * Makes the logged commands durable (under the log's sync policy) before
+	 * their responses are sent. Does nothing without --wal.
+	 */
+	static void commitLog() {
+		if (log == null) return;
+		try {
+			log.commit();
+		} catch (IOException ex) {
+			System.err.println("ERROR: " + ex.getMessage());
 		}
+	}
 
-		sc.close();
+	/**
+	 * Writes the manager to the snapshot file, recording how much of the log
+	 * it covers. Does nothing without --snapshot.
+	 *
+	 * @param manager the manager to save
+	 */
+	static void checkpoint(ToDoListManager<TaskItem> manager) {
+		if (snapshotPath == null) return;
+		sinceSnapshot = 0;
+		try {
+			long offset = log == null ? 0 : log.durableLength();
+			manager.writeSnapshot(snapshotPath, offset, log == null ? 0 : log.records());
+		} catch (IOException ex) {
+			System.err.println("ERROR: " + ex.getMessage());
+		}
+	}
+
+	// Commits and closes the log at exit
+	private static void closeLog() {
+		try {
+			log.close();
+		} catch (IOException ex) {
+			System.err.println("ERROR: " + ex.getMessage());
+		}
 	}
 }
 
@@ -520,721 +1009,6875 @@ public class Solution {
 
 
 //------------------------------
-//TaskItem
+//FastLineReader
 //------------------------------
 
 /**
- * TaskItem represents one task in the to-do list.
- *
- * <p>Students: complete and update this class if needed.</p>
- * <ul>
- *   <li>Each task has an id, description, due date, priority, and status.</li>
- *   <li>Status can be "TODO", "SCHEDULED", or "DONE".</li>
- *   <li>You may add extra helper methods if your design needs them.</li>
- *   <li>This class also implements Comparable — think about how tasks should be compared.</li>
- * </ul>
+ * FastLineReader reads lines from a byte stream through one large buffer.
+ * <p>
+ * It is used by the --fast command loop in place of Scanner, which does
+ * regex matching and per-character decoding on every call. Lines end where
+ * Scanner.nextLine() ends them: at "\n", "\r\n", "\r", U+0085, U+2028 or
+ * U+2029 (the last three are matched as UTF-8 bytes, or U+0085 as one
+ * ISO-8859-1 byte, depending on the platform charset). The separators are
+ * not returned. next() exposes
+ * the current line as a byte range without creating a String; readLine()
+ * decodes it with the platform charset like Scanner does. A line longer than
+ * the buffer is collected in a growing spill array.
+ * </p>
  */
-class TaskItem implements ListItem, Comparable<TaskItem> {
-	private String id;
-	private String description;
-	private String dueDate;
-	private int priority;
-	private String status; // "TODO", "SCHEDULED" and "DONE"
-
-  // Constructor used by Solution
-	public TaskItem(String id, String description, String dueDate, int priority) {
-		this.id = id;
-		this.description = description;
-		this.dueDate = dueDate;
-		this.priority = priority;
-		this.status = "TODO";
-	}
-
-	// copy constructor
-	public TaskItem(TaskItem other) {
-		this.id = other.id;
-		this.description = other.description;
-		this.dueDate = other.dueDate;
-		this.priority = other.priority;
-		this.status = other.status;
-	}
-
-	//Getters
-  @Override
-	public String getId() { 
-    return id; 
+class FastLineReader {
+  private final InputStream in;
+  private final byte[] buf;
+  private final Charset charset;
+  private final boolean utf8, latin1;
+  private int pos, limit;
+  private byte[] spill = new byte[256];
+  private boolean skipLF, eof;
+  private byte[] line;
+  private int lineStart, lineEnd;
+
+  public FastLineReader(InputStream in, int bufferSize) {
+    this.in = in;
+    this.buf = new byte[Math.max(bufferSize, 4)]; // room for a cut-off separator
+    this.charset = Charset.defaultCharset();
+    this.utf8 = charset.equals(StandardCharsets.UTF_8);
+    this.latin1 = charset.equals(StandardCharsets.ISO_8859_1);
   }
 
-	@Override
-	public String getDescription() { 
-    return description; 
+  /**
+   * Moves to the next line. The line's bytes are lineBuffer() from
+   * lineStart() to lineEnd(), and stay valid until the next call.
+   * @return false at the end of input
+   * @throws IOException if reading fails
+   */
+  public boolean next() throws IOException {
+    int spilled = 0;
+    boolean any = false;
+    while (true) {
+      if (pos >= limit && (eof || !fill(0))) {
+        if (!any) return false;
+        setLine(spill, 0, spilled);
+        return true;
+      }
+      if (skipLF) {
+        skipLF = false;
+        if (buf[pos] == '\n') {
+          pos++;
+          continue;
+        }
+      }
+      any = true;
+      int start = pos;
+      int sep = 0;
+      while (pos < limit) {
+        if (buf[pos] > '\r') {
+          pos++;
+        } else if ((sep = separator(pos)) == 0) {
+          pos++;
+        } else {
+          break;
+        }
+      }
+      if (sep > 0) {
+        skipLF = buf[pos] == '\r';
+        if (spilled == 0) {
+          setLine(buf, start, pos);
+        } else {
+          spilled = append(spilled, start, pos - start);
+          setLine(spill, 0, spilled);
+        }
+        pos += sep;
+        return true;
+      }
+      // the line continues past the end of the buffer
+      spilled = append(spilled, start, pos - start);
+      if (sep < 0) fill(limit - pos); // keep the cut-off separator candidate
+    }
   }
 
-	@Override
-	public String getDueDate() { 
-    return dueDate; 
+  // Length of the line separator at buf[i]; 0 if there is none, -1 if the
+  // buffer ends inside bytes that may still turn out to be one
+  private int separator(int i) {
+    byte b = buf[i];
+    if (b == '\n' || b == '\r') return 1;
+    if (!utf8) return latin1 && b == (byte) 0x85 ? 1 : 0;
+    int n = b == (byte) 0xC2 ? 2 : b == (byte) 0xE2 ? 3 : 0;
+    if (n == 0) return 0;
+    if (i + n > limit) return eof ? 0 : -1;
+    if (n == 2) return buf[i + 1] == (byte) 0x85 ? 2 : 0; // U+0085
+    return buf[i + 1] == (byte) 0x80 && (buf[i + 2] == (byte) 0xA8 || buf[i + 2] == (byte) 0xA9) ? 3 : 0;
   }
 
-	@Override
-	public int getPriority() { 
-    return priority; 
+  // Refills the buffer after moving its last keep bytes to the front
+  private boolean fill(int keep) throws IOException {
+    System.arraycopy(buf, limit - keep, buf, 0, keep);
+    pos = 0;
+    limit = keep;
+    int n = in.read(buf, keep, buf.length - keep);
+    if (n <= 0) {
+      eof = true;
+      return false;
+    }
+    limit += n;
+    return true;
   }
 
-	public String getStatus() { 
-    return status; 
+  /**
+   * Reads the next line as a String.
+   * @return the line without its separator, or null at the end of input
+   * @throws IOException if reading fails
+   */
+  public String readLine() throws IOException {
+    if (!next()) return null;
+    return new String(line, lineStart, lineEnd - lineStart, charset);
   }
 
-	// setters
-	public void setDescription(String description) { 
-    this.description = description; 
+  public byte[] lineBuffer() {
+    return line;
   }
 
-	public void setDueDate(String dueDate) { 
-    this.dueDate = dueDate; 
+  public int lineStart() {
+    return lineStart;
   }
 
-	public void setPriority(int priority) { 
-    this.priority = priority; 
+  public int lineEnd() {
+    return lineEnd;
   }
 
-	public void setStatus(String status) { 
-    if (status == null) 
-      return;
-    this.status = status; 
+  private void setLine(byte[] b, int start, int end) {
+    line = b;
+    lineStart = start;
+    lineEnd = end;
   }
 
-	//toString for output
-  // Format: id;description;dueDate;priority;status
-  @Override
-  public String toString() {
-    return "ID: "+ id +", Desc: " +description+", Due: " + dueDate+", Priority: " +priority+", Status: "+status;
+  private int append(int spilled, int start, int len) {
+    if (spilled + len > spill.length) {
+      spill = Arrays.copyOf(spill, Math.max(spill.length * 2, spilled + len));
+    }
+    System.arraycopy(buf, start, spill, spilled, len);
+    return spilled + len;
   }
-
-	//Tasks are compared by description (case-insensitive), then by due date, then by priority, then by ID
-  @Override
-public int compareTo(TaskItem other) {
-    return Integer.compare(this.priority, other.priority);
 }
 
-	@Override
-	public boolean equals(Object o) {
-		if (this == o) return true;
-		if (!(o instanceof TaskItem)) return false;
-		TaskItem t = (TaskItem) o;
-		return this.id.equals(t.id);
-	}
+//------------------------------
+//Icommand
+//------------------------------
+
+/**
+ * The Icommand interface is one command line split into fields, as read by
+ * Solution.execute(). Field 0 is the command name.
+ */
+interface Icommand {
+
+	/**
+	 * Returns the command code (one of the CommandParser constants).
+	 * @return the command code, or CommandParser.UNKNOWN
+	 */
+	int command();
+
+	/**
+	 * Returns field i as text.
+	 * @param i the field index
+	 * @return the field
+	 * @throws ArrayIndexOutOfBoundsException if the line has no field i
+	 */
+	String field(int i);
+
+	/**
+	 * Returns field i as a decimal int.
+	 * @param i the field index
+	 * @return the parsed value
+	 * @throws ArrayIndexOutOfBoundsException if the line has no field i
+	 * @throws NumberFormatException if the field is not a valid int
+	 */
+	int intField(int i);
+
+	/**
+	 * Returns the number of fields, including the command name.
+	 * @return the field count
+	 */
+	int fieldCount();
 }
 
 //------------------------------
-//TaskList
+//CommandParser
 //------------------------------
 
 /**
- * TaskList is a simple dynamic array (like a small ArrayList).
+ * CommandParser splits one ";"-delimited command line in place, without
+ * allocating per line.
  * <p>
- * Students: You must complete this class as needed for the project.
- * It stores items and grows when more space is needed.
+ * parse() trims the line and records where each field starts and ends in
+ * reusable arrays, then finds the command code by comparing bytes against
+ * the known command names. intField() parses a number straight from the
+ * bytes. field() still has to return a String, but ASCII fields are looked up
+ * in a small cache of recently seen values first, so repeated IDs and
+ * keywords do not create new Strings.
  * </p>
  *
- * <p>Hints:</p>
- * <ul>
- *   <li>Use an internal array to store items.</li>
- *   <li>Double the array size when it becomes full.</li>
- *   <li>Follow the IarrayList interface rules carefully.</li>
- *   <li>Make sure removeAt() shifts items correctly.</li>
- *   <li>Make sure to use generics safely when returning T.</li>
- * </ul>
- *
- * @param <T> The type of item stored inside this list.
+ * <p>Errors match the String-based parsing it replaces: a missing field
+ * throws ArrayIndexOutOfBoundsException and a bad number throws
+ * NumberFormatException, with the same messages as split() and
+ * Integer.parseInt().</p>
  */
-class TaskList<T> implements IarrayList<T>{
-  private T[] data;
-  private int size;
-  private static final int INITIAL_CAP = 8;
-  
-  @SuppressWarnings("unchecked")
-  public TaskList() {
-    data = (T[]) new Object[INITIAL_CAP];  
-    size = 0;
+class CommandParser implements Icommand {
+  public static final int UNKNOWN = -1;
+  public static final int ADD = 0, UPDATE = 1, REMOVE = 2, DISPLAY = 3, SEARCH_ID = 4,
+      SEARCH_DESC = 5, SORT_DESC = 6, SORT_DUE = 7, SORT_PRIO = 8, UNDO = 9, REDO = 10,
+      COMPLETE = 11, REMOVE_COMPLETED = 12, GET_STATUS = 13, BST_DFS = 14, BST_BFS = 15,
+      SCHEDULE_ID = 16, SCHEDULE = 17, PROCESS_NEXT = 18, PROCESS_NEXT_BATCH = 19,
+      PROCESS_DUE = 20, DEPEND = 21, SCHEDULE_READY = 22, GET_NEXT_PRIORITY = 23,
+      DISPLAY_HEAP = 24, EXIT = 25, IMPORT = 26, EXPORT = 27, ARCHIVE = 28, BEGIN = 29,
+      COMMIT = 30, ROLLBACK = 31;
+
+  /** Command names, indexed by command code */
+  private static final String[] NAMES = {
+    "ADD", "UPDATE", "REMOVE", "DISPLAY", "SEARCH_ID", "SEARCH_DESC", "SORT_DESC",
+    "SORT_DUE", "SORT_PRIO", "UNDO", "REDO", "COMPLETE", "REMOVE_COMPLETED", "GET_STATUS",
+    "BST_DFS", "BST_BFS", "SCHEDULE_ID", "SCHEDULE", "PROCESS_NEXT", "PROCESS_NEXT_BATCH",
+    "PROCESS_DUE", "DEPEND", "SCHEDULE_READY", "GET_NEXT_PRIORITY", "DISPLAY_HEAP", "EXIT",
+    "IMPORT", "EXPORT", "ARCHIVE", "BEGIN", "COMMIT", "ROLLBACK"
+  };
+  private static final byte[][] NAME_BYTES = new byte[NAMES.length][];
+  static {
+    for (int i = 0; i < NAMES.length; i++) {
+      NAME_BYTES[i] = NAMES[i].getBytes(StandardCharsets.US_ASCII);
+    }
   }
-  
-  @Override
-  public void add(T item) {
-    if (size >= data.length) {
-      resize();
+
+  private static final int CACHE_SIZE = 4096;
+
+  private final Charset charset = Charset.defaultCharset();
+  private final String[] cache = new String[CACHE_SIZE];
+  private byte[] line;
+  private int[] starts = new int[8];
+  private int[] ends = new int[8];
+  private int count;
+  private int command;
+
+  /**
+   * Parses the line held in buf between from and to.
+   * @return false if the line is blank after trimming
+   */
+  public boolean parse(byte[] buf, int from, int to) {
+    // same rule as String.trim(): drop bytes <= ' ' at both ends
+    while (from < to && (buf[from] & 0xff) <= ' ') from++;
+    while (to > from && (buf[to - 1] & 0xff) <= ' ') to--;
+    if (from == to) return false;
+
+    line = buf;
+    count = 0;
+    int start = from;
+    for (int i = from; i < to; i++) {
+      if (buf[i] == ';') {
+        addField(start, i);
+        start = i + 1;
+      }
     }
-    data[size++] = item;
+    addField(start, to);
+    command = lookup();
+    return true;
   }
-  
+
+  /**
+   * Parses a line that is already a String (used by the Scanner loop).
+   * @return false if the line is blank after trimming
+   */
+  public boolean parse(String text) {
+    byte[] bytes = text.getBytes(charset);
+    return parse(bytes, 0, bytes.length);
+  }
+
+  /**
+   * Returns the command name for a command code.
+   * @return the name, or null if the code is not a known command
+   */
+  public static String name(int code) {
+    return code >= 0 && code < NAMES.length ? NAMES[code] : null;
+  }
+
+  /** The command code of the parsed line, or UNKNOWN. */
   @Override
-  public T get(int index) {
-    if (index < 0 || index >= size) 
-      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size);
-    return data[index];  // data is T[] so no cast needed
+  public int command() {
+    return command;
   }
-  
+
+  /** The number of fields, including the command itself. */
   @Override
-  public void set(int index, T item) {
-    if (index < 0 || index >= size) 
-      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size);
-    data[index] = item;
+  public int fieldCount() {
+    return count;
   }
-  
+
+  /**
+   * Returns field i as a String.
+   * @throws ArrayIndexOutOfBoundsException if the line has no field i
+   */
   @Override
-  public T removeAt(int index) {
-    if (index < 0 || index >= size) 
-      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size);
-    T removed = data[index];  // No cast needed
-    
-    // shift elements left to fill the gaps
-    for (int i = index; i < size - 1; i++){ 
-      data[i] = data[i + 1];
+  public String field(int i) {
+    check(i);
+    int from = starts[i], to = ends[i];
+    int hash = 0;
+    boolean ascii = true;
+    for (int k = from; k < to; k++) {
+      byte b = line[k];
+      if (b < 0) ascii = false;
+      hash = 31 * hash + b;
     }
-    data[size - 1] = null; // prevent memory leak
-    size--;
-    return removed;
+    if (!ascii) return new String(line, from, to - from, charset);
+    int slot = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+    String cached = cache[slot];
+    if (cached != null && sameAscii(cached, from, to)) return cached;
+    String value = new String(line, from, to - from, StandardCharsets.US_ASCII);
+    cache[slot] = value;
+    return value;
   }
-  
+
+  /**
+   * Parses field i as a decimal int, like Integer.parseInt(field(i)).
+   * @throws ArrayIndexOutOfBoundsException if the line has no field i
+   * @throws NumberFormatException if the field is not a valid int
+   */
   @Override
-  public int size() { 
-    return size; 
+  public int intField(int i) {
+    check(i);
+    int from = starts[i], to = ends[i];
+    if (from == to) throw badNumber(i);
+    boolean negative = false;
+    int k = from;
+    byte first = line[k];
+    if (first == '-' || first == '+') {
+      negative = first == '-';
+      k++;
+      if (k == to) throw badNumber(i);
+    }
+    // accumulate negatively so Integer.MIN_VALUE fits
+    int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+    int result = 0;
+    for (; k < to; k++) {
+      byte b = line[k];
+      if (b < 0) return Integer.parseInt(field(i)); // non-ASCII digits
+      int digit = b - '0';
+      if (digit < 0 || digit > 9) throw badNumber(i);
+      if (result < (limit / 10)) throw badNumber(i);
+      result *= 10;
+      if (result < limit + digit) throw badNumber(i);
+      result -= digit;
+    }
+    return negative ? result : -result;
   }
-  
-  @Override
-  public boolean isEmpty() { 
-    return size == 0; 
+
+  private void addField(int start, int end) {
+    if (count == starts.length) {
+      starts = Arrays.copyOf(starts, count * 2);
+      ends = Arrays.copyOf(ends, count * 2);
+    }
+    starts[count] = start;
+    ends[count] = end;
+    count++;
   }
-  
-  @SuppressWarnings("unchecked")
-  private void resize() {
-    T[] newData = (T[]) new Object[data.length * 2]; 
-    System.arraycopy(data, 0, newData, 0, size);
-    data = newData;
+
+  private int lookup() {
+    int from = starts[0], len = ends[0] - from;
+    for (int c = 0; c < NAME_BYTES.length; c++) {
+      byte[] name = NAME_BYTES[c];
+      if (name.length != len) continue;
+      int k = 0;
+      while (k < len && name[k] == line[from + k]) k++;
+      if (k == len) return c;
+    }
+    return UNKNOWN;
+  }
+
+  private boolean sameAscii(String s, int from, int to) {
+    if (s.length() != to - from) return false;
+    for (int k = from; k < to; k++) {
+      if (s.charAt(k - from) != line[k]) return false;
+    }
+    return true;
+  }
+
+  private void check(int i) {
+    if (i < 0 || i >= count)
+      throw new ArrayIndexOutOfBoundsException("Index " + i + " out of bounds for length " + count);
+  }
+
+  private NumberFormatException badNumber(int i) {
+    return new NumberFormatException("For input string: \"" + field(i) + "\"");
   }
 }
 
 //------------------------------
-//TaskLinkedList
+//ParsedCommand
 //------------------------------
 
 /**
- * TaskLinkedList is a simple singly linked list implementation.
+ * ParsedCommand is a command line that has been split into its fields and
+ * can be handed to another thread, unlike CommandParser which reuses its
+ * buffers for every line.
  * <p>
- * Students: You must complete this class as needed. 
- * It implements IlinkedList interface, which provides basic operations
- * like adding/removing elements at the start or end, and checking size.
+ * Field access throws the same exceptions with the same messages as
+ * CommandParser, so Solution.execute() prints identical errors for both.
  * </p>
- *
- * <p>Hints:</p>
- * <ul>
- *   <li>Use an internal Node class with a data field and a next reference.</li>
- *   <li>Keep track of head and tail references for efficiency.</li>
- *   <li>Keep a size counter to quickly return list size.</li>
- *   <li>addFirst() inserts at the head.</li>
- *   <li>addLast() inserts at the tail.</li>
- *   <li>removeFirst() removes the head node and returns its data.</li>
- *   <li>isEmpty() should return true if the head is null.</li>
- * </ul>
- *
- * @param <T> The type of item stored inside this linked list.
  */
-class TaskLinkedList<T> implements IlinkedList<T>{
-  private class Node {
-		T data;
-		Node next;
-		Node(T d) { 
-      this.data = d; this.next = null; 
+class ParsedCommand implements Icommand {
+  private final int command;
+  private final String[] fields;
+
+  /**
+   * Copies a command, e.g. the line currently held by a parser.
+   * @param source a parser that has just parsed a line, or any other command
+   */
+  public ParsedCommand(Icommand source) {
+    command = source.command();
+    fields = new String[source.fieldCount()];
+    for (int i = 0; i < fields.length; i++) {
+      fields[i] = source.field(i);
     }
-	}
+  }
 
-	private Node head;
-	private Node tail;
-	private int size;
+  @Override
+  public int command() {
+    return command;
+  }
 
-	public TaskLinkedList() { 
-    head = tail = null; 
-    size = 0; 
+  @Override
+  public String field(int i) {
+    if (i < 0 || i >= fields.length)
+      throw new ArrayIndexOutOfBoundsException("Index " + i + " out of bounds for length " + fields.length);
+    return fields[i];
   }
 
-	@Override
-	public void addFirst(T item) {
-		Node n = new Node(item);
-		if (isEmpty()) { 
-      head = tail = n; 
-    }
-		else { 
-      n.next = head; 
-      head = n; 
-    }
-		size++;
-	}
+  @Override
+  public int intField(int i) {
+    return Integer.parseInt(field(i));
+  }
 
-	@Override
-	public void addLast(T item) {
-		Node n = new Node(item);
-		if (isEmpty()) { 
-      head = tail = n; 
-    }
-		else { 
-      tail.next = n; 
-      tail = n; 
-    }
-		size++;
-	}
+  @Override
+  public int fieldCount() {
+    return fields.length;
+  }
+}
 
-	@Override
-	public T removeFirst() {
-		if (isEmpty()) 
-      return null;
-		T val = head.data;
-		head = head.next;
-		if (head == null){ 
-      tail = null;
-    }
-		size--;
-		return val;
-	}
+//------------------------------
+//Transaction
+//------------------------------
 
-	@Override
-	public int size() { 
-    return size; 
+/**
+ * Transaction holds the commands one client has sent between BEGIN and
+ * COMMIT or ROLLBACK. Solution.execute() queues every command that changes
+ * the tasks here instead of running it; COMMIT then runs them all inside one
+ * ToDoListManager transaction, which takes one undo snapshot instead of one
+ * per command.
+ * <p>
+ * Commands that only read run at once and do not see the queued changes.
+ * UNDO, REDO and ARCHIVE cannot be queued.
+ * </p>
+ */
+class Transaction {
+  private TaskList<ParsedCommand> queued;
+
+  /** Whether BEGIN has been seen without a COMMIT or ROLLBACK. */
+  public boolean isOpen() {
+    return queued != null;
   }
 
-	@Override
-	public boolean isEmpty() { 
-    return size == 0; 
+  /**
+   * Opens the transaction.
+   * @throws IllegalStateException if it is already open
+   */
+  public void begin() {
+    if (queued != null) throw new IllegalStateException("Transaction already open");
+    queued = new TaskList<>();
   }
- 
-	public void clear() {
-		head = tail = null;
-		size = 0;
-	}
 
-}
+  /**
+   * Queues a copy of a command.
+   * @param p a command that changes the tasks
+   * @throws IllegalStateException if the command cannot run inside a transaction
+   */
+  public void add(Icommand p) {
+    int command = p.command();
+    if (command == CommandParser.UNDO || command == CommandParser.REDO || command == CommandParser.ARCHIVE)
+      throw new IllegalStateException(CommandParser.name(command) + " is not allowed inside a transaction");
+    queued.add(new ParsedCommand(p));
+  }
+
+  /** Number of queued commands. */
+  public int size() {
+    return queued == null ? 0 : queued.size();
+  }
 
+  /**
+   * Closes the transaction.
+   * @return the queued commands, in the order they were sent
+   * @throws IllegalStateException if it is not open
+   */
+  public TaskList<ParsedCommand> end() {
+    if (queued == null) throw new IllegalStateException("No open transaction");
+    TaskList<ParsedCommand> commands = queued;
+    queued = null;
+    return commands;
+  }
+}
 
 //------------------------------
-//Scheduler
+//AsyncOutputStream
 //------------------------------
 
 /**
- * Scheduler implements a simple FIFO queue using TaskLinkedList.
+ * AsyncOutputStream collects output in fixed-size buffers and lets a
+ * background thread write the full buffers to the real stream, so the thread
+ * producing output never waits on the console or a pipe.
  * <p>
- * This class is used to manage scheduled tasks in the ToDoListManager.
- * Students: You should complete this class using the TaskLinkedList you implemented.
+ * flush() hands the current partial buffer to the writer without waiting.
+ * close() hands over the rest, waits until everything is written and flushes
+ * the target. An error in the writer thread is rethrown by the next call.
  * </p>
- *
- * <p>Hints:</p>
- * <ul>
- *   <li>Use a TaskLinkedList internally to store items in FIFO order.</li>
- *   <li>enqueue() adds an item to the end of the queue.</li>
- *   <li>dequeue() removes and returns the first item in the queue.</li>
- *   <li>isEmpty() returns true if the queue has no items.</li>
- * </ul>
- *
- * @param <T> The type of items stored in the queue.
  */
-class Scheduler<T>{
-	private TaskLinkedList<T> queue;
+class AsyncOutputStream extends OutputStream {
+  // One buffer on its way to the writer thread; len < 0 marks the end
+  private static final class Chunk {
+    final byte[] data;
+    final int len;
+    Chunk(byte[] data, int len) {
+      this.data = data;
+      this.len = len;
+    }
+  }
 
-  public Scheduler() {
-		queue = new TaskLinkedList<>();
-	}
+  private final OutputStream target;
+  private final ArrayBlockingQueue<Chunk> filled;
+  private final ArrayBlockingQueue<byte[]> free;
+  private final Thread writer;
+  private final int bufferSize;
+  private volatile IOException failure;
+  private byte[] buf;
+  private int count;
+  private boolean closed;
+
+  public AsyncOutputStream(OutputStream target, int bufferSize, int maxPending) {
+    this.target = target;
+    this.bufferSize = bufferSize;
+    this.filled = new ArrayBlockingQueue<>(maxPending + 1);
+    this.free = new ArrayBlockingQueue<>(maxPending + 1);
+    this.buf = new byte[bufferSize];
+    this.writer = new Thread(this::drain, "async-output");
+    writer.setDaemon(true);
+    writer.start();
+  }
 
-	// enqueue: add to tail
-	public void enqueue(T item) {
-		queue.addLast(item);
-	}
+  @Override
+  public void write(int b) throws IOException {
+    if (count == buf.length) handOff();
+    buf[count++] = (byte) b;
+  }
 
-	// dequeue: remove from head
-	public T dequeue() {
-		if (queue.isEmpty()) 
-      return null;
-		return queue.removeFirst();
-	}
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    while (len > 0) {
+      if (count == buf.length) handOff();
+      int n = Math.min(len, buf.length - count);
+      System.arraycopy(b, off, buf, count, n);
+      count += n;
+      off += n;
+      len -= n;
+    }
+  }
 
-	public boolean isEmpty() {
-		return queue.isEmpty();
-	}
+  @Override
+  public void flush() throws IOException {
+    if (count > 0) handOff();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+    flush();
+    put(new Chunk(null, -1));
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while closing output", e);
+    }
+    checkFailure();
+    target.flush();
+  }
+
+  private void handOff() throws IOException {
+    checkFailure();
+    put(new Chunk(buf, count));
+    byte[] next = free.poll();
+    buf = next != null ? next : new byte[bufferSize];
+    count = 0;
+  }
+
+  private void put(Chunk chunk) throws IOException {
+    try {
+      filled.put(chunk);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while writing output", e);
+    }
+  }
+
+  private void checkFailure() throws IOException {
+    if (failure != null) throw failure;
+  }
+
+  // Writer thread: write buffers in order and recycle them
+  private void drain() {
+    try {
+      while (true) {
+        Chunk chunk = filled.take();
+        if (chunk.len < 0) break;
+        if (failure == null) {
+          try {
+            target.write(chunk.data, 0, chunk.len);
+          } catch (IOException e) {
+            failure = e;
+          }
+        }
+        free.offer(chunk.data);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
 }
 
 //------------------------------
-//UndoRedoManager
+//CommandPipeline
 //------------------------------
 
 /**
- * UndoRedoManager implements a simple stack using TaskLinkedList.
+ * CommandPipeline replays a command stream with reading, parsing, applying
+ * and output writing on separate threads.
  * <p>
- * This class is used to manage undo and redo operations for task modifications
- * in the ToDoListManager. Each push stores a snapshot of a task list or state,
- * and pop restores the most recent state.
+ * A reader thread cuts the input into batches of raw lines. Each batch is put
+ * both on the parse queue and, in input order, on the apply queue. Parser
+ * threads turn batches into ParsedCommand arrays and complete the batch's
+ * future. The calling thread is the only apply thread: it takes batches from
+ * the apply queue in order, waits for each one to be parsed and runs the
+ * commands with Solution.execute(). Output goes through an AsyncOutputStream.
+ * Both queues are bounded, so a slow stage holds back the ones before it.
  * </p>
  *
- * <p>Hints for students:</p>
- * <ul>
- *   <li>Use TaskLinkedList internally to implement stack behavior (LIFO).</li>
- *   <li>push() adds a new element to the top of the stack.</li>
- *   <li>pop() removes and returns the top element of the stack.</li>
- *   <li>isEmpty() returns true if the stack has no elements.</li>
- * </ul>
- *
- * @param <T> The type of objects stored in the undo/redo stack.
+ * <p>Because commands are applied one by one in input order on one thread,
+ * the output is byte-identical to the sequential command loop.</p>
  */
-class UndoRedoManager<T>{
-	private TaskLinkedList<T> stack;
+class CommandPipeline {
+  private static final int BATCH_LINES = 1024;
+  private static final int MAX_BATCHES = 64;
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  // A block of raw lines from the reader, and the parsed commands once ready
+  private static final class Batch {
+    byte[] data = new byte[BUFFER_SIZE];
+    int[] starts = new int[BATCH_LINES];
+    int[] ends = new int[BATCH_LINES];
+    int lines;
+    int size;
+    boolean last;
+    IOException error;
+    final CompletableFuture<ParsedCommand[]> parsed = new CompletableFuture<>();
+
+    void add(byte[] buf, int from, int to) {
+      int len = to - from;
+      if (size + len > data.length) {
+        data = Arrays.copyOf(data, Math.max(data.length * 2, size + len));
+      }
+      System.arraycopy(buf, from, data, size, len);
+      starts[lines] = size;
+      ends[lines] = size + len;
+      size += len;
+      lines++;
+    }
 
-  public UndoRedoManager() {
-		stack = new TaskLinkedList<>();
-	}
+    boolean full() {
+      return lines == BATCH_LINES || size >= BUFFER_SIZE;
+    }
+  }
 
-	// push to top
-	public void push(T item) {
-		stack.addFirst(item);
-	}
+  private final ToDoListManager<TaskItem> manager;
+  private final int parsers;
+
+  /**
+   * @param manager the manager the commands are applied to
+   * @param parsers the number of parser threads
+   */
+  public CommandPipeline(ToDoListManager<TaskItem> manager, int parsers) {
+    if (parsers < 1)
+      throw new IllegalArgumentException("parsers must be at least 1");
+    this.manager = manager;
+    this.parsers = parsers;
+  }
 
-	// pop from top
-	public T pop() {
-		if (stack.isEmpty()) 
-      return null;
-		return stack.removeFirst();
-	}
+  /**
+   * Runs every command from in until EXIT or the end of input, writing the
+   * output to sink.
+   *
+   * @param in the command input
+   * @param sink where the output is written
+   * @throws IOException if writing the output fails
+   */
+  public void run(InputStream in, OutputStream sink) throws IOException {
+    ArrayBlockingQueue<Batch> toParse = new ArrayBlockingQueue<>(MAX_BATCHES);
+    ArrayBlockingQueue<Batch> toApply = new ArrayBlockingQueue<>(MAX_BATCHES);
+    Thread[] threads = new Thread[parsers + 1];
+    threads[0] = daemon("pipeline-reader", () -> read(in, toParse, toApply));
+    for (int i = 1; i <= parsers; i++) {
+      threads[i] = daemon("pipeline-parser-" + i, () -> parse(toParse));
+    }
 
-	public boolean isEmpty() {
-		return stack.isEmpty();
-	}
+    AsyncOutputStream async = new AsyncOutputStream(sink, BUFFER_SIZE, MAX_BATCHES);
+    PrintStream out = new PrintStream(async, false);
+    PrintStream console = System.out;
+    System.setOut(out);
+    try {
+      for (int i = 0; i < threads.length; i++) threads[i].start();
+      apply(toApply, out);
+    } finally {
+      out.flush();
+      System.setOut(console);
+      for (int i = 0; i < threads.length; i++) threads[i].interrupt();
+      async.close();
+    }
+  }
 
-	public void clear() {
-		stack.clear();
-	}
+  // Apply thread: run the batches strictly in input order
+  private void apply(ArrayBlockingQueue<Batch> toApply, PrintStream out) {
+    try {
+      while (true) {
+        Batch batch = toApply.take();
+        ParsedCommand[] commands = batch.parsed.get();
+        for (int i = 0; i < commands.length; i++) {
+          if (commands[i] != null && !Solution.execute(manager, commands[i])) return;
+        }
+        if (batch.error != null) {
+          out.println("ERROR: " + batch.error.getMessage());
+          return;
+        }
+        if (batch.last) return;
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (ExecutionException e) {
+      out.println("ERROR: " + e.getCause().getMessage());
+    }
+  }
+
+  // Reader thread: cut the input into batches of lines
+  private void read(InputStream in, ArrayBlockingQueue<Batch> toParse, ArrayBlockingQueue<Batch> toApply) {
+    FastLineReader reader = new FastLineReader(in, BUFFER_SIZE);
+    Batch batch = new Batch();
+    try {
+      try {
+        while (reader.next()) {
+          batch.add(reader.lineBuffer(), reader.lineStart(), reader.lineEnd());
+          if (batch.full()) {
+            submit(batch, toParse, toApply);
+            batch = new Batch();
+          }
+        }
+      } catch (IOException e) {
+        batch.error = e;
+      }
+      batch.last = true;
+      submit(batch, toParse, toApply);
+    } catch (InterruptedException e) {
+      // the apply thread has stopped (EXIT)
+    }
+  }
+
+  private static void submit(Batch batch, ArrayBlockingQueue<Batch> toParse,
+      ArrayBlockingQueue<Batch> toApply) throws InterruptedException {
+    toApply.put(batch); // the apply queue keeps the input order
+    toParse.put(batch);
+  }
+
+  // Parser thread: split the lines of each batch into commands
+  private static void parse(ArrayBlockingQueue<Batch> toParse) {
+    CommandParser parser = new CommandParser();
+    try {
+      while (true) {
+        Batch batch = toParse.take();
+        ParsedCommand[] commands = new ParsedCommand[batch.lines];
+        try {
+          for (int i = 0; i < batch.lines; i++) {
+            if (parser.parse(batch.data, batch.starts[i], batch.ends[i])) {
+              commands[i] = new ParsedCommand(parser);
+            }
+          }
+          batch.parsed.complete(commands);
+        } catch (RuntimeException e) {
+          batch.parsed.completeExceptionally(e);
+        }
+      }
+    } catch (InterruptedException e) {
+      // pipeline finished
+    }
+  }
+
+  private static Thread daemon(String name, Runnable body) {
+    Thread t = new Thread(body, name);
+    t.setDaemon(true);
+    return t;
+  }
 }
 
 //------------------------------
-//PriorityTaskManager
+//CommandRing
 //------------------------------
 
 /**
- * PriorityTaskManager implements a max-heap using TaskList to manage tasks
- * based on their priority. Only tasks with status "TODO" are stored in the heap.
+ * CommandRing lets many producer threads feed commands to one manager that
+ * only a single writer thread touches, with no locks (the Disruptor pattern).
  * <p>
- * This class allows students to insert tasks, extract the highest-priority task,
- * display all tasks in the heap, and build the heap from an existing list of tasks.
+ * The ring is a power-of-two array of slots. A producer claims the next
+ * sequence number with one atomic increment, waits until the writer is done
+ * with the slot that number maps to (only when the ring is full), fills the
+ * slot and publishes it by storing the sequence number in the slot's entry
+ * of the published array.
  * </p>
  *
- * <p>Hints for students:</p>
- * <ul>
- *   <li>Use TaskList internally to implement the heap.</li>
- *   <li>buildHeap() initializes the heap from a list of tasks (filter only TODO tasks).</li>
- *   <li>insert() inserts a new task into the heap and maintains max-heap property.</li>
- *   <li>extractMax() removes and returns the task with the highest priority.</li>
- *   <li>displayHeap() prints the tasks in heap order.</li>
- *   <li>higherPriority() compares two tasks and returns true if the first has higher priority.</li>
- * </ul>
+ * <p>The writer is the thread that calls run(). It takes every published
+ * slot after the last one it applied as one batch and runs the commands in
+ * sequence order with Solution.execute(). Then it commits the write-ahead log
+ * once for the whole batch, and only after that completes each command's
+ * future with the command's output, so a completed command is durable.
+ * Finally it hands the slots back to the producers. EXIT only prints its
+ * output here; the ring runs until close().</p>
  *
- * @param <T> The type of tasks stored in the heap, must extend TaskItem
+ * <p>Commands from different producers interleave, so one producer's BEGIN
+ * would capture the others' commands. BEGIN, COMMIT and ROLLBACK are
+ * therefore refused by submit(), and the ring runs its commands outside of
+ * the stdin transaction.</p>
+ *
+ * <p>An idle writer spins briefly, then yields, then parks until a producer
+ * wakes it, so an empty ring does not keep a core busy. A producer waiting
+ * for a full ring backs off the same way but parks for a short time.</p>
  */
-class PriorityTaskManager<T extends TaskItem> {
-  private TaskList<T> heap;
-  
-  public PriorityTaskManager() {
-    heap = new TaskList<>();
+class CommandRing implements Closeable {
+  /** Busy-waiting only helps when the other side runs on another core */
+  private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+  private static final int YIELDS = 10;
+  private static final long PARK_NANOS = 50_000;
+
+  // One ring entry; owned by its producer until published, then by the writer
+  private static final class Slot {
+    Icommand command;
+    CompletableFuture<String> result;
+    String output;
+    RuntimeException error;
   }
-  
-  public void clear() {
-    heap = new TaskList<>();
-  }
-  
-  // Only accept TODO tasks
-  public void insert(T item) {
-    if (item == null) return;
-    if (!"TODO".equals(item.getStatus())) return;
-    
-    heap.add(item);
-    bubbleUp(heap.size() - 1);
-  }
-  
-  // Extract max and skip any non-TODO tasks
-  public T extractMax() {
-    if(heap.isEmpty()) return null;
-    T max = heap.get(0);
-    T last = heap.removeAt(heap.size() -1);
 
-    if(!heap.isEmpty()) {
-        heap.set(0, last);
-        sinkDown(0);
+  private final ToDoListManager<TaskItem> manager;
+  /** Never opened, since submit() refuses BEGIN */
+  private final Transaction transaction = new Transaction();
+  private final Slot[] slots;
+  private final int mask;
+  /** The sequence number each slot was last published under */
+  private final AtomicLongArray published;
+  /** The next sequence number to hand to a producer */
+  private final AtomicLong claimed = new AtomicLong();
+  /** The last sequence number the writer is done with */
+  private volatile long applied = -1;
+  /** Producers that have passed the closed check but not yet published */
+  private final AtomicInteger submitting = new AtomicInteger();
+  private volatile boolean closed;
+  private volatile long batches;
+  /** The run() thread, and whether it is parked waiting for a command */
+  private volatile Thread writer;
+  private volatile boolean writerParked;
+
+  /**
+   * @param manager the manager; only the run() thread may use it from now on
+   * @param capacity the number of slots, a power of two
+   */
+  public CommandRing(ToDoListManager<TaskItem> manager, int capacity) {
+    if (capacity < 1 || Integer.bitCount(capacity) != 1)
+      throw new IllegalArgumentException("capacity must be a power of two");
+    this.manager = manager;
+    slots = new Slot[capacity];
+    mask = capacity - 1;
+    published = new AtomicLongArray(capacity);
+    for (int i = 0; i < capacity; i++) {
+      slots[i] = new Slot();
+      published.set(i, -1);
     }
-    return max;
   }
-  
-  public void displayHeap() {
-    if(heap.isEmpty()) return;
-    for(int i = 0; i < heap.size(); i++) {
-        System.out.println(heap.get(i));
+
+  /**
+   * Queues a command. May be called from any number of threads; waits only
+   * while the ring is full.
+   *
+   * @param command the command (copied unless it is a ParsedCommand)
+   * @return a future completed with what the command printed, once it has
+   *         been applied and logged
+   * @throws IllegalArgumentException if the command is BEGIN, COMMIT or ROLLBACK
+   * @throws IllegalStateException if the ring is closed
+   */
+  public CompletableFuture<String> submit(Icommand command) {
+    int code = command.command();
+    if (code == CommandParser.BEGIN || code == CommandParser.COMMIT || code == CommandParser.ROLLBACK)
+      throw new IllegalArgumentException(CommandParser.name(code) + " is not supported on the command ring");
+    Icommand copy = command instanceof ParsedCommand ? command : new ParsedCommand(command);
+    CompletableFuture<String> result = new CompletableFuture<>();
+    submitting.incrementAndGet();
+    try {
+      if (closed) throw new IllegalStateException("Command ring is closed");
+      long seq = claimed.getAndIncrement();
+      for (int idle = 0; seq - slots.length > applied; idle++) {
+        backOff(idle);
+      }
+      Slot slot = slots[(int) seq & mask];
+      slot.command = copy;
+      slot.result = result;
+      published.set((int) seq & mask, seq);
+      if (writerParked) LockSupport.unpark(writer);
+      return result;
+    } finally {
+      submitting.decrementAndGet();
     }
   }
-  
-  // Swim up to restore heap property
-  private void bubbleUp(int index) {
-    while (index > 0) {
-        int parentIdx = (index - 1) / 2;
-        T current = heap.get(index);
-        T parent = heap.get(parentIdx);
-        
-        // Compare by PRIORITY VALUE, not compareTo
-        if (current.getPriority() > parent.getPriority()) {
-            swap(index, parentIdx);
-            index = parentIdx;
+
+  /**
+   * Runs the writer loop on the calling thread until close() has been
+   * called and every submitted command has been applied. System.out is
+   * redirected while it runs, to capture each command's output.
+   */
+  public void run() {
+    ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    PrintStream capture = new PrintStream(captured, false);
+    PrintStream console = System.out;
+    System.setOut(capture);
+    writer = Thread.currentThread();
+    try {
+      long next = 0;
+      int idle = 0;
+      while (true) {
+        long end = next - 1;
+        while (published.get((int) (end + 1) & mask) == end + 1) end++;
+        if (end >= next) {
+          apply(next, end, captured, capture);
+          next = end + 1;
+          idle = 0;
+        } else if (closed && submitting.get() == 0 && claimed.get() == next) {
+          return;
+        } else if (idle < SPINS + YIELDS) {
+          backOff(idle++);
         } else {
-            break;
+          // park until a producer publishes; look once more after raising the flag
+          // so a publish that missed the flag is not slept through
+          writerParked = true;
+          if (published.get((int) next & mask) != next && !closed) LockSupport.parkNanos(PARK_NANOS * 20);
+          writerParked = false;
         }
+      }
+    } finally {
+      writer = null;
+      System.setOut(console);
     }
-}
-  
-  // Sink down to restore heap property
-  private void sinkDown(int index) {
-    int size = heap.size();
-    while (true) {
-        int left = 2 * index + 1;
-        int right = 2 * index + 2;
-        int largest = index;
-        
-        // Compare by PRIORITY VALUE, not compareTo
-        if (left < size && heap.get(left).getPriority() > heap.get(largest).getPriority()) {
-            largest = left;
-        }
-        if (right < size && heap.get(right).getPriority() > heap.get(largest).getPriority()) {
-            largest = right;
-        }
-        
-        if (largest != index) {
-            swap(index, largest);
-            index = largest;
-        } else {
-            break;
-        }
+  }
+
+  // Writer: apply one batch, commit the log, then complete the futures
+  private void apply(long from, long to, ByteArrayOutputStream captured, PrintStream capture) {
+    for (long seq = from; seq <= to; seq++) {
+      Slot slot = slots[(int) seq & mask];
+      try {
+        Solution.execute(manager, slot.command, transaction);
+        capture.flush();
+        slot.output = captured.toString();
+      } catch (RuntimeException e) {
+        slot.error = e;
+      }
+      captured.reset();
+    }
+    Solution.commitLog();
+    for (long seq = from; seq <= to; seq++) {
+      Slot slot = slots[(int) seq & mask];
+      CompletableFuture<String> result = slot.result;
+      if (slot.error != null) result.completeExceptionally(slot.error);
+      else result.complete(slot.output);
+      slot.command = null;
+      slot.result = null;
+      slot.output = null;
+      slot.error = null;
     }
+    batches++;
+    applied = to;
   }
-  
-  private void swap(int i, int j) {
-    T temp = heap.get(i);
-    heap.set(i, heap.get(j));
-    heap.set(j, temp);
+
+  private static void backOff(int idle) {
+    if (idle < SPINS) Thread.onSpinWait();
+    else if (idle < SPINS + YIELDS) Thread.yield();
+    else LockSupport.parkNanos(PARK_NANOS);
+  }
+
+  /** The number of batches applied so far; commands divided by this is the average batch size. */
+  public long batches() {
+    return batches;
+  }
+
+  /** The number of commands submitted so far. */
+  public long submitted() {
+    return claimed.get();
+  }
+
+  /**
+   * Stops taking new commands. run() returns once the commands already
+   * submitted have been applied.
+   */
+  @Override
+  public void close() {
+    closed = true;
+    Thread w = writer;
+    if (w != null) LockSupport.unpark(w);
   }
 }
 
 //------------------------------
-//TaskTree (BST with DFS and BFS traversal)
+//BinaryProtocol
 //------------------------------
 
 /**
- * TaskTree implements a Binary Search Tree (BST) for storing tasks based on their
- * description (alphabetical order). It allows DFS (in-order) and BFS (level-order)
- * traversals to visualize tasks.
+ * BinaryProtocol is a compact, length-prefixed binary form of the text
+ * command protocol, with many commands per frame.
+ * <p>
+ * Command frame: a 4-byte big-endian payload length, then the payload: a
+ * varint command count followed by the commands. Each command is one byte
+ * with its CommandParser code (255 for an unknown name, followed by the name
+ * as a string), a varint field count, and the fields. A field is a tag byte
+ * and a value: tag 0 is a string (varint byte length + UTF-8 bytes), tag 1 is
+ * an int (zigzag varint). Ints are only used for text that is exactly the
+ * canonical form of the number, so converting back gives the same text.
+ * </p>
  *
- * <p>Students should use TaskLinkedList as a queue for BFS traversal.</p>
+ * <p>Response frame: the same 4-byte length, then a varint response count,
+ * one response per command that was run. A response is a varint line count
+ * followed by the output lines. A line is a varint: values below
+ * RESPONSES.length stand for that fixed response text, larger values are
+ * RESPONSES.length + byte length, followed by the UTF-8 bytes.</p>
  *
- * <p>Hints for students:</p>
- * <ul>
- *   <li>Each TreeNode stores a TaskItem.</li>
- *   <li>buildTree() constructs the BST from a given TaskList.</li>
- *   <li>insert() adds a new task to the tree, maintaining BST properties.</li>
- *   <li>dfsPrint() performs an in-order traversal to print tasks alphabetically.</li>
- *   <li>bfsPrint() performs a level-order traversal to print tasks by tree levels.</li>
- * </ul>
+ * <p>The commands run through Solution.execute(), so a response holds
+ * exactly the lines the text protocol would print. Processing stops after
+ * EXIT, and the response frame then holds the responses up to and including
+ * GOODBYE.</p>
  *
- * @param <T> The type of tasks stored in the tree, must extend TaskItem
+ * <p>Each serve() call is one session with its own Transaction. A BEGIN that
+ * is still open when the session ends is rolled back, so its queued changes
+ * never reach the next client or the stdin session.</p>
  */
-class TaskTree<T extends TaskItem> {
-    // Node class
-    class TreeNode {
-        T val;
-        TreeNode left, right;
-        TreeNode(T v) { 
-            val = v; 
-            left = right = null; 
-        }
+class BinaryProtocol {
+  public static final int MAX_FRAME = 16 << 20;
+  public static final int UNKNOWN_CODE = 255;
+  private static final int TAG_STRING = 0;
+  private static final int TAG_INT = 1;
+
+  /** Fixed response lines that are sent as a single varint */
+  static final String[] RESPONSES = {
+    "TASK ADDED", "TASK UPDATED", "TASK REMOVED", "NOT FOUND", "SORTED", "UNDO", "REDO",
+    "TASK COMPLETED", "COMPLETED REMOVED", "TASK SCHEDULED", "NEW TASK SCHEDULED",
+    "DEPENDENCY ADDED", "TASK WAITING", "GOODBYE", "UNKNOWN COMMAND"
+  };
+
+  // ---------------------- Frames ----------------------
+
+  /**
+   * Reads one frame payload.
+   * @return the payload, or null at a clean end of stream
+   * @throws IOException if the stream ends inside a frame or the frame is too large
+   */
+  public static ByteBuffer readFrame(DataInputStream in) throws IOException {
+    int b0 = in.read();
+    if (b0 < 0) return null;
+    int len = (b0 << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+    if (len < 0 || len > MAX_FRAME) throw new IOException("Bad frame length: " + len);
+    byte[] payload = new byte[len];
+    in.readFully(payload);
+    return ByteBuffer.wrap(payload);
+  }
+
+  public static void writeFrame(DataOutputStream out, ByteArrayOutputStream payload) throws IOException {
+    out.writeInt(payload.size());
+    payload.writeTo(out);
+  }
+
+  // ---------------------- Commands ----------------------
+
+  /**
+   * Appends one command to a frame payload being built.
+   * @param p the command to encode
+   * @param fieldCount the number of fields, including the command name
+   */
+  public static void writeCommand(ByteArrayOutputStream out, Icommand p, int fieldCount) {
+    int code = p.command();
+    out.write(code == CommandParser.UNKNOWN ? UNKNOWN_CODE : code);
+    writeVarint(out, fieldCount - 1);
+    if (code == CommandParser.UNKNOWN) writeString(out, p.field(0));
+    for (int i = 1; i < fieldCount; i++) {
+      String f = p.field(i);
+      Integer v = canonicalInt(f);
+      if (v != null) {
+        out.write(TAG_INT);
+        writeVarint(out, (v << 1) ^ (v >> 31));
+      } else {
+        out.write(TAG_STRING);
+        writeString(out, f);
+      }
     }
-    private TreeNode root;
+  }
 
-    public TaskTree() {
-        root = null;
+  /** Reads the next command from a frame payload. */
+  public static BinaryCommand readCommand(ByteBuffer in) throws IOException {
+    int code = readByte(in) & 0xff;
+    int n = readVarint(in);
+    if (n < 0 || n > in.remaining()) throw new IOException("Bad field count: " + n);
+    String[] fields = new String[n + 1];
+    if (code == UNKNOWN_CODE) {
+      fields[0] = readString(in);
+      code = CommandParser.UNKNOWN;
+    } else {
+      fields[0] = CommandParser.name(code);
+      if (fields[0] == null) throw new IOException("Bad command code: " + code);
+    }
+    for (int i = 1; i <= n; i++) {
+      int tag = readByte(in);
+      if (tag == TAG_INT) {
+        int z = readVarint(in);
+        fields[i] = Integer.toString((z >>> 1) ^ -(z & 1));
+      } else if (tag == TAG_STRING) {
+        fields[i] = readString(in);
+      } else {
+        throw new IOException("Bad field tag: " + tag);
+      }
     }
+    return new BinaryCommand(code, fields);
+  }
 
-    // insert by description (alphabetical)
-    public void insert(T task) {
-        if (task == null) 
-          return;
-        root = insertRec(root, task);
+  // ---------------------- Responses ----------------------
+
+  /** Appends one response (the lines printed by one command). */
+  public static void writeResponse(ByteArrayOutputStream out, TaskList<String> lines) {
+    writeVarint(out, lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      String line = lines.get(i);
+      int constant = responseCode(line);
+      if (constant >= 0) {
+        writeVarint(out, constant);
+      } else {
+        byte[] b = line.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, RESPONSES.length + b.length);
+        out.write(b, 0, b.length);
+      }
     }
+  }
 
-    private TreeNode insertRec(TreeNode node, T task) {
-        if (node == null) return new TreeNode(task);
-        String a = task.getDescription();
-        String b = node.val.getDescription();
-        // equal goes RIGHT now
-        if (a.compareToIgnoreCase(b) < 0) {
-            node.left = insertRec(node.left, task);
-        } 
-        else {
-            node.right = insertRec(node.right, task);
+  /** Reads the next response from a frame payload. */
+  public static TaskList<String> readResponse(ByteBuffer in) throws IOException {
+    int n = readVarint(in);
+    TaskList<String> lines = new TaskList<>();
+    for (int i = 0; i < n; i++) {
+      int v = readVarint(in);
+      if (v < RESPONSES.length) {
+        lines.add(RESPONSES[v]);
+      } else {
+        lines.add(readBytes(in, v - RESPONSES.length));
+      }
+    }
+    return lines;
+  }
+
+  // ---------------------- Serving ----------------------
+
+  /**
+   * Serves binary command frames from in until EXIT or the end of the
+   * stream, writing one response frame per command frame to out. Works for
+   * stdin/stdout as well as socket streams.
+   *
+   * @return true if the client sent EXIT, false if the stream ended
+   */
+  public static boolean serve(ToDoListManager<TaskItem> manager, InputStream in, OutputStream out) throws IOException {
+    DataInputStream din = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+    DataOutputStream dout = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+    ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    PrintStream capture = new PrintStream(captured, false);
+    ByteArrayOutputStream reply = new ByteArrayOutputStream();
+    Transaction transaction = new Transaction();
+    PrintStream console = System.out;
+    System.setOut(capture);
+    try {
+      boolean running = true;
+      while (running) {
+        ByteBuffer frame = readFrame(din);
+        if (frame == null) break;
+        int count = readVarint(frame);
+        reply.reset();
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        int done = 0;
+        for (int i = 0; i < count && running; i++) {
+          BinaryCommand cmd = readCommand(frame);
+          running = Solution.execute(manager, cmd, transaction);
+          capture.flush();
+          writeResponse(body, splitLines(captured));
+          captured.reset();
+          done++;
         }
-        return node;
+        writeVarint(reply, done);
+        body.writeTo(reply);
+        Solution.commitLog();
+        writeFrame(dout, reply);
+        dout.flush();
+      }
+      return !running;
+    } finally {
+      if (transaction.isOpen()) transaction.end(); // queued changes are dropped
+      System.setOut(console);
     }
+  }
 
-    // build tree from TaskList
-    public void buildTree(TaskList<T> tasks) {
-        clear();
-        for (int i = 0; i < tasks.size(); i++) 
-          insert(tasks.get(i));
+  // Split captured output into lines (the text protocol ends every line with a separator)
+  private static TaskList<String> splitLines(ByteArrayOutputStream captured) {
+    TaskList<String> lines = new TaskList<>();
+    String text = captured.toString(Charset.defaultCharset());
+    String sep = System.lineSeparator();
+    int start = 0;
+    for (int end = text.indexOf(sep); end >= 0; end = text.indexOf(sep, start)) {
+      lines.add(text.substring(start, end));
+      start = end + sep.length();
     }
+    if (start < text.length()) lines.add(text.substring(start));
+    return lines;
+  }
 
-    // in-order DFS -> alphabetical by description
-    public void dfsPrint() {
-      if (root == null) return;
-		  dfsRec(root);
-	  }
+  // ---------------------- Encoding helpers ----------------------
 
-    private void dfsRec(TreeNode node) {
-        if (node == null) 
-          return;
-        dfsRec(node.left);
-        // print description only
-        System.out.println(node.val.getDescription());
-        dfsRec(node.right);
+  private static int responseCode(String line) {
+    for (int i = 0; i < RESPONSES.length; i++) {
+      if (RESPONSES[i].equals(line)) return i;
     }
+    return -1;
+  }
 
-    // BFS level-order using TaskLinkedList as queue
-    public void bfsPrint() {
-        if (root == null) 
-          return;
-        TaskLinkedList<TreeNode> q = new TaskLinkedList<>();
-        q.addLast(root);
-        while (!q.isEmpty()) {
-            TreeNode node = q.removeFirst();
-            // print description only
-            System.out.println(node.val.getDescription());
-            if (node.left != null) 
-              q.addLast(node.left);
-            if (node.right != null) 
-              q.addLast(node.right);
-        }
+  // The int value of s, only if Integer.toString() gives back exactly s
+  private static Integer canonicalInt(String s) {
+    int len = s.length();
+    if (len == 0 || len > 11) return null;
+    for (int i = 0; i < len; i++) {
+      char c = s.charAt(i);
+      if (!(c >= '0' && c <= '9') && !(i == 0 && c == '-')) return null;
     }
+    try {
+      int v = Integer.parseInt(s);
+      return Integer.toString(v).equals(s) ? v : null;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
 
-    public void clear() {
-        root = null;
+  static void writeVarint(ByteArrayOutputStream out, int v) {
+    while ((v & ~0x7f) != 0) {
+      out.write((v & 0x7f) | 0x80);
+      v >>>= 7;
+    }
+    out.write(v);
+  }
+
+  static int readVarint(ByteBuffer in) throws IOException {
+    int v = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      int b = readByte(in);
+      v |= (b & 0x7f) << shift;
+      if ((b & 0x80) == 0) return v;
     }
+    throw new IOException("Bad varint");
+  }
+
+  // A truncated frame is an IOException, not a BufferUnderflowException, so
+  // the server drops the client instead of dying
+  private static byte readByte(ByteBuffer in) throws IOException {
+    if (!in.hasRemaining()) throw new IOException("Truncated frame");
+    return in.get();
+  }
+
+  private static void writeString(ByteArrayOutputStream out, String s) {
+    byte[] b = s.getBytes(StandardCharsets.UTF_8);
+    writeVarint(out, b.length);
+    out.write(b, 0, b.length);
+  }
+
+  private static String readString(ByteBuffer in) throws IOException {
+    return readBytes(in, readVarint(in));
+  }
+
+  private static String readBytes(ByteBuffer in, int len) throws IOException {
+    if (len < 0 || len > in.remaining()) throw new IOException("Truncated frame");
+    String s = new String(in.array(), in.arrayOffset() + in.position(), len, StandardCharsets.UTF_8);
+    in.position(in.position() + len);
+    return s;
+  }
 }
 
 //------------------------------
-//ToDoListManager (implements all behaviors)
+//BinaryCommand
 //------------------------------
 
 /**
- * ToDoListManager is the main class managing tasks and implements all required operations:
- * adding, updating, removing tasks; undo/redo history; scheduling; priority access;
- * searching; sorting; marking tasks as done; and tree-based traversal.
- *
- * <p>It uses:</p>
- * <ul>
- *   <li>TaskList (dynamic array) to store active tasks</li>
- *   <li>UndoRedoManager (stack behavior) for undo/redo history</li>
- *   <li>Scheduler (queue) for FIFO scheduled tasks</li>
- *   <li>PriorityTaskManager (max-heap) to get high-priority tasks</li>
- *   <li>TaskTree (BST) for searching and sorted views</li>
- * </ul>
- *
- * <p>Students should implement missing functionality or modify behavior as needed, 
- * especially in scheduling, priority management, undo/redo, and task completion.</p>
- *
- * <p>Hints:</p>
- * <ul>
- *   <li>Use snapshot() to store a copy of the task list before modifications for undo/redo.</li>
- *   <li>Remember to rebuild the heap whenever tasks are added, removed, or updated.</li>
- *   <li>Use taskTree.buildTree(taskList) before traversals (DFS or BFS).</li>
- *   <li>Filtering and sorting can be done via simple loops or bubble sort for now.</li>
- *   <li>Mark the first SCHEDULED tasks in the queue as DONE before enqueueing or processing.</li>
- * </ul>
+ * BinaryCommand is one command decoded from a BinaryProtocol frame. It
+ * behaves like a parsed text line, including the error messages for missing
+ * fields and bad numbers.
+ */
+class BinaryCommand implements Icommand {
+  private final int command;
+  private final String[] fields;
+
+  public BinaryCommand(int command, String[] fields) {
+    this.command = command;
+    this.fields = fields;
+  }
+
+  public int fieldCount() {
+    return fields.length;
+  }
+
+  @Override
+  public int command() {
+    return command;
+  }
+
+  @Override
+  public String field(int i) {
+    if (i < 0 || i >= fields.length)
+      throw new ArrayIndexOutOfBoundsException("Index " + i + " out of bounds for length " + fields.length);
+    return fields[i];
+  }
+
+  @Override
+  public int intField(int i) {
+    return Integer.parseInt(field(i));
+  }
+}
+
+//------------------------------
+//CommandServer
+//------------------------------
+
+/**
+ * CommandServer serves the text command protocol on a TCP or Unix-domain
+ * socket, with one shared ToDoListManager for all clients.
+ * <p>
+ * Everything runs on a single selector thread, so the manager is only ever
+ * touched by that thread and needs no locking. Each connection keeps its own
+ * input buffer: whatever complete lines have arrived are run in order and
+ * their output is appended to the connection's output buffer, so a client
+ * may pipeline many commands without waiting for the responses. A partial
+ * line waits for the rest of its bytes. EXIT answers GOODBYE and closes that
+ * client's connection; the server keeps running until close() is called.
+ * </p>
  *
- * @param <T> The type of tasks, must extend TaskItem
+ * <p>When a client stops reading and more than MAX_PENDING_OUTPUT bytes of
+ * responses are waiting for it, the server stops running that client's
+ * commands: the rest of the lines already read are kept as a backlog, and
+ * no more are read until the output drains. A line longer than
+ * MAX_LINE_LENGTH bytes is answered with an error and the connection is
+ * closed.</p>
  */
-class ToDoListManager<T extends TaskItem> extends AbstractListManager<T> {
+class CommandServer implements Closeable {
+  private static final int READ_BUFFER = 1 << 16;
+  private static final int MAX_PENDING_OUTPUT = 1 << 20;
+  private static final int MAX_LINE_LENGTH = 1 << 20;
+
+  // Per-connection state
+  private static final class Connection {
+    final SocketChannel channel;
+    byte[] pendingLine = new byte[256];  // a partial line, or the backlog
+    int pendingLength;
+    boolean backlog;                     // pendingLine holds lines not run yet
+    boolean skipLF;
+    ByteBuffer output = ByteBuffer.allocate(4096);   // in write mode
+    boolean closeAfterWrite;
+    final Transaction transaction = new Transaction();
+
+    Connection(SocketChannel channel) {
+      this.channel = channel;
+    }
+  }
+
+  private final ToDoListManager<TaskItem> manager;
+  private final Selector selector;
+  private final ServerSocketChannel server;
+  private final Path socketFile;          // Unix-domain socket file, removed on close
+  private final ByteBuffer readBuffer = ByteBuffer.allocate(READ_BUFFER);
+  private final CommandParser parser = new CommandParser();
+  private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+  private volatile boolean running = true;
+
+  /**
+   * Opens the server socket. Use an InetSocketAddress for TCP (port 0 picks a
+   * free port) or a UnixDomainSocketAddress for a Unix-domain socket.
+   *
+   * @param manager the manager shared by every client
+   * @param address the address to listen on
+   * @throws IOException if the socket cannot be opened
+   */
+  public CommandServer(ToDoListManager<TaskItem> manager, SocketAddress address) throws IOException {
+    this.manager = manager;
+    this.selector = Selector.open();
+    this.server = address instanceof UnixDomainSocketAddress
+        ? ServerSocketChannel.open(StandardProtocolFamily.UNIX)
+        : ServerSocketChannel.open();
+    this.socketFile = address instanceof UnixDomainSocketAddress
+        ? ((UnixDomainSocketAddress) address).getPath() : null;
+    server.bind(address);
+    server.configureBlocking(false);
+    server.register(selector, SelectionKey.OP_ACCEPT);
+  }
+
+  /** The address the server is listening on (shows the port picked for port 0). */
+  public SocketAddress localAddress() throws IOException {
+    return server.getLocalAddress();
+  }
+
+  /**
+   * Runs the selector loop on the calling thread until close() is called.
+   * @throws IOException if the selector fails
+   */
+  public void run() throws IOException {
+    PrintStream capture = new PrintStream(captured, false);
+    PrintStream console = System.out;
+    System.setOut(capture);
+    try {
+      while (running) {
+        selector.select();
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+          SelectionKey key = keys.next();
+          keys.remove();
+          try {
+            if (!key.isValid()) continue;
+            if (key.isAcceptable()) accept();
+            else {
+              if (key.isReadable()) read(key, capture);
+              if (key.isValid() && key.isWritable()) write(key, capture);
+            }
+          } catch (IOException ex) {
+            closeConnection(key);
+          }
+        }
+      }
+    } finally {
+      System.setOut(console);
+      for (SelectionKey key : selector.keys()) {
+        if (key.attachment() != null) closeConnection(key);
+      }
+      server.close();
+      selector.close();
+      if (socketFile != null) Files.deleteIfExists(socketFile);
+    }
+  }
+
+  /** Stops the selector loop; run() then closes every connection. */
+  @Override
+  public void close() {
+    running = false;
+    selector.wakeup();
+  }
+
+  private void accept() throws IOException {
+    SocketChannel channel = server.accept();
+    if (channel == null) return;
+    channel.configureBlocking(false);
+    channel.register(selector, SelectionKey.OP_READ, new Connection(channel));
+  }
+
+  private void read(SelectionKey key, PrintStream capture) throws IOException {
+    Connection c = (Connection) key.attachment();
+    readBuffer.clear();
+    int n = c.channel.read(readBuffer);
+    if (n < 0) {
+      // client finished sending: answer what is left, then close
+      if (c.pendingLength > 0) runLine(c, c.pendingLine, 0, c.pendingLength, capture);
+      c.pendingLength = 0;
+      Solution.commitLog();
+      c.closeAfterWrite = true;
+      updateInterest(key, c);
+      return;
+    }
+    byte[] buf = readBuffer.array();
+    int start = 0;
+    if (c.pendingLength > 0) {
+      // finish the partial line left by the last read
+      int end = 0;
+      while (end < n && buf[end] != '\n' && buf[end] != '\r') end++;
+      if (end == n) {
+        appendLine(c, buf, 0, n);
+        updateInterest(key, c);
+        return;
+      }
+      appendPending(c, buf, 0, end);
+      c.skipLF = buf[end] == '\r';
+      runLine(c, c.pendingLine, 0, c.pendingLength, capture);
+      c.pendingLength = 0;
+      start = end + 1;
+    }
+    start = runLines(c, buf, start, n, capture);
+    if (!c.closeAfterWrite && start < n) {
+      if (c.output.position() >= MAX_PENDING_OUTPUT) {
+        // the client is not reading: keep the rest, read no more until it drains
+        appendPending(c, buf, start, n);
+        c.backlog = true;
+      } else {
+        appendLine(c, buf, start, n);
+      }
+    }
+    Solution.commitLog();
+    updateInterest(key, c);
+  }
+
+  // Run the complete lines in buf[from, to) until the client's output
+  // reaches MAX_PENDING_OUTPUT; returns the start of the first line not run
+  private int runLines(Connection c, byte[] buf, int from, int to, PrintStream capture) {
+    int start = from;
+    for (int i = from; i < to && !c.closeAfterWrite; i++) {
+      byte b = buf[i];
+      if (c.skipLF) {
+        c.skipLF = false;
+        if (b == '\n') {
+          start = i + 1;
+          continue;
+        }
+      }
+      if (b != '\n' && b != '\r') continue;
+      if (c.output.position() >= MAX_PENDING_OUTPUT) return start;
+      c.skipLF = b == '\r';
+      runLine(c, buf, start, i, capture);
+      start = i + 1;
+    }
+    return start;
+  }
+
+  // Run backlogged lines once the client has read enough of its output
+  private void runBacklog(Connection c, PrintStream capture) {
+    int stop = runLines(c, c.pendingLine, 0, c.pendingLength, capture);
+    c.pendingLength = c.closeAfterWrite ? 0 : c.pendingLength - stop;
+    System.arraycopy(c.pendingLine, stop, c.pendingLine, 0, c.pendingLength);
+    c.backlog = c.pendingLength > 0 && c.output.position() >= MAX_PENDING_OUTPUT;
+    Solution.commitLog();
+  }
+
+  // Run one command line and queue its output for the client
+  private void runLine(Connection c, byte[] buf, int from, int to, PrintStream capture) {
+    if (c.closeAfterWrite || !parser.parse(buf, from, to)) return;
+    boolean more = Solution.execute(manager, parser, c.transaction);
+    capture.flush();
+    queueOutput(c, captured.toByteArray());
+    captured.reset();
+    if (!more) c.closeAfterWrite = true;
+  }
+
+  private void write(SelectionKey key, PrintStream capture) throws IOException {
+    Connection c = (Connection) key.attachment();
+    c.output.flip();
+    c.channel.write(c.output);
+    c.output.compact();
+    if (c.backlog && c.output.position() < MAX_PENDING_OUTPUT) runBacklog(c, capture);
+    updateInterest(key, c);
+  }
+
+  // Read while the client keeps up; write while there is output waiting
+  private void updateInterest(SelectionKey key, Connection c) {
+    boolean hasOutput = c.output.position() > 0;
+    if (!hasOutput && c.closeAfterWrite) {
+      closeConnection(key);
+      return;
+    }
+    int ops = 0;
+    if (!c.closeAfterWrite && !c.backlog && c.output.position() < MAX_PENDING_OUTPUT) ops |= SelectionKey.OP_READ;
+    if (hasOutput) ops |= SelectionKey.OP_WRITE;
+    key.interestOps(ops);
+  }
+
+  private static void queueOutput(Connection c, byte[] bytes) {
+    if (c.output.remaining() < bytes.length) {
+      ByteBuffer bigger = ByteBuffer.allocate(Math.max(c.output.capacity() * 2, c.output.position() + bytes.length));
+      c.output.flip();
+      bigger.put(c.output);
+      c.output = bigger;
+    }
+    c.output.put(bytes);
+  }
+
+  // Keep the start of a line that has no end yet; a line that never ends
+  // must not grow without bound
+  private static void appendLine(Connection c, byte[] buf, int from, int to) {
+    if (c.pendingLength + (to - from) > MAX_LINE_LENGTH) {
+      c.pendingLength = 0;
+      queueOutput(c, ("ERROR: Line longer than " + MAX_LINE_LENGTH + " bytes" + System.lineSeparator())
+          .getBytes(Charset.defaultCharset()));
+      c.closeAfterWrite = true;
+      return;
+    }
+    appendPending(c, buf, from, to);
+  }
+
+  private static void appendPending(Connection c, byte[] buf, int from, int to) {
+    int len = to - from;
+    if (c.pendingLength + len > c.pendingLine.length) {
+      c.pendingLine = Arrays.copyOf(c.pendingLine, Math.max(c.pendingLine.length * 2, c.pendingLength + len));
+    }
+    System.arraycopy(buf, from, c.pendingLine, c.pendingLength, len);
+    c.pendingLength += len;
+  }
+
+  private static void closeConnection(SelectionKey key) {
+    key.cancel();
+    try {
+      key.channel().close();
+    } catch (IOException ignored) {
+      // already closed
+    }
+  }
+}
+
+//------------------------------
+//WriteAheadLog
+//------------------------------
+
+/**
+ * WriteAheadLog makes the manager durable by appending every command that
+ * changes it to a log file before the command runs. On startup the log is
+ * replayed through Solution.execute() against an empty manager, which
+ * rebuilds the tasks, the queues and the undo/redo history exactly.
+ * <p>
+ * Records are the command lines of the text protocol, one per line, so the
+ * log can be read or replayed by hand: {@code java Solution < todo.wal}.
+ * A last line without its newline is a torn write from a crash and is cut
+ * off when the log is opened. IMPORT is logged as the command, not the rows,
+ * so its file has to stay in place until a snapshot covers it.
+ * </p>
+ *
+ * <p>A committed transaction is logged at COMMIT, as a BEGIN record, its
+ * commands and a COMMIT record (ROLLBACK if one of them failed), so a replay
+ * applies it as a whole. If a crash left the last transaction without its
+ * COMMIT, opening the log drops it and appends a ROLLBACK record.</p>
+ *
+ * <p>Every record is written to the file (handed to the OS) as it is
+ * appended, before its command runs. The policies differ only in when the
+ * file is fsynced:</p>
+ * <ul>
+ *   <li>none: never. Records survive the process dying but not the machine.</li>
+ *   <li>batch: group commit. Records are fsynced together once GROUP_SIZE
+ *       of them have collected, before any response to them leaves the
+ *       process (every command loop commits the log before its output is
+ *       written; see Solution.durableOutput()), and at exit. A power loss
+ *       can only lose commands that were not answered yet.</li>
+ *   <li>always: every record is fsynced before its command runs.</li>
+ * </ul>
+ */
+class WriteAheadLog implements Closeable {
+  static final int SYNC_NONE = 0, SYNC_BATCH = 1, SYNC_ALWAYS = 2;
+  static final int GROUP_SIZE = 64;
+  private static final String[] POLICIES = {"none", "batch", "always"};
+
+  private final FileChannel channel;
+  private final int sync;
+  private final Charset charset = Charset.defaultCharset();
+  /** Records written since the last fsync */
+  private int pendingRecords;
+  private long records;
+  private long syncs;
+
+  private WriteAheadLog(FileChannel channel, int sync) {
+    this.channel = channel;
+    this.sync = sync;
+  }
+
+  /**
+   * Opens (or creates) a log, replays it into the manager and positions it
+   * for appending.
+   *
+   * @param path the log file
+   * @param sync SYNC_NONE, SYNC_BATCH or SYNC_ALWAYS
+   * @param manager an empty manager to recover into
+   * @return the open log
+   * @throws IOException if the log cannot be read or opened
+   */
+  public static WriteAheadLog open(Path path, int sync, ToDoListManager<TaskItem> manager) throws IOException {
+    return open(path, sync, manager, 0, 0);
+  }
+
+  /**
+   * Opens a log whose start is already covered by a snapshot: only the
+   * records from fromOffset on are replayed into the manager.
+   *
+   * @param path the log file
+   * @param sync SYNC_NONE, SYNC_BATCH or SYNC_ALWAYS
+   * @param manager the manager the snapshot was loaded into
+   * @param fromOffset the log length the snapshot covers
+   * @param fromRecords the number of records the snapshot covers
+   * @return the open log
+   * @throws IOException if the log cannot be read, or is shorter than the snapshot
+   */
+  public static WriteAheadLog open(Path path, int sync, ToDoListManager<TaskItem> manager, long fromOffset,
+      long fromRecords) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    try {
+      long end = completeLength(channel);
+      if (end < fromOffset) throw new IOException("Log " + path + " is shorter than the snapshot");
+      if (end < channel.size()) channel.truncate(end);
+      WriteAheadLog log = new WriteAheadLog(channel, sync);
+      channel.position(fromOffset);
+      Transaction unfinished = new Transaction();
+      log.records = fromRecords + replay(channel, manager, unfinished);
+      channel.position(end);
+      if (unfinished.isOpen()) {
+        log.append(CommandParser.ROLLBACK);
+        log.commit();
+      }
+      return log;
+    } catch (IOException | RuntimeException ex) {
+      channel.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Parses a sync policy name.
+   * @throws IllegalArgumentException if the name is not none, batch or always
+   */
+  public static int policy(String name) {
+    for (int i = 0; i < POLICIES.length; i++) {
+      if (POLICIES[i].equalsIgnoreCase(name)) return i;
+    }
+    throw new IllegalArgumentException("Unknown sync policy: " + name);
+  }
+
+  /** Whether a command changes the manager and therefore has to be logged. */
+  public static boolean isMutation(int command) {
+    switch (command) {
+      case CommandParser.ADD: case CommandParser.UPDATE: case CommandParser.REMOVE:
+      case CommandParser.SORT_DESC: case CommandParser.SORT_DUE: case CommandParser.SORT_PRIO:
+      case CommandParser.UNDO: case CommandParser.REDO: case CommandParser.COMPLETE:
+      case CommandParser.REMOVE_COMPLETED: case CommandParser.SCHEDULE_ID: case CommandParser.SCHEDULE:
+      case CommandParser.PROCESS_NEXT: case CommandParser.PROCESS_NEXT_BATCH: case CommandParser.PROCESS_DUE:
+      case CommandParser.DEPEND: case CommandParser.SCHEDULE_READY: case CommandParser.IMPORT:
+      case CommandParser.ARCHIVE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Appends one command. It is written to the file right away; under
+   * SYNC_ALWAYS it is also fsynced, otherwise it is fsynced with its group.
+   *
+   * @param p a parsed mutating command
+   * @throws IOException if the log cannot be written
+   * @throws IllegalArgumentException if a field holds ';' or a line break,
+   *         which a text record cannot represent
+   */
+  public synchronized void append(Icommand p) throws IOException {
+    StringBuilder line = new StringBuilder(CommandParser.name(p.command()));
+    for (int i = 1; i < p.fieldCount(); i++) {
+      String field = p.field(i);
+      if (field.indexOf(';') >= 0 || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+        throw new IllegalArgumentException("Field cannot be logged: " + field);
+      }
+      line.append(';').append(field);
+    }
+    line.append('\n');
+    ByteBuffer buf = ByteBuffer.wrap(line.toString().getBytes(charset));
+    while (buf.hasRemaining()) channel.write(buf);
+    pendingRecords++;
+    records++;
+    if (sync == SYNC_ALWAYS || pendingRecords >= GROUP_SIZE) commit();
+  }
+
+  /**
+   * Appends a record without fields: BEGIN, COMMIT or ROLLBACK.
+   * @param command the command code
+   * @throws IOException if the log cannot be written
+   */
+  public void append(int command) throws IOException {
+    append(new BinaryCommand(command, new String[] {CommandParser.name(command)}));
+  }
+
+  /**
+   * Fsyncs the records appended since the last commit, unless the policy is
+   * SYNC_NONE. Callers call this before their responses leave the process,
+   * so that under SYNC_BATCH every answered command is durable.
+   *
+   * @throws IOException if the log cannot be synced
+   */
+  public synchronized void commit() throws IOException {
+    if (pendingRecords == 0) return;
+    pendingRecords = 0;
+    if (sync != SYNC_NONE) {
+      channel.force(false);
+      syncs++;
+    }
+  }
+
+  /**
+   * Commits and fsyncs (whatever the policy) everything appended so far.
+   * @return the length of the log, which is now durable
+   * @throws IOException if the log cannot be written
+   */
+  public synchronized long durableLength() throws IOException {
+    commit();
+    if (sync == SYNC_NONE) channel.force(false);
+    return channel.position();
+  }
+
+  /** Number of records in the log, including the replayed ones. */
+  public synchronized long records() {
+    return records;
+  }
+
+  /** Number of fsyncs done since the log was opened. */
+  public synchronized long syncs() {
+    return syncs;
+  }
+
+  /** Fsyncs whatever is pending and closes the file. */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!channel.isOpen()) return;
+    try {
+      commit();
+    } finally {
+      channel.close();
+    }
+  }
+
+  // Length of the log up to and including its last newline
+  private static long completeLength(FileChannel channel) throws IOException {
+    ByteBuffer buf = ByteBuffer.allocate(4096);
+    long end = channel.size();
+    while (end > 0) {
+      int n = (int) Math.min(buf.capacity(), end);
+      buf.clear().limit(n);
+      channel.read(buf, end - n);
+      for (int i = n - 1; i >= 0; i--) {
+        if (buf.get(i) == '\n') return end - n + i + 1;
+      }
+      end -= n;
+    }
+    return 0;
+  }
+
+  // Runs every record from the channel's position on against the manager,
+  // with the output thrown away; a transaction whose COMMIT never made it
+  // to the log is left open in transaction
+  private static long replay(FileChannel channel, ToDoListManager<TaskItem> manager, Transaction transaction)
+      throws IOException {
+    FastLineReader reader = new FastLineReader(Channels.newInputStream(channel), 1 << 16);
+    CommandParser parser = new CommandParser();
+    PrintStream console = System.out;
+    System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    long count = 0;
+    try {
+      while (reader.next()) {
+        if (!parser.parse(reader.lineBuffer(), reader.lineStart(), reader.lineEnd())) continue;
+        Solution.execute(manager, parser, transaction);
+        count++;
+      }
+    } finally {
+      System.setOut(console);
+    }
+    return count;
+  }
+}
+
+//------------------------------
+//SnapshotFile
+//------------------------------
+
+/**
+ * SnapshotFile is the binary snapshot of a ToDoListManager: the task
+ * records in list order, the schedule queue order, the dependency graph and
+ * the write-ahead log position the snapshot covers.
+ * <p>
+ * The file is memory-mapped when it is loaded. Each task becomes a TaskItem
+ * that only knows its record number; its fields are decoded from the mapping
+ * the first time they are used. Loading therefore costs one small object per
+ * task and no string decoding, apart from the queued tasks (the timing wheel
+ * needs their due dates). A snapshot must fit in 2 GB.
+ * </p>
+ *
+ * <p>Layout (big-endian):</p>
+ * <pre>
+ *   header   magic, version, log offset (long), log records (long),
+ *            task count, queue length, tables offset, archive segments
+ *   records  per task: status code (byte), priority, then the id,
+ *            description, due date (and custom status) as length + UTF-8
+ *   tables   record offsets (one int per task), queue order (task indexes),
+ *            dependency graph
+ * </pre>
+ */
+class SnapshotFile {
+  private static final int MAGIC = 0x54445331; // "TDS1"
+  private static final int VERSION = 1;
+  private static final int HEADER = 40;
+  private static final String[] STATUSES = {"TODO", "SCHEDULED", "DONE"};
+  private static final int CUSTOM_STATUS = STATUSES.length;
+
+  private final ByteBuffer map;
+  private final long logOffset;
+  private final long logRecords;
+  private final int taskCount;
+  private final int queueLength;
+  private final int tables;
+  private final int archiveSegments;
+
+  private SnapshotFile(ByteBuffer map) throws IOException {
+    this.map = map;
+    if (map.capacity() < HEADER || map.getInt(0) != MAGIC) throw new IOException("Not a snapshot file");
+    if (map.getInt(4) != VERSION) throw new IOException("Unsupported snapshot version " + map.getInt(4));
+    logOffset = map.getLong(8);
+    logRecords = map.getLong(16);
+    taskCount = map.getInt(24);
+    queueLength = map.getInt(28);
+    tables = map.getInt(32);
+    archiveSegments = map.getInt(36);
+  }
+
+  /**
+   * Maps a snapshot file.
+   * @param path the snapshot
+   * @return the mapped snapshot
+   * @throws IOException if the file cannot be read or is not a snapshot
+   */
+  public static SnapshotFile open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) throw new IOException("Snapshot larger than 2 GB");
+      return new SnapshotFile(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes a snapshot. The file is written next to the target and renamed
+   * over it once it is on disk, so a crash leaves either the old or the new
+   * snapshot.
+   *
+   * @param path the snapshot file
+   * @param tasks the tasks in list order
+   * @param queue the scheduled tasks in queue order (each also in tasks)
+   * @param dependencies the dependency graph
+   * @param logOffset the length of the write-ahead log the snapshot covers
+   * @param logRecords the number of log records the snapshot covers
+   * @param archiveSegments the number of TaskArchive segments in this state
+   * @throws IOException if the snapshot cannot be written
+   */
+  public static void write(Path path, TaskList<? extends TaskItem> tasks, TaskList<? extends TaskItem> queue,
+      TaskDependencyGraph dependencies, long logOffset, long logRecords, int archiveSegments) throws IOException {
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+      out.write(new byte[HEADER]);
+      int[] offsets = new int[tasks.size()];
+      IdentityHashMap<TaskItem, Integer> index = new IdentityHashMap<>();
+      for (int i = 0; i < tasks.size(); i++) {
+        TaskItem t = tasks.get(i);
+        offsets[i] = out.size();
+        index.putIfAbsent(t, i);
+        writeTask(out, t);
+      }
+      int tableStart = out.size();
+      for (int offset : offsets) out.writeInt(offset);
+      int queued = 0;
+      for (int i = 0; i < queue.size(); i++) {
+        if (index.containsKey(queue.get(i))) queued++;
+      }
+      out.writeInt(queued);
+      for (int i = 0; i < queue.size(); i++) {
+        Integer at = index.get(queue.get(i));
+        if (at != null) out.writeInt(at);
+      }
+      dependencies.write(out);
+      out.flush();
+      if (out.size() == Integer.MAX_VALUE) throw new IOException("Snapshot larger than 2 GB");
+
+      ByteBuffer header = ByteBuffer.allocate(HEADER);
+      header.putInt(MAGIC).putInt(VERSION).putLong(logOffset).putLong(logRecords)
+          .putInt(tasks.size()).putInt(queued).putInt(tableStart).putInt(archiveSegments).flip();
+      while (header.hasRemaining()) channel.write(header, header.position());
+      channel.force(true);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /** The write-ahead log length this snapshot covers; replay resumes here. */
+  public long logOffset() {
+    return logOffset;
+  }
+
+  /** The number of log records this snapshot covers. */
+  public long logRecords() {
+    return logRecords;
+  }
+
+  public int taskCount() {
+    return taskCount;
+  }
+
+  /** The number of TaskArchive segments that belong to this state. */
+  public int archiveSegments() {
+    return archiveSegments;
+  }
+
+  /** A task whose fields are read from this snapshot on first use. */
+  public TaskItem task(int record) {
+    return new TaskItem(this, record);
+  }
+
+  /** The record numbers of the scheduled tasks, in queue order. */
+  public int[] queue() {
+    int[] queue = new int[queueLength];
+    int at = tables + 4 * taskCount + 4;
+    for (int i = 0; i < queueLength; i++) {
+      queue[i] = map.getInt(at + 4 * i);
+    }
+    return queue;
+  }
+
+  /** Restores the dependency graph stored in this snapshot into an empty graph. */
+  public void readDependencies(TaskDependencyGraph dependencies) {
+    ByteBuffer in = map.duplicate();
+    in.position(tables + 4 * taskCount + 4 + 4 * queueLength);
+    dependencies.read(in);
+  }
+
+  // Field access for TaskItem.load(); absolute reads, so lazy tasks can load on any thread
+
+  String id(int record) {
+    return stringAt(offset(record) + 5, 0);
+  }
+
+  String description(int record) {
+    return stringAt(offset(record) + 5, 1);
+  }
+
+  String dueDate(int record) {
+    return stringAt(offset(record) + 5, 2);
+  }
+
+  int priority(int record) {
+    return map.getInt(offset(record) + 1);
+  }
+
+  String status(int record) {
+    int code = map.get(offset(record));
+    return code == CUSTOM_STATUS ? stringAt(offset(record) + 5, 3) : STATUSES[code];
+  }
+
+  static void writeString(DataOutputStream out, String s) throws IOException {
+    if (s == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  static String readString(ByteBuffer in) {
+    int len = in.getInt();
+    if (len < 0) return null;
+    byte[] bytes = new byte[len];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Writes one task record: status code, priority, then id, description,
+   * due date (and a custom status) as length + UTF-8. TaskArchive segments
+   * use the same record layout.
+   */
+  static void writeTask(DataOutputStream out, TaskItem t) throws IOException {
+    int code = statusCode(t.getStatus());
+    out.writeByte(code);
+    out.writeInt(t.getPriority());
+    writeString(out, t.getId());
+    writeString(out, t.getDescription());
+    writeString(out, t.getDueDate());
+    if (code == CUSTOM_STATUS) writeString(out, t.getStatus());
+  }
+
+  /** Decodes the whole task record at position at. */
+  static TaskItem readTask(ByteBuffer map, int at) {
+    TaskItem task = new TaskItem(stringAt(map, at + 5, 0), stringAt(map, at + 5, 1), stringAt(map, at + 5, 2),
+        map.getInt(at + 1));
+    int code = map.get(at);
+    task.setStatus(code == CUSTOM_STATUS ? stringAt(map, at + 5, 3) : STATUSES[code]);
+    return task;
+  }
+
+  /** The id of the task record at position at. */
+  static String taskId(ByteBuffer map, int at) {
+    return stringAt(map, at + 5, 0);
+  }
+
+  /** The description of the task record at position at. */
+  static String taskDescription(ByteBuffer map, int at) {
+    return stringAt(map, at + 5, 1);
+  }
+
+  /** The position just after the task record at position at. */
+  static int skipTask(ByteBuffer map, int at) {
+    int strings = map.get(at) == CUSTOM_STATUS ? 4 : 3;
+    at += 5;
+    for (int i = 0; i < strings; i++) {
+      at += 4 + Math.max(0, map.getInt(at));
+    }
+    return at;
+  }
+
+  private int offset(int record) {
+    if (record < 0 || record >= taskCount)
+      throw new IndexOutOfBoundsException("Record " + record + " out of bounds for length " + taskCount);
+    return map.getInt(tables + 4 * record);
+  }
+
+  private String stringAt(int at, int n) {
+    return stringAt(map, at, n);
+  }
+
+  // The n-th string starting at position at
+  private static String stringAt(ByteBuffer map, int at, int n) {
+    for (int i = 0; i < n; i++) {
+      at += 4 + Math.max(0, map.getInt(at));
+    }
+    int len = map.getInt(at);
+    if (len < 0) return null;
+    byte[] bytes = new byte[len];
+    map.get(at + 4, bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static int statusCode(String status) {
+    for (int i = 0; i < STATUSES.length; i++) {
+      if (STATUSES[i].equals(status)) return i;
+    }
+    return CUSTOM_STATUS;
+  }
+}
+
+//------------------------------
+//BloomFilter
+//------------------------------
+
+/**
+ * BloomFilter answers "might this ID be in the set?" with no false
+ * negatives and about 1% false positives at 10 bits per ID. TaskArchive
+ * keeps one per segment so that a lookup skips segments that cannot hold
+ * the ID without touching them.
+ */
+class BloomFilter {
+  private static final int BITS_PER_KEY = 10;
+  private static final int HASHES = 7;
+
+  private final long[] words;
+
+  /** An empty filter sized for the given number of IDs. */
+  public BloomFilter(int expected) {
+    words = new long[Math.max(1, (int) (((long) expected * BITS_PER_KEY + 63) / 64))];
+  }
+
+  private BloomFilter(long[] words) {
+    this.words = words;
+  }
+
+  public void add(String id) {
+    long bits = 64L * words.length;
+    int h1 = mix(id.hashCode()), h2 = mix(h1) | 1;
+    for (int i = 0; i < HASHES; i++) {
+      long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+      words[(int) (bit >>> 6)] |= 1L << bit;
+    }
+  }
+
+  public boolean mightContain(String id) {
+    long bits = 64L * words.length;
+    int h1 = mix(id.hashCode()), h2 = mix(h1) | 1;
+    for (int i = 0; i < HASHES; i++) {
+      long bit = Integer.toUnsignedLong(h1 + i * h2) % bits;
+      if ((words[(int) (bit >>> 6)] & (1L << bit)) == 0) return false;
+    }
+    return true;
+  }
+
+  void write(DataOutputStream out) throws IOException {
+    out.writeInt(words.length);
+    for (long w : words) out.writeLong(w);
+  }
+
+  static BloomFilter read(ByteBuffer in) {
+    long[] words = new long[in.getInt()];
+    for (int i = 0; i < words.length; i++) words[i] = in.getLong();
+    return new BloomFilter(words);
+  }
+
+  // Spread the bits of String.hashCode() (murmur3 finalizer)
+  private static int mix(int h) {
+    h ^= h >>> 16;
+    h *= 0x85ebca6b;
+    h ^= h >>> 13;
+    h *= 0xc2b2ae35;
+    h ^= h >>> 16;
+    return h;
+  }
+}
+
+//------------------------------
+//ArchiveSegment
+//------------------------------
+
+/**
+ * One immutable, memory-mapped archive segment: task records sorted by ID,
+ * a sparse index holding every INDEX_STEP-th ID, and a Bloom filter of all
+ * IDs. Only the index and the filter are kept on the heap.
+ *
+ * <p>Layout (big-endian):</p>
+ * <pre>
+ *   header   magic, task count
+ *   records  sorted by ID, in the SnapshotFile record layout
+ *   index    entry count, then (ID, record offset) per entry
+ *   filter   BloomFilter words
+ *   footer   index offset, filter offset, magic
+ * </pre>
+ */
+class ArchiveSegment {
+  private static final int MAGIC = 0x54444131; // "TDA1"
+  static final int INDEX_STEP = 32;
+
+  private final ByteBuffer map;
+  private final int count;
+  private final int recordsEnd;
+  private final String[] indexIds;
+  private final int[] indexOffsets;
+  private final BloomFilter filter;
+
+  private ArchiveSegment(ByteBuffer map) throws IOException {
+    this.map = map;
+    int end = map.capacity();
+    if (end < 20 || map.getInt(0) != MAGIC || map.getInt(end - 4) != MAGIC)
+      throw new IOException("Not an archive segment");
+    count = map.getInt(4);
+    recordsEnd = map.getInt(end - 12);
+    ByteBuffer in = map.duplicate();
+    in.position(recordsEnd);
+    int entries = in.getInt();
+    indexIds = new String[entries];
+    indexOffsets = new int[entries];
+    for (int i = 0; i < entries; i++) {
+      indexIds[i] = SnapshotFile.readString(in);
+      indexOffsets[i] = in.getInt();
+    }
+    in.position(map.getInt(end - 8));
+    filter = BloomFilter.read(in);
+  }
+
+  /** Maps a segment file and loads its index and filter. */
+  static ArchiveSegment open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) throw new IOException("Archive segment larger than 2 GB");
+      return new ArchiveSegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes tasks as a new segment file (through a temp file and a rename).
+   * @param tasks the tasks, sorted by ID
+   */
+  static void write(Path path, TaskList<? extends TaskItem> tasks) throws IOException {
+    Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+    BloomFilter filter = new BloomFilter(tasks.size());
+    TaskList<String> ids = new TaskList<>();
+    TaskList<Integer> offsets = new TaskList<>();
+    try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+      out.writeInt(MAGIC);
+      out.writeInt(tasks.size());
+      for (int i = 0; i < tasks.size(); i++) {
+        TaskItem t = tasks.get(i);
+        if (i % INDEX_STEP == 0) {
+          ids.add(t.getId());
+          offsets.add(out.size());
+        }
+        filter.add(t.getId());
+        SnapshotFile.writeTask(out, t);
+      }
+      int indexStart = out.size();
+      out.writeInt(ids.size());
+      for (int i = 0; i < ids.size(); i++) {
+        SnapshotFile.writeString(out, ids.get(i));
+        out.writeInt(offsets.get(i));
+      }
+      int filterStart = out.size();
+      filter.write(out);
+      out.writeInt(indexStart);
+      out.writeInt(filterStart);
+      out.writeInt(MAGIC);
+      out.flush();
+      if (out.size() == Integer.MAX_VALUE) throw new IOException("Archive segment larger than 2 GB");
+      channel.force(true);
+    }
+    Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  public int size() {
+    return count;
+  }
+
+  /**
+   * Finds a task by ID: the Bloom filter first, then a binary search of the
+   * sparse index and a scan of at most one index step of records.
+   * @return the task, or null if it is not in this segment
+   */
+  public TaskItem find(String id) {
+    if (count == 0 || !filter.mightContain(id)) return null;
+    // last index entry whose ID is below id; equal IDs may start in the block before
+    int lo = 0, hi = indexIds.length - 1, from = 0;
+    while (lo <= hi) {
+      int mid = (lo + hi) >>> 1;
+      if (indexIds[mid].compareTo(id) < 0) {
+        from = mid;
+        lo = mid + 1;
+      } else {
+        hi = mid - 1;
+      }
+    }
+    for (int at = indexOffsets[from]; at < recordsEnd; at = SnapshotFile.skipTask(map, at)) {
+      int cmp = SnapshotFile.taskId(map, at).compareTo(id);
+      if (cmp == 0) return SnapshotFile.readTask(map, at);
+      if (cmp > 0) return null;
+    }
+    return null;
+  }
+
+  /** Adds every task whose description contains keyword to results. */
+  public void search(String keyword, TaskList<TaskItem> results) {
+    for (int at = 8; at < recordsEnd; at = SnapshotFile.skipTask(map, at)) {
+      String description = SnapshotFile.taskDescription(map, at);
+      if (description != null && description.contains(keyword)) results.add(SnapshotFile.readTask(map, at));
+    }
+  }
+}
+
+//------------------------------
+//TaskArchive
+//------------------------------
+
+/**
+ * TaskArchive is the on-disk tier for DONE tasks: a directory of immutable
+ * ArchiveSegment files, one per archive operation, numbered from 1.
+ * <p>
+ * Which segments belong to the current state is the manager's decision
+ * (it is saved in snapshots and rebuilt by log replay), so segment files
+ * beyond segmentCount() are ignored and overwritten when that number is
+ * reached again. Lookups go from the newest segment to the oldest.
+ * </p>
+ */
+class TaskArchive {
+  private final Path dir;
+  private final TaskList<ArchiveSegment> segments = new TaskList<>();
+  private int segmentCount;
+
+  /**
+   * @param dir the archive directory (created if missing)
+   * @throws IOException if the directory cannot be created
+   */
+  public TaskArchive(Path dir) throws IOException {
+    this.dir = Files.createDirectories(dir);
+  }
+
+  /** The number of segments in the current state. */
+  public synchronized int segmentCount() {
+    return segmentCount;
+  }
+
+  /**
+   * Makes segments 1..count the current state, e.g. after loading a snapshot.
+   * @throws IOException if one of the segments cannot be opened
+   */
+  public synchronized void setSegmentCount(int count) throws IOException {
+    while (segments.size() > count) segments.removeAt(segments.size() - 1);
+    while (segments.size() < count) segments.add(ArchiveSegment.open(path(segments.size() + 1)));
+    segmentCount = count;
+  }
+
+  /**
+   * Writes tasks as the next segment.
+   * @param tasks the tasks to archive (any order)
+   * @throws IOException if the segment cannot be written
+   */
+  public synchronized void append(TaskList<? extends TaskItem> tasks) throws IOException {
+    TaskItem[] sorted = new TaskItem[tasks.size()];
+    for (int i = 0; i < sorted.length; i++) sorted[i] = tasks.get(i);
+    Arrays.sort(sorted, (a, b) -> a.getId().compareTo(b.getId()));
+    TaskList<TaskItem> records = new TaskList<>();
+    for (TaskItem t : sorted) records.add(t);
+    Path path = path(segmentCount + 1);
+    ArchiveSegment.write(path, records);
+    segments.add(ArchiveSegment.open(path));
+    segmentCount++;
+  }
+
+  /** Finds an archived task by ID, newest segment first; null if not archived. */
+  public synchronized TaskItem find(String id) {
+    for (int i = segments.size() - 1; i >= 0; i--) {
+      TaskItem found = segments.get(i).find(id);
+      if (found != null) return found;
+    }
+    return null;
+  }
+
+  /** Adds every archived task whose description contains keyword to results, oldest segment first. */
+  public synchronized void search(String keyword, TaskList<TaskItem> results) {
+    for (int i = 0; i < segments.size(); i++) {
+      segments.get(i).search(keyword, results);
+    }
+  }
+
+  /** The number of archived tasks. */
+  public synchronized int size() {
+    int total = 0;
+    for (int i = 0; i < segments.size(); i++) total += segments.get(i).size();
+    return total;
+  }
+
+  private Path path(int segment) {
+    return dir.resolve(String.format("segment-%06d.seg", segment));
+  }
+}
+
+//------------------------------
+//ItaskReader
+//------------------------------
+
+/**
+ * A stream of tasks read from a file, one at a time, for bulk import.
+ * Implementations keep only the current row in memory.
+ */
+interface ItaskReader extends Closeable {
+
+	/**
+	 * Reads the next task.
+	 * @return the task, or null at the end of the input
+	 * @throws IOException if the input cannot be read or a row is malformed
+	 *         (the message names the line)
+	 */
+	TaskItem next() throws IOException;
+
+	/**
+	 * Opens a task file, choosing the format from its extension: ".csv" for
+	 * CSV, anything else for JSON Lines.
+	 * @param path the file to read
+	 * @return a reader for the file
+	 * @throws IOException if the file cannot be opened
+	 */
+	static ItaskReader open(Path path) throws IOException {
+		if (!Files.exists(path)) throw new NoSuchFileException(path.toString(), null, "file not found");
+		Reader in = Files.newBufferedReader(path, StandardCharsets.UTF_8);
+		return path.toString().toLowerCase().endsWith(".csv") ? new CsvTaskReader(in) : new JsonLinesTaskReader(in);
+	}
+}
+
+//------------------------------
+//ItaskWriter
+//------------------------------
+
+/**
+ * A stream of tasks written to a file, one at a time, for bulk export.
+ */
+interface ItaskWriter extends Closeable {
+
+	/**
+	 * Writes one task.
+	 * @param task the task to write
+	 * @throws IOException if the output cannot be written
+	 */
+	void write(TaskItem task) throws IOException;
+
+	/**
+	 * Creates (or replaces) a task file, choosing the format from its
+	 * extension like ItaskReader.open().
+	 * @param path the file to write
+	 * @return a writer for the file
+	 * @throws IOException if the file cannot be created
+	 */
+	static ItaskWriter create(Path path) throws IOException {
+		Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8);
+		return path.toString().toLowerCase().endsWith(".csv") ? new CsvTaskWriter(out) : new JsonLinesTaskWriter(out);
+	}
+}
+
+//------------------------------
+//CsvTaskReader
+//------------------------------
+
+/**
+ * Reads tasks from CSV with the columns id, description, dueDate, priority
+ * and an optional status (default TODO). A first row starting with "id" is
+ * taken as the header and skipped.
+ * <p>
+ * Fields may be quoted with '"' (a quote inside is doubled) and quoted
+ * fields may hold commas and line breaks. Rows end at "\n" or "\r\n". The
+ * input is read through one fixed-size char buffer.
+ * </p>
+ */
+class CsvTaskReader implements ItaskReader {
+  private final Reader in;
+  private final char[] buf = new char[1 << 16];
+  private int pos, limit;
+  private final StringBuilder field = new StringBuilder();
+  private final TaskList<String> row = new TaskList<>();
+  private int line = 1;
+  private boolean first = true;
+
+  public CsvTaskReader(Reader in) {
+    this.in = in;
+  }
+
+  @Override
+  public TaskItem next() throws IOException {
+    while (true) {
+      int rowLine = line;
+      if (!readRow()) return null;
+      if (first) {
+        first = false;
+        if ("id".equalsIgnoreCase(row.get(0).trim())) continue;
+      }
+      if (row.size() == 1 && row.get(0).isEmpty()) continue; // blank line
+      if (row.size() < 4 || row.size() > 5)
+        throw new IOException("Line " + rowLine + ": expected 4 or 5 columns, found " + row.size());
+      TaskItem task;
+      try {
+        task = new TaskItem(row.get(0), row.get(1), row.get(2), Integer.parseInt(row.get(3).trim()));
+      } catch (NumberFormatException ex) {
+        throw new IOException("Line " + rowLine + ": bad priority \"" + row.get(3) + "\"");
+      }
+      if (row.size() == 5 && !row.get(4).isEmpty()) task.setStatus(row.get(4));
+      return task;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  // Reads one row into row; false at the end of input
+  private boolean readRow() throws IOException {
+    while (row.size() > 0) row.removeAt(row.size() - 1);
+    int c = read();
+    if (c < 0) return false;
+    field.setLength(0);
+    boolean quoted = false;
+    while (true) {
+      if (quoted) {
+        if (c < 0) throw new IOException("Line " + line + ": unterminated quoted field");
+        if (c == '"') {
+          if (peek() == '"') {
+            field.append('"');
+            pos++;
+          } else {
+            quoted = false;
+          }
+        } else {
+          if (c == '\n') line++;
+          field.append((char) c);
+        }
+      } else if (c == '"' && field.length() == 0) {
+        quoted = true;
+      } else if (c == ',') {
+        row.add(field.toString());
+        field.setLength(0);
+      } else if (c < 0 || c == '\n' || (c == '\r' && peek() == '\n')) {
+        if (c == '\r') pos++;
+        if (c >= 0) line++;
+        row.add(field.toString());
+        return true;
+      } else {
+        field.append((char) c);
+      }
+      c = read();
+    }
+  }
+
+  private int read() throws IOException {
+    if (pos == limit && !fill()) return -1;
+    return buf[pos++];
+  }
+
+  private int peek() throws IOException {
+    if (pos == limit && !fill()) return -1;
+    return buf[pos];
+  }
+
+  private boolean fill() throws IOException {
+    int n = in.read(buf, 0, buf.length);
+    if (n <= 0) return false;
+    pos = 0;
+    limit = n;
+    return true;
+  }
+}
+
+//------------------------------
+//CsvTaskWriter
+//------------------------------
+
+/**
+ * Writes tasks as CSV in the format CsvTaskReader reads, header first.
+ * Fields that hold a comma, a quote, a line break or outer spaces are quoted.
+ */
+class CsvTaskWriter implements ItaskWriter {
+  private final Writer out;
+  private boolean header = true;
+
+  public CsvTaskWriter(Writer out) {
+    this.out = out;
+  }
+
+  @Override
+  public void write(TaskItem task) throws IOException {
+    if (header) {
+      out.write("id,description,dueDate,priority,status\n");
+      header = false;
+    }
+    field(task.getId());
+    out.write(',');
+    field(task.getDescription());
+    out.write(',');
+    field(task.getDueDate());
+    out.write(',');
+    out.write(Integer.toString(task.getPriority()));
+    out.write(',');
+    field(task.getStatus());
+    out.write('\n');
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (header) out.write("id,description,dueDate,priority,status\n");
+    out.close();
+  }
+
+  private void field(String s) throws IOException {
+    if (s == null) return;
+    boolean quote = !s.isEmpty() && (s.charAt(0) == ' ' || s.charAt(s.length() - 1) == ' ');
+    for (int i = 0; i < s.length() && !quote; i++) {
+      char c = s.charAt(i);
+      quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+    }
+    if (!quote) {
+      out.write(s);
+      return;
+    }
+    out.write('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c == '"') out.write('"');
+      out.write(c);
+    }
+    out.write('"');
+  }
+}
+
+//------------------------------
+//JsonLinesTaskReader
+//------------------------------
+
+/**
+ * Reads tasks from JSON Lines: one flat object per line with the keys id,
+ * description, dueDate, priority and (optional) status. id and priority are
+ * required; a missing or null description or dueDate is read as "", as an
+ * empty CSV field is. Other keys are ignored and blank lines are skipped.
+ */
+class JsonLinesTaskReader implements ItaskReader {
+  private final BufferedReader in;
+  private final StringBuilder sb = new StringBuilder();
+  private String text;
+  private int pos;
+  private int line;
+
+  public JsonLinesTaskReader(Reader in) {
+    this.in = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, 1 << 16);
+  }
+
+  @Override
+  public TaskItem next() throws IOException {
+    while ((text = in.readLine()) != null) {
+      line++;
+      pos = 0;
+      skipSpaces();
+      if (pos < text.length()) return object();
+    }
+    return null;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  private TaskItem object() throws IOException {
+    String id = null, description = null, dueDate = null, status = null;
+    Integer priority = null;
+    expect('{');
+    skipSpaces();
+    if (peek() != '}') {
+      while (true) {
+        skipSpaces();
+        String key = string();
+        skipSpaces();
+        expect(':');
+        skipSpaces();
+        switch (key) {
+          case "id": id = stringOrNull(); break;
+          case "description": description = stringOrNull(); break;
+          case "dueDate": dueDate = stringOrNull(); break;
+          case "status": status = stringOrNull(); break;
+          case "priority": priority = number(); break;
+          default: skipValue();
+        }
+        skipSpaces();
+        if (peek() == ',') {
+          pos++;
+          continue;
+        }
+        break;
+      }
+    }
+    expect('}');
+    skipSpaces();
+    if (pos < text.length()) throw error("unexpected text after the object");
+    if (id == null) throw error("missing \"id\"");
+    if (priority == null) throw error("missing \"priority\"");
+    TaskItem task = new TaskItem(id, description == null ? "" : description, dueDate == null ? "" : dueDate,
+        priority);
+    task.setStatus(status);
+    return task;
+  }
+
+  private String stringOrNull() throws IOException {
+    if (text.startsWith("null", pos)) {
+      pos += 4;
+      return null;
+    }
+    return string();
+  }
+
+  private String string() throws IOException {
+    expect('"');
+    sb.setLength(0);
+    while (pos < text.length()) {
+      char c = text.charAt(pos++);
+      if (c == '"') return sb.toString();
+      if (c != '\\') {
+        sb.append(c);
+        continue;
+      }
+      if (pos >= text.length()) break;
+      char e = text.charAt(pos++);
+      switch (e) {
+        case 'n': sb.append('\n'); break;
+        case 'r': sb.append('\r'); break;
+        case 't': sb.append('\t'); break;
+        case 'b': sb.append('\b'); break;
+        case 'f': sb.append('\f'); break;
+        case 'u':
+          if (pos + 4 > text.length()) throw error("bad \\u escape");
+          try {
+            sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+          } catch (NumberFormatException ex) {
+            throw error("bad \\u escape");
+          }
+          pos += 4;
+          break;
+        default: sb.append(e); // \" \\ \/
+      }
+    }
+    throw error("unterminated string");
+  }
+
+  private int number() throws IOException {
+    int start = pos;
+    if (peek() == '-') pos++;
+    while (pos < text.length() && Character.isDigit(text.charAt(pos))) pos++;
+    try {
+      return Integer.parseInt(text.substring(start, pos));
+    } catch (NumberFormatException ex) {
+      throw error("bad priority");
+    }
+  }
+
+  // Skips a value of an ignored key (strings, numbers, true/false/null)
+  private void skipValue() throws IOException {
+    if (peek() == '"') {
+      string();
+      return;
+    }
+    while (pos < text.length() && ",} \t".indexOf(text.charAt(pos)) < 0) pos++;
+  }
+
+  private void expect(char c) throws IOException {
+    if (peek() != c) throw error("expected '" + c + "'");
+    pos++;
+  }
+
+  private int peek() {
+    return pos < text.length() ? text.charAt(pos) : -1;
+  }
+
+  private void skipSpaces() {
+    while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) pos++;
+  }
+
+  private IOException error(String message) {
+    return new IOException("Line " + line + ": " + message);
+  }
+}
+
+//------------------------------
+//JsonLinesTaskWriter
+//------------------------------
+
+/**
+ * Writes tasks as JSON Lines in the format JsonLinesTaskReader reads.
+ */
+class JsonLinesTaskWriter implements ItaskWriter {
+  private final Writer out;
+
+  public JsonLinesTaskWriter(Writer out) {
+    this.out = out;
+  }
+
+  @Override
+  public void write(TaskItem task) throws IOException {
+    out.write("{\"id\":");
+    string(task.getId());
+    out.write(",\"description\":");
+    string(task.getDescription());
+    out.write(",\"dueDate\":");
+    string(task.getDueDate());
+    out.write(",\"priority\":");
+    out.write(Integer.toString(task.getPriority()));
+    out.write(",\"status\":");
+    string(task.getStatus());
+    out.write("}\n");
+  }
+
+  @Override
+  public void close() throws IOException {
+    out.close();
+  }
+
+  private void string(String s) throws IOException {
+    if (s == null) {
+      out.write("null");
+      return;
+    }
+    out.write('"');
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      switch (c) {
+        case '"': out.write("\\\""); break;
+        case '\\': out.write("\\\\"); break;
+        case '\n': out.write("\\n"); break;
+        case '\r': out.write("\\r"); break;
+        case '\t': out.write("\\t"); break;
+        default:
+          if (c < 0x20) out.write(String.format("\\u%04x", (int) c));
+          else out.write(c);
+      }
+    }
+    out.write('"');
+  }
+}
+
+//------------------------------
+//TaskItem
+//------------------------------
+
+/**
+ * TaskItem represents one task in the to-do list.
+ *
+ * <p>Students: complete and update this class if needed.</p>
+ * <ul>
+ *   <li>Each task has an id, description, due date, priority, and status.</li>
+ *   <li>Status can be "TODO", "SCHEDULED", or "DONE".</li>
+ *   <li>You may add extra helper methods if your design needs them.</li>
+ *   <li>This class also implements Comparable — think about how tasks should be compared.</li>
+ * </ul>
+ */
+class TaskItem implements ListItem, Comparable<TaskItem> {
+	private String id;
+	private String description;
+	private String dueDate;
+	private int priority;
+	private String status; // "TODO", "SCHEDULED" and "DONE"
+	/**
+	 * Snapshot the fields are still to be read from, or null once they are
+	 * loaded. Volatile so that a reader which sees null also sees the fields
+	 * another reader loaded (ConcurrentToDoListManager reads from many threads).
+	 */
+	private volatile SnapshotFile source;
+	private int record;
+
+  // Constructor used by Solution
+	public TaskItem(String id, String description, String dueDate, int priority) {
+		this.id = id;
+		this.description = description;
+		this.dueDate = dueDate;
+		this.priority = priority;
+		this.status = "TODO";
+	}
+
+	// Task loaded from a snapshot: its fields are read the first time they are used
+	TaskItem(SnapshotFile source, int record) {
+		this.source = source;
+		this.record = record;
+	}
+
+	// copy constructor
+	public TaskItem(TaskItem other) {
+		other.load();
+		this.id = other.id;
+		this.description = other.description;
+		this.dueDate = other.dueDate;
+		this.priority = other.priority;
+		this.status = other.status;
+	}
+
+	// Reads the fields from the snapshot on first use
+	private void load() {
+		SnapshotFile s = source;
+		if (s == null) return;
+		id = s.id(record);
+		description = s.description(record);
+		dueDate = s.dueDate(record);
+		priority = s.priority(record);
+		status = s.status(record);
+		source = null;
+	}
+
+	//Getters
+  @Override
+	public String getId() { 
+    load();
+    return id; 
+  }
+
+	@Override
+	public String getDescription() { 
+    load();
+    return description; 
+  }
+
+	@Override
+	public String getDueDate() { 
+    load();
+    return dueDate; 
+  }
+
+	@Override
+	public int getPriority() { 
+    load();
+    return priority; 
+  }
+
+	public String getStatus() { 
+    load();
+    return status; 
+  }
+
+	// setters
+	public void setDescription(String description) { 
+    load();
+    this.description = description; 
+  }
+
+	public void setDueDate(String dueDate) { 
+    load();
+    this.dueDate = dueDate; 
+  }
+
+	public void setPriority(int priority) { 
+    load();
+    this.priority = priority; 
+  }
+
+	public void setStatus(String status) { 
+    if (status == null) 
+      return;
+    load();
+    this.status = status; 
+  }
+
+	//toString for output
+  // Format: id;description;dueDate;priority;status
+  @Override
+  public String toString() {
+    load();
+    return "ID: "+ id +", Desc: " +description+", Due: " + dueDate+", Priority: " +priority+", Status: "+status;
+  }
+
+	//Tasks are compared by description (case-insensitive), then by due date, then by priority, then by ID
+  @Override
+public int compareTo(TaskItem other) {
+    return Integer.compare(getPriority(), other.getPriority());
+}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (!(o instanceof TaskItem)) return false;
+		TaskItem t = (TaskItem) o;
+		return getId().equals(t.getId());
+	}
+
+	// Must agree with equals(): tasks are the same when their IDs match
+	@Override
+	public int hashCode() {
+		load();
+		return id == null ? 0 : id.hashCode();
+	}
+}
+
+//------------------------------
+//TaskList
+//------------------------------
+
+/**
+ * TaskList is a simple dynamic array (like a small ArrayList).
+ * <p>
+ * Students: You must complete this class as needed for the project.
+ * It stores items and grows when more space is needed.
+ * </p>
+ *
+ * <p>Hints:</p>
+ * <ul>
+ *   <li>Use an internal array to store items.</li>
+ *   <li>Double the array size when it becomes full.</li>
+ *   <li>Follow the IarrayList interface rules carefully.</li>
+ *   <li>Make sure removeAt() shifts items correctly.</li>
+ *   <li>Make sure to use generics safely when returning T.</li>
+ * </ul>
+ *
+ * <p>removeIf() removes every matching item in one pass with a write cursor,
+ * instead of one removeAt() shift per item. In tombstone mode a removal only
+ * marks its slot; the slots are compacted in one pass once more than
+ * MAX_GARBAGE of them are marked, or when an index at or past the first mark
+ * is used. Because get() may then compact, a list in tombstone mode must not
+ * be read by several threads at once.</p>
+ *
+ * <p>The list can be used in for-each loops and streams. Its iterator and
+ * spliterator are fail-fast: adding, inserting or removing items while one
+ * is in use makes it throw ConcurrentModificationException (set() does not).
+ * parallelStream() splits the list into index ranges, so filters, counts and
+ * aggregations over a large list can run on every core; the list must not
+ * change while the stream runs.</p>
+ *
+ * @param <T> The type of item stored inside this list.
+ */
+class TaskList<T> implements IarrayList<T>, Iterable<T> {
+  private T[] data;
+  private int size;     // slots in use, tombstones included
+  private static final int INITIAL_CAP = 8;
+  /** Fills the slot of a removed item in tombstone mode */
+  private static final Object TOMBSTONE = new Object();
+  /** Fraction of the used slots that may be tombstones before compacting */
+  private static final double MAX_GARBAGE = 0.25;
+  private boolean tombstones;
+  private int dead;      // tombstones among the used slots
+  private int firstDead; // slot of the first tombstone, if dead > 0
+  private int modCount;  // bumped by every add or removal, for fail-fast iteration
+  
+  @SuppressWarnings("unchecked")
+  public TaskList() {
+    data = (T[]) new Object[INITIAL_CAP];  
+    size = 0;
+  }
+  
+  @Override
+  public void add(T item) {
+    if (size >= data.length) {
+      compact();
+      if (size >= data.length) resize();
+    }
+    data[size++] = item;
+    modCount++;
+  }
+  
+  @Override
+  public T get(int index) {
+    if (index < 0 || index >= size - dead) 
+      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + (size - dead));
+    if (dead > 0 && index >= firstDead) compact();
+    return data[index];  // data is T[] so no cast needed
+  }
+  
+  @Override
+  public void set(int index, T item) {
+    if (index < 0 || index >= size - dead) 
+      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + (size - dead));
+    if (dead > 0 && index >= firstDead) compact();
+    data[index] = item;
+  }
+  
+  @Override
+  public T removeAt(int index) {
+    if (index < 0 || index >= size - dead) 
+      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + (size - dead));
+    if (dead > 0 && index >= firstDead) compact();
+    T removed = data[index];  // No cast needed
+    removeSlot(index);
+    return removed;
+  }
+
+  @Override
+  public void insert(int index, T item) {
+    if (index < 0 || index > size - dead) 
+      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + (size - dead));
+    compact();
+    if (size >= data.length) resize();
+    // shift elements right to open a gap
+    System.arraycopy(data, index, data, index + 1, size - index);
+    data[index] = item;
+    size++;
+    modCount++;
+  }
+
+  /**
+   * Removes the first item that matches, without shifting the rest in
+   * tombstone mode.
+   * @param filter which item to remove
+   * @return the removed item, or null if none matched
+   */
+  public T removeFirst(Predicate<? super T> filter) {
+    for (int i = 0; i < size; i++) {
+      T item = data[i];
+      if (item != TOMBSTONE && filter.test(item)) {
+        removeSlot(i);
+        return item;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Removes every item that matches, keeping the order of the rest, in one
+   * pass over the array.
+   * @param filter which items to remove
+   * @return the number of items removed
+   */
+  public int removeIf(Predicate<? super T> filter) {
+    return removeIf(filter, null);
+  }
+
+  /**
+   * Removes every item that matches and hands each one to onRemove, in list
+   * order. If filter throws, the items it has not seen yet stay in the list.
+   * @param filter which items to remove
+   * @param onRemove called for each removed item, or null
+   * @return the number of items removed
+   */
+  public int removeIf(Predicate<? super T> filter, Consumer<? super T> onRemove) {
+    int live = size - dead;
+    int w = 0;
+    int r = 0;
+    try {
+      for (; r < size; r++) {
+        T item = data[r];
+        if (item == TOMBSTONE) continue;
+        if (filter.test(item)) {
+          if (onRemove != null) onRemove.accept(item);
+        } else {
+          data[w++] = item;
+        }
+      }
+    } finally {
+      // keep whatever the filter did not get to
+      for (; r < size; r++) {
+        if (data[r] != TOMBSTONE) data[w++] = data[r];
+      }
+      for (int i = w; i < size; i++) data[i] = null; // prevent memory leak
+      size = w;
+      dead = 0;
+      modCount++;
+    }
+    return live - w;
+  }
+
+  /**
+   * Turns tombstone mode on or off. Turning it off compacts the list.
+   * @param on true to mark removed slots instead of shifting
+   */
+  public void setTombstones(boolean on) {
+    if (!on) compact();
+    tombstones = on;
+  }
+
+  /** Whether removals mark their slot instead of shifting the array. */
+  public boolean usesTombstones() {
+    return tombstones;
+  }
+
+  /**
+   * Returns a fail-fast iterator over the items in order. Its remove()
+   * removes the last item returned.
+   */
+  @Override
+  public Iterator<T> iterator() {
+    compact();
+    return new Itr();
+  }
+
+  /**
+   * Returns a fail-fast spliterator over the items in order. It reports
+   * SIZED and SUBSIZED and splits into two halves of the index range.
+   */
+  @Override
+  public Spliterator<T> spliterator() {
+    compact();
+    return new Split(0, size, modCount);
+  }
+
+  /** Returns a sequential stream of the items. */
+  public Stream<T> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /** Returns a parallel stream of the items (see the class notes). */
+  public Stream<T> parallelStream() {
+    return StreamSupport.stream(spliterator(), true);
+  }
+  
+  @Override
+  public int size() { 
+    return size - dead; 
+  }
+  
+  @Override
+  public boolean isEmpty() { 
+    return size - dead == 0; 
+  }
+
+  // Helper: remove the item in slot i, by shifting or with a tombstone
+  @SuppressWarnings("unchecked")
+  private void removeSlot(int i) {
+    modCount++;
+    if (tombstones && i < size - 1) {
+      data[i] = (T) TOMBSTONE;
+      if (dead == 0 || i < firstDead) firstDead = i;
+      dead++;
+      if (dead > size * MAX_GARBAGE) compact();
+      return;
+    }
+    // shift elements left to fill the gaps
+    for (int j = i; j < size - 1; j++){ 
+      data[j] = data[j + 1];
+    }
+    data[size - 1] = null; // prevent memory leak
+    size--;
+  }
+
+  // Helper: close every tombstone gap in one pass
+  private void compact() {
+    if (dead == 0) return;
+    int w = firstDead;
+    for (int r = firstDead; r < size; r++) {
+      if (data[r] != TOMBSTONE) data[w++] = data[r];
+    }
+    for (int i = w; i < size; i++) data[i] = null; // prevent memory leak
+    size = w;
+    dead = 0;
+  }
+  
+  @SuppressWarnings("unchecked")
+  private void resize() {
+    T[] newData = (T[]) new Object[data.length * 2]; 
+    System.arraycopy(data, 0, newData, 0, size);
+    data = newData;
+  }
+
+  // Iterator over the slots, which hold no tombstones while it is valid
+  private final class Itr implements Iterator<T> {
+    private int next;
+    private int last = -1;
+    private int expectedModCount = modCount;
+
+    @Override
+    public boolean hasNext() {
+      return next < size;
+    }
+
+    @Override
+    public T next() {
+      checkForComodification();
+      if (next >= size) throw new NoSuchElementException();
+      last = next++;
+      return data[last];
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) throw new IllegalStateException();
+      checkForComodification();
+      removeAt(last);
+      next = last;
+      last = -1;
+      compact();
+      expectedModCount = modCount;
+    }
+
+    private void checkForComodification() {
+      if (modCount != expectedModCount) throw new ConcurrentModificationException();
+    }
+  }
+
+  // Spliterator over the slots [index, fence)
+  private final class Split implements Spliterator<T> {
+    private int index;
+    private final int fence;
+    private final int expectedModCount;
+
+    Split(int index, int fence, int expectedModCount) {
+      this.index = index;
+      this.fence = fence;
+      this.expectedModCount = expectedModCount;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      int mid = (index + fence) >>> 1;
+      if (mid <= index) return null;
+      Split prefix = new Split(index, mid, expectedModCount);
+      index = mid;
+      return prefix;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (action == null) throw new NullPointerException();
+      if (index >= fence) return false;
+      T item = data[index++];
+      action.accept(item);
+      if (modCount != expectedModCount) throw new ConcurrentModificationException();
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      if (action == null) throw new NullPointerException();
+      T[] items = data;
+      for (int i = index; i < fence; i++) {
+        action.accept(items[i]);
+      }
+      index = fence;
+      if (modCount != expectedModCount) throw new ConcurrentModificationException();
+    }
+
+    @Override
+    public long estimateSize() {
+      return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+    }
+  }
+}
+
+//------------------------------
+//ChunkedTaskList
+//------------------------------
+
+/**
+ * ChunkedTaskList is an unrolled list: the items are kept in order in
+ * fixed-size arrays (chunks) of at most CHUNK_SIZE items, listed in a
+ * directory of chunks.
+ * <p>
+ * insert() and removeAt() in the middle only shift the items of one chunk,
+ * plus the directory when a chunk is split or dropped, so they cost
+ * O(n / CHUNK_SIZE + CHUNK_SIZE) instead of O(n) for TaskList. Finding the
+ * chunk for an index walks the directory from the chunk used last, so a scan
+ * with get(0), get(1), ... stays O(1) per item and reads each chunk in order.
+ * </p>
+ *
+ * <p>A chunk that falls below a quarter full is merged with its right
+ * neighbour when they fit in one chunk, which keeps the directory short.</p>
+ *
+ * @param <T> The type of item stored inside this list.
+ */
+class ChunkedTaskList<T> implements IarrayList<T> {
+  static final int CHUNK_SIZE = 256;
+
+  private Object[][] chunks = new Object[4][];
+  private int[] counts = new int[4];
+  private int chunkCount;
+  private int size;
+  // The chunk used last and the index of its first item
+  private int cursor;
+  private int cursorStart;
+
+  @Override
+  public void add(T item) {
+    if (chunkCount == 0 || counts[chunkCount - 1] == CHUNK_SIZE) {
+      newChunk(chunkCount);
+    }
+    int last = chunkCount - 1;
+    chunks[last][counts[last]++] = item;
+    size++;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    check(index);
+    int c = locate(index);
+    return (T) chunks[c][index - cursorStart];
+  }
+
+  @Override
+  public void set(int index, T item) {
+    check(index);
+    int c = locate(index);
+    chunks[c][index - cursorStart] = item;
+  }
+
+  @Override
+  public void insert(int index, T item) {
+    if (index < 0 || index > size)
+      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size);
+    if (index == size) {
+      add(item);
+      return;
+    }
+    int c = locate(index);
+    int offset = index - cursorStart;
+    if (counts[c] == CHUNK_SIZE) {
+      // split the full chunk in two halves, then insert into the right one
+      int half = CHUNK_SIZE / 2;
+      newChunk(c + 1);
+      System.arraycopy(chunks[c], half, chunks[c + 1], 0, CHUNK_SIZE - half);
+      Arrays.fill(chunks[c], half, CHUNK_SIZE, null);
+      counts[c] = half;
+      counts[c + 1] = CHUNK_SIZE - half;
+      if (offset > half) {
+        c++;
+        offset -= half;
+        cursor = c;
+        cursorStart += half;
+      }
+    }
+    Object[] chunk = chunks[c];
+    System.arraycopy(chunk, offset, chunk, offset + 1, counts[c] - offset);
+    chunk[offset] = item;
+    counts[c]++;
+    size++;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T removeAt(int index) {
+    check(index);
+    int c = locate(index);
+    int offset = index - cursorStart;
+    Object[] chunk = chunks[c];
+    T removed = (T) chunk[offset];
+    System.arraycopy(chunk, offset + 1, chunk, offset, counts[c] - offset - 1);
+    chunk[--counts[c]] = null; // prevent memory leak
+    size--;
+    if (counts[c] == 0) {
+      dropChunk(c);
+    } else if (counts[c] < CHUNK_SIZE / 4 && c + 1 < chunkCount && counts[c] + counts[c + 1] <= CHUNK_SIZE) {
+      // merge the right neighbour into this chunk
+      System.arraycopy(chunks[c + 1], 0, chunk, counts[c], counts[c + 1]);
+      counts[c] += counts[c + 1];
+      dropChunk(c + 1);
+    }
+    return removed;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** Number of chunks in use (for tests and benchmarks). */
+  public int chunkCount() {
+    return chunkCount;
+  }
+
+  // Helper: the chunk holding index; leaves cursor and cursorStart on it
+  private int locate(int index) {
+    int c = cursor;
+    int start = cursorStart;
+    if (c >= chunkCount) {
+      // the chunk used last was dropped from the end
+      c = chunkCount - 1;
+      start = size - counts[c];
+    }
+    while (index < start) {
+      c--;
+      start -= counts[c];
+    }
+    while (index >= start + counts[c]) {
+      start += counts[c];
+      c++;
+    }
+    cursor = c;
+    cursorStart = start;
+    return c;
+  }
+
+  // Helper: open an empty chunk at directory position c
+  private void newChunk(int c) {
+    if (chunkCount == chunks.length) {
+      chunks = Arrays.copyOf(chunks, chunkCount * 2);
+      counts = Arrays.copyOf(counts, chunkCount * 2);
+    }
+    System.arraycopy(chunks, c, chunks, c + 1, chunkCount - c);
+    System.arraycopy(counts, c, counts, c + 1, chunkCount - c);
+    chunks[c] = new Object[CHUNK_SIZE];
+    counts[c] = 0;
+    chunkCount++;
+  }
+
+  // Helper: remove directory position c, which is the cursor chunk or the
+  // one after it, so the cursor's start index stays right
+  private void dropChunk(int c) {
+    System.arraycopy(chunks, c + 1, chunks, c, chunkCount - c - 1);
+    System.arraycopy(counts, c + 1, counts, c, chunkCount - c - 1);
+    chunkCount--;
+    chunks[chunkCount] = null;
+    counts[chunkCount] = 0;
+  }
+
+  private void check(int index) {
+    if (index < 0 || index >= size)
+      throw new IndexOutOfBoundsException("Index: " + index + " Size: " + size);
+  }
+}
+
+//------------------------------
+//TaskLinkedList
+//------------------------------
+
+/**
+ * TaskLinkedList is a simple singly linked list implementation.
+ * <p>
+ * Students: You must complete this class as needed. 
+ * It implements IlinkedList interface, which provides basic operations
+ * like adding/removing elements at the start or end, and checking size.
+ * </p>
+ *
+ * <p>Hints:</p>
+ * <ul>
+ *   <li>Use an internal Node class with a data field and a next reference.</li>
+ *   <li>Keep track of head and tail references for efficiency.</li>
+ *   <li>Keep a size counter to quickly return list size.</li>
+ *   <li>addFirst() inserts at the head.</li>
+ *   <li>addLast() inserts at the tail.</li>
+ *   <li>removeFirst() removes the head node and returns its data.</li>
+ *   <li>isEmpty() should return true if the head is null.</li>
+ * </ul>
+ *
+ * @param <T> The type of item stored inside this linked list.
+ */
+class TaskLinkedList<T> implements IlinkedList<T>{
+  private class Node {
+		T data;
+		Node next;
+		Node(T d) { 
+      this.data = d; this.next = null; 
+    }
+	}
+
+	private Node head;
+	private Node tail;
+	private int size;
+
+	public TaskLinkedList() { 
+    head = tail = null; 
+    size = 0; 
+  }
+
+	@Override
+	public void addFirst(T item) {
+		Node n = new Node(item);
+		if (isEmpty()) { 
+      head = tail = n; 
+    }
+		else { 
+      n.next = head; 
+      head = n; 
+    }
+		size++;
+	}
+
+	@Override
+	public void addLast(T item) {
+		Node n = new Node(item);
+		if (isEmpty()) { 
+      head = tail = n; 
+    }
+		else { 
+      tail.next = n; 
+      tail = n; 
+    }
+		size++;
+	}
+
+	@Override
+	public T removeFirst() {
+		if (isEmpty()) 
+      return null;
+		T val = head.data;
+		head = head.next;
+		if (head == null){ 
+      tail = null;
+    }
+		size--;
+		return val;
+	}
+
+	@Override
+	public int size() { 
+    return size; 
+  }
+
+	@Override
+	public boolean isEmpty() { 
+    return size == 0; 
+  }
+ 
+	public void clear() {
+		head = tail = null;
+		size = 0;
+	}
+
+}
+
+
+//------------------------------
+//Scheduler
+//------------------------------
+
+/**
+ * Scheduler implements a FIFO queue with an index from each queued item to
+ * its node.
+ * <p>
+ * This class is used to manage scheduled tasks in the ToDoListManager.
+ * The nodes are doubly linked, so with the index an item can be found and
+ * unlinked from the middle of the queue in O(1).
+ * </p>
+ *
+ * <p>Notes:</p>
+ * <ul>
+ *   <li>enqueue() adds an item to the end of the queue, unless an equal item
+ *       is already queued.</li>
+ *   <li>dequeue() removes and returns the first item in the queue.</li>
+ *   <li>contains() and remove() look the item up in the index.</li>
+ *   <li>Items are matched with equals()/hashCode(), so for TaskItem a copy
+ *       with the same ID finds the queued task.</li>
+ * </ul>
+ *
+ * @param <T> The type of items stored in the queue.
+ */
+class Scheduler<T> implements Ischeduler<T>{
+	private class Node {
+		T data;
+		Node prev, next;
+		Node(T d) {
+			this.data = d;
+		}
+	}
+
+	private Node head;
+	private Node tail;
+	private HashMap<T, Node> index;
+
+  public Scheduler() {
+		head = tail = null;
+		index = new HashMap<>();
+	}
+
+	// enqueue: add to tail (duplicates are ignored)
+	@Override
+	public void enqueue(T item) {
+		if (item == null || index.containsKey(item))
+      return;
+		Node n = new Node(item);
+		if (tail == null) {
+      head = tail = n;
+    }
+		else {
+      tail.next = n;
+      n.prev = tail;
+      tail = n;
+    }
+		index.put(item, n);
+	}
+
+	// dequeue: remove from head
+	@Override
+	public T dequeue() {
+		if (head == null) 
+      return null;
+		Node n = head;
+		unlink(n);
+		index.remove(n.data);
+		return n.data;
+	}
+
+	@Override
+	public boolean contains(T item) {
+		return item != null && index.containsKey(item);
+	}
+
+	@Override
+	public boolean remove(T item) {
+		if (item == null)
+      return false;
+		Node n = index.remove(item);
+		if (n == null)
+      return false;
+		unlink(n);
+		return true;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return head == null;
+	}
+
+	@Override
+	public int size() {
+		return index.size();
+	}
+
+	@Override
+	public TaskList<T> toList() {
+		TaskList<T> items = new TaskList<>();
+		for (Node n = head; n != null; n = n.next) {
+			items.add(n.data);
+		}
+		return items;
+	}
+
+	private void unlink(Node n) {
+		if (n.prev == null) head = n.next; else n.prev.next = n.next;
+		if (n.next == null) tail = n.prev; else n.next.prev = n.prev;
+		n.prev = n.next = null;
+	}
+}
+
+//------------------------------
+//Ischeduler
+//------------------------------
+
+/**
+ * The Ischeduler interface describes the FIFO queue used by ToDoListManager
+ * to hold scheduled tasks.
+ *
+ * <p>Scheduler is the default single-threaded implementation. Thread-safe
+ * implementations (LockFreeScheduler, WorkStealingScheduler) can be passed
+ * to the ToDoListManager constructor so that the workers of a
+ * ConcurrentToDoListManager can dequeue in parallel; see there for what
+ * still runs under its write lock.</p>
+ *
+ * @param <T> The type of items stored in the queue.
+ */
+interface Ischeduler<T> {
+
+	/**
+	 * Adds an item to the tail of the queue.
+	 * Nothing happens if an equal item is already queued.
+	 * @param item the element to add
+	 */
+	void enqueue(T item);
+
+	/**
+	 * Removes and returns the item at the head of the queue.
+	 * @return the removed element, or null if the queue is empty
+	 */
+	T dequeue();
+
+	/**
+	 * Checks if an equal item is waiting in the queue.
+	 * @param item the element to look for
+	 * @return true if the item is queued
+	 */
+	boolean contains(T item);
+
+	/**
+	 * Cancels a queued item, wherever it is in the queue.
+	 * @param item the element to cancel
+	 * @return true if the item was queued and has been removed
+	 */
+	boolean remove(T item);
+
+	/**
+	 * Checks if the queue has zero items.
+	 * @return true if empty, false otherwise
+	 */
+	boolean isEmpty();
+
+	/**
+	 * Returns the number of items in the queue.
+	 * @return the size of the queue
+	 */
+	int size();
+
+	/**
+	 * Copies the queued items into a list without removing them, head first.
+	 * A queue shared between threads may change while it is read, so the
+	 * list is only exact when no other thread is using the queue.
+	 * @return the queued items
+	 */
+	TaskList<T> toList();
+}
+
+//------------------------------
+//LockFreeScheduler
+//------------------------------
+
+/**
+ * LockFreeScheduler is a multi-producer / multi-consumer FIFO queue built from
+ * CAS-linked nodes (the Michael-Scott queue).
+ * <p>
+ * Any number of threads may call enqueue() and dequeue() at the same time
+ * without locking. The head always points at a dummy node; the first real item
+ * is head.next. A dequeue moves head forward by one node and turns that node
+ * into the new dummy. An enqueue links a node after the tail and then swings
+ * the tail forward (other threads help finish a half-done enqueue).
+ * </p>
+ *
+ * <p>An index from item to node gives O(1) contains() and remove(). A removed
+ * item is cancelled in place: its node's item is swapped to null with a CAS
+ * and the node is skipped when it reaches the head. dequeue() claims items
+ * with the same swap, so an item is either dequeued or removed, never both.</p>
+ *
+ * <p>size() is kept in a separate counter, so it is exact only when no other
+ * thread is changing the queue.</p>
+ *
+ * <p>Inside a ToDoListManager only the dequeue side stays lock-free: a
+ * ConcurrentToDoListManager's scheduleTask() still runs under its write
+ * lock, because it also changes the task list.</p>
+ *
+ * @param <T> The type of items stored in the queue.
+ */
+class LockFreeScheduler<T> implements Ischeduler<T> {
+	private static final class Node<T> {
+		volatile T item;
+		volatile Node<T> next;
+		Node(T item) {
+			this.item = item;
+		}
+	}
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Node, Object> ITEM =
+			AtomicReferenceFieldUpdater.newUpdater(Node.class, Object.class, "item");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<Node, Node> NEXT =
+			AtomicReferenceFieldUpdater.newUpdater(Node.class, Node.class, "next");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<LockFreeScheduler, Node> HEAD =
+			AtomicReferenceFieldUpdater.newUpdater(LockFreeScheduler.class, Node.class, "head");
+	@SuppressWarnings("rawtypes")
+	private static final AtomicReferenceFieldUpdater<LockFreeScheduler, Node> TAIL =
+			AtomicReferenceFieldUpdater.newUpdater(LockFreeScheduler.class, Node.class, "tail");
+
+	private volatile Node<T> head;
+	private volatile Node<T> tail;
+	private final AtomicInteger size = new AtomicInteger();
+	private final ConcurrentHashMap<T, Node<T>> index = new ConcurrentHashMap<>();
+
+	public LockFreeScheduler() {
+		Node<T> dummy = new Node<>(null);
+		head = tail = dummy;
+	}
+
+	@Override
+	public void enqueue(T item) {
+		if (item == null) return;
+		Node<T> n = new Node<>(item);
+		while (true) {
+			Node<T> queued = index.putIfAbsent(item, n);
+			if (queued == null) break;
+			if (queued.item != null) return; // already queued
+			// the old node was claimed but not yet dropped from the index
+			if (index.replace(item, queued, n)) break;
+		}
+		while (true) {
+			Node<T> t = tail;
+			Node<T> next = t.next;
+			if (t != tail) continue;
+			if (next == null) {
+				// link after the last node, then try to swing the tail
+				if (NEXT.compareAndSet(t, null, n)) {
+					TAIL.compareAndSet(this, t, n);
+					size.incrementAndGet();
+					return;
+				}
+			} else {
+				// tail is lagging behind: help the other enqueue finish
+				TAIL.compareAndSet(this, t, next);
+			}
+		}
+	}
+
+	@Override
+	public T dequeue() {
+		while (true) {
+			Node<T> h = head;
+			Node<T> t = tail;
+			Node<T> first = h.next;
+			if (h != head) continue;
+			if (first == null) return null;
+			if (h == t) {
+				TAIL.compareAndSet(this, t, first);
+				continue;
+			}
+			if (HEAD.compareAndSet(this, h, first)) {
+				h.next = h; // unlink old dummy so it can be collected
+				// first is the new dummy; claim its item unless it was cancelled
+				@SuppressWarnings("unchecked")
+				T item = (T) ITEM.getAndSet(first, null);
+				if (item != null) {
+					index.remove(item, first);
+					size.decrementAndGet();
+					return item;
+				}
+			}
+		}
+	}
+
+	@Override
+	public boolean contains(T item) {
+		if (item == null) return false;
+		Node<T> n = index.get(item);
+		return n != null && n.item != null;
+	}
+
+	@Override
+	public boolean remove(T item) {
+		if (item == null) return false;
+		Node<T> n = index.get(item);
+		if (n == null) return false;
+		T queued = n.item;
+		if (queued == null || !ITEM.compareAndSet(n, queued, null)) return false;
+		index.remove(item, n);
+		size.decrementAndGet();
+		return true;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size.get() <= 0;
+	}
+
+	@Override
+	public int size() {
+		return Math.max(0, size.get());
+	}
+
+	@Override
+	public TaskList<T> toList() {
+		TaskList<T> items = new TaskList<>();
+		Node<T> n = head.next;
+		while (n != null) {
+			T item = n.item;
+			if (item != null) items.add(item); // null: cancelled or being dequeued
+			Node<T> next = n.next;
+			// a dequeue unlinked n: carry on from the current head
+			n = next == n ? head.next : next;
+		}
+		return items;
+	}
+}
+
+//------------------------------
+//WorkStealingScheduler
+//------------------------------
+
+/**
+ * WorkStealingScheduler spreads scheduled items over one deque per worker
+ * thread, fork-join style, so that workers draining the schedule do not all
+ * contend on a single queue head.
+ * <p>
+ * A thread becomes a worker the first time it calls dequeue() and is given
+ * its own deque. A worker that enqueues pushes onto its own deque; other
+ * producers spread their items round-robin over all deques. dequeue() takes
+ * the oldest item from the caller's own deque, and when that is empty it
+ * steals the newest item from another worker's deque.
+ * </p>
+ *
+ * <p>Stealing gives up global FIFO order. Create the scheduler with
+ * fifo = true to keep strict FIFO order; all items then go through one
+ * shared LockFreeScheduler, and workers take turns at its head.</p>
+ *
+ * <p>contains() and remove() use an index from item to its live entry. A
+ * removed entry stays in its deque and is skipped when it is popped.</p>
+ *
+ * <p>Only the queue is thread-safe. Workers that share a manager go
+ * through a ConcurrentToDoListManager created with sharedQueue = true,
+ * which dequeues outside its write lock and completes the tasks under it.</p>
+ *
+ * @param <T> The type of items stored in the queue.
+ */
+class WorkStealingScheduler<T> implements Ischeduler<T> {
+  // One queued item; the index maps an item to its live entry
+  private static final class Entry<T> {
+    final T item;
+    Entry(T item) {
+      this.item = item;
+    }
+  }
+
+  private final ConcurrentLinkedDeque<Entry<T>>[] deques;
+  private final LockFreeScheduler<T> fifoQueue;
+  private final ConcurrentHashMap<T, Entry<T>> index = new ConcurrentHashMap<>();
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger nextWorker = new AtomicInteger();
+  private final AtomicInteger nextProducer = new AtomicInteger();
+  private final ThreadLocal<Integer> workerSlot = new ThreadLocal<>();
+
+  /**
+   * @param workers the number of worker deques (normally the number of
+   *                threads that will call dequeue())
+   * @param fifo true to keep strict global FIFO order instead of stealing
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public WorkStealingScheduler(int workers, boolean fifo) {
+    if (workers < 1)
+      throw new IllegalArgumentException("workers must be at least 1");
+    if (fifo) {
+      deques = null;
+      fifoQueue = new LockFreeScheduler<>();
+    } else {
+      deques = new ConcurrentLinkedDeque[workers];
+      for (int i = 0; i < workers; i++) {
+        deques[i] = new ConcurrentLinkedDeque<>();
+      }
+      fifoQueue = null;
+    }
+  }
+
+  public WorkStealingScheduler(int workers) {
+    this(workers, false);
+  }
+
+  public int workers() {
+    return deques == null ? 1 : deques.length;
+  }
+
+  @Override
+  public void enqueue(T item) {
+    if (item == null) return;
+    if (fifoQueue != null) {
+      fifoQueue.enqueue(item);
+      return;
+    }
+    Entry<T> e = new Entry<>(item);
+    if (index.putIfAbsent(item, e) != null) return; // already queued
+    size.incrementAndGet();
+    Integer slot = workerSlot.get();
+    int target = slot != null ? slot
+        : Math.floorMod(nextProducer.getAndIncrement(), deques.length);
+    deques[target].addLast(e);
+  }
+
+  @Override
+  public T dequeue() {
+    if (fifoQueue != null) return fifoQueue.dequeue();
+    int home = slot();
+    // own deque first, oldest item first
+    for (Entry<T> e = deques[home].pollFirst(); e != null; e = deques[home].pollFirst()) {
+      if (claim(e)) return e.item;
+    }
+    // then steal the newest item from the other deques
+    for (int k = 1; k < deques.length; k++) {
+      ConcurrentLinkedDeque<Entry<T>> victim = deques[(home + k) % deques.length];
+      for (Entry<T> e = victim.pollLast(); e != null; e = victim.pollLast()) {
+        if (claim(e)) return e.item;
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public boolean contains(T item) {
+    if (fifoQueue != null) return fifoQueue.contains(item);
+    return item != null && index.containsKey(item);
+  }
+
+  @Override
+  public boolean remove(T item) {
+    if (fifoQueue != null) return fifoQueue.remove(item);
+    if (item == null || index.remove(item) == null) return false;
+    size.decrementAndGet();
+    return true;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public int size() {
+    if (fifoQueue != null) return fifoQueue.size();
+    return Math.max(0, size.get());
+  }
+
+  /**
+   * Without fifo there is no global order: the items come deque by deque,
+   * oldest first within each deque.
+   */
+  @Override
+  public TaskList<T> toList() {
+    if (fifoQueue != null) return fifoQueue.toList();
+    TaskList<T> items = new TaskList<>();
+    for (ConcurrentLinkedDeque<Entry<T>> deque : deques) {
+      for (Entry<T> e : deque) {
+        if (index.get(e.item) == e) items.add(e.item); // skip removed entries
+      }
+    }
+    return items;
+  }
+
+  // A popped entry counts only if it is still the live entry for its item
+  private boolean claim(Entry<T> e) {
+    if (!index.remove(e.item, e)) return false; // cancelled or replaced
+    size.decrementAndGet();
+    return true;
+  }
+
+  private int slot() {
+    Integer slot = workerSlot.get();
+    if (slot == null) {
+      slot = Math.floorMod(nextWorker.getAndIncrement(), deques.length);
+      workerSlot.set(slot);
+    }
+    return slot;
+  }
+}
+
+//------------------------------
+//TimingWheelScheduler
+//------------------------------
+
+/**
+ * TimingWheelScheduler is a hierarchical timing wheel that buckets scheduled
+ * tasks by due date, so "process everything that is due now" does not need to
+ * look at tasks that are not due yet.
+ * <p>
+ * One tick is one day. There are LEVELS wheels of SLOTS buckets each: level 0
+ * holds tasks due in the next 64 days (one day per slot), level 1 the next
+ * 64*64 days (64 days per slot), and so on. Each bucket is an intrusive doubly
+ * linked list, and an index from task ID to its entry makes schedule() and
+ * cancel() O(1). When the wheel time crosses a slot boundary of a higher
+ * level, that slot is "cascaded": its entries are placed again, closer to
+ * level 0.
+ * </p>
+ *
+ * <p>Tasks whose due date is already behind the wheel time go into an expired
+ * list and are returned by the next processDue() call that reaches them.</p>
+ * *
+ * @param <T> The type of tasks stored in the wheel, must extend TaskItem
+ */
+class TimingWheelScheduler<T extends TaskItem> {
+  private static final int BITS = 6;
+  private static final int SLOTS = 1 << BITS;
+  private static final int MASK = SLOTS - 1;
+  private static final int LEVELS = 4;
+  private static final int EXPIRED = -1;
+
+  // Node class: one scheduled task inside a bucket
+  private class Entry {
+    T task;
+    long due;
+    int level, slot;
+    Entry prev, next;
+    Entry(T task, long due) {
+      this.task = task;
+      this.due = due;
+    }
+  }
+
+  private final Entry[][] heads;
+  private final Entry[][] tails;
+  private final int[] levelCount;
+  private Entry expiredHead, expiredTail;
+  private final HashMap<String, Entry> index;
+  private long currentTick;
+  private boolean started;
+
+  @SuppressWarnings("unchecked")
+  public TimingWheelScheduler() {
+    heads = (Entry[][]) java.lang.reflect.Array.newInstance(Entry.class, LEVELS, SLOTS);
+    tails = (Entry[][]) java.lang.reflect.Array.newInstance(Entry.class, LEVELS, SLOTS);
+    levelCount = new int[LEVELS];
+    index = new HashMap<>();
+  }
+
+  /**
+   * Converts a YYYY-MM-DD date into a wheel tick (days since 1970-01-01).
+   * @param date the date text
+   * @return the tick, or Long.MIN_VALUE if the date cannot be parsed
+   */
+  public static long toTick(String date) {
+    if (date == null) return Long.MIN_VALUE;
+    try {
+      return LocalDate.parse(date.trim()).toEpochDay();
+    } catch (DateTimeParseException e) {
+      return Long.MIN_VALUE;
+    }
+  }
+
+  /**
+   * Adds a task to the wheel using its due date. A task that is already in
+   * the wheel is moved to its new due date.
+   * @param task the task to schedule
+   * @return false if the task has no valid due date
+   */
+  public synchronized boolean schedule(T task) {
+    if (task == null) return false;
+    long due = toTick(task.getDueDate());
+    if (due == Long.MIN_VALUE) return false;
+    cancel(task.getId());
+    if (!started) {
+      currentTick = due;
+      started = true;
+    }
+    Entry e = new Entry(task, due);
+    index.put(task.getId(), e);
+    place(e);
+    return true;
+  }
+
+  /**
+   * Removes a task from the wheel.
+   * @param taskID the ID of the task to cancel
+   * @return the cancelled task, or null if it was not in the wheel
+   */
+  public synchronized T cancel(String taskID) {
+    if (taskID == null) return null;
+    Entry e = index.remove(taskID);
+    if (e == null) return null;
+    unlink(e);
+    return e.task;
+  }
+
+  public synchronized boolean contains(String taskID) {
+    return taskID != null && index.containsKey(taskID);
+  }
+
+  public synchronized int size() {
+    return index.size();
+  }
+
+  public synchronized boolean isEmpty() {
+    return index.isEmpty();
+  }
+
+  public synchronized void clear() {
+    for (int l = 0; l < LEVELS; l++) {
+      for (int s = 0; s < SLOTS; s++) {
+        heads[l][s] = tails[l][s] = null;
+      }
+      levelCount[l] = 0;
+    }
+    expiredHead = expiredTail = null;
+    index.clear();
+    started = false;
+  }
+
+  /**
+   * Removes and returns every task whose due date is on or before now,
+   * in due-date order. Tasks due on the same day come in the order they
+   * were scheduled.
+   * @param now the current tick (see toTick)
+   * @return the tasks that are due
+   */
+  public synchronized TaskList<T> processDue(long now) {
+    TaskList<T> due = new TaskList<>();
+    if (!started) return due;
+
+    // the expired list is in scheduling order, so sort it by due date first
+    // (stable, so same-day tasks keep their order)
+    ArrayList<Entry> expired = new ArrayList<>();
+    for (Entry e = expiredHead; e != null; e = e.next) {
+      if (e.due <= now) expired.add(e);
+    }
+    expired.sort(Comparator.comparingLong(e -> e.due));
+    for (Entry e : expired) take(e, due);
+
+    // wheel time is already past now: only the expired list can hold due tasks
+    if (now < currentTick - 1) return due;
+
+    while (currentTick <= now) {
+      cascade();
+      if (levelCount[0] == 0) {
+        // nothing in level 0: jump to the next boundary that has work to cascade
+        long next = now + 1;
+        for (int l = 1; l < LEVELS; l++) {
+          if (levelCount[l] > 0) {
+            next = Math.min(next, (currentTick | ((1L << (BITS * l)) - 1)) + 1);
+            break;
+          }
+        }
+        currentTick = next;
+        continue;
+      }
+      int slot = (int) (currentTick & MASK);
+      while (heads[0][slot] != null) take(heads[0][slot], due);
+      currentTick++;
+    }
+    return due;
+  }
+
+  // Cascade higher-level slots whose boundary the wheel time has just reached
+  private void cascade() {
+    int top = 0;
+    for (int l = 1; l < LEVELS; l++) {
+      if ((currentTick & ((1L << (BITS * l)) - 1)) != 0) break;
+      top = l;
+    }
+    for (int l = top; l >= 1; l--) {
+      int slot = (int) ((currentTick >> (BITS * l)) & MASK);
+      Entry e = heads[l][slot];
+      heads[l][slot] = tails[l][slot] = null;
+      while (e != null) {
+        Entry next = e.next;
+        levelCount[l]--;
+        place(e);
+        e = next;
+      }
+    }
+  }
+
+  // Put an entry in the bucket that matches its distance from the wheel time
+  private void place(Entry e) {
+    e.prev = e.next = null;
+    long delta = e.due - currentTick;
+    if (delta < 0) {
+      e.level = EXPIRED;
+      if (expiredTail == null) expiredHead = e;
+      else { expiredTail.next = e; e.prev = expiredTail; }
+      expiredTail = e;
+      return;
+    }
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) level++;
+    e.level = level;
+    e.slot = (int) ((e.due >> (BITS * level)) & MASK);
+    if (tails[level][e.slot] == null) heads[level][e.slot] = e;
+    else { tails[level][e.slot].next = e; e.prev = tails[level][e.slot]; }
+    tails[level][e.slot] = e;
+    levelCount[level]++;
+  }
+
+  private void unlink(Entry e) {
+    if (e.level == EXPIRED) {
+      if (e.prev == null) expiredHead = e.next; else e.prev.next = e.next;
+      if (e.next == null) expiredTail = e.prev; else e.next.prev = e.prev;
+    } else {
+      if (e.prev == null) heads[e.level][e.slot] = e.next; else e.prev.next = e.next;
+      if (e.next == null) tails[e.level][e.slot] = e.prev; else e.next.prev = e.prev;
+      levelCount[e.level]--;
+    }
+    e.prev = e.next = null;
+  }
+
+  private void take(Entry e, TaskList<T> out) {
+    index.remove(e.task.getId());
+    unlink(e);
+    out.add(e.task);
+  }
+}
+
+//------------------------------
+//TaskDependencyGraph
+//------------------------------
+
+/**
+ * TaskDependencyGraph stores "must finish first" edges between task IDs and
+ * keeps, for every task, a count of prerequisites that are not DONE yet.
+ * <p>
+ * The counts are kept up to date incrementally (Kahn-style): when a task
+ * becomes DONE, onDone() walks only its outgoing edges and decrements each
+ * dependent's count. A task that was marked as waiting is released as soon
+ * as its count reaches zero, so finishing a task costs O(out-degree) instead
+ * of a walk over the whole graph.
+ * </p>
+ *
+ * <p>Edges that would close a cycle are rejected when they are added.</p>
+ */
+class TaskDependencyGraph {
+  /** prerequisite ID -> IDs of tasks that depend on it */
+  private final HashMap<String, HashSet<String>> dependents = new HashMap<>();
+  /** task ID -> IDs of its prerequisites */
+  private final HashMap<String, HashSet<String>> prerequisites = new HashMap<>();
+  /** task ID -> number of prerequisites that are not DONE */
+  private final HashMap<String, Integer> pending = new HashMap<>();
+  /** tasks waiting to be released into the schedule */
+  private final HashSet<String> waiting = new HashSet<>();
+
+  /**
+   * Adds the edge "prerequisiteID must be DONE before taskID".
+   * @param taskID the dependent task
+   * @param prerequisiteID the task that must finish first
+   * @param prerequisiteDone true if the prerequisite is already DONE
+   * @return false if the edge already existed
+   * @throws IllegalArgumentException if the edge would create a cycle
+   */
+  public synchronized boolean addDependency(String taskID, String prerequisiteID, boolean prerequisiteDone) {
+    if (taskID == null || prerequisiteID == null) return false;
+    if (taskID.equals(prerequisiteID) || reaches(taskID, prerequisiteID))
+      throw new IllegalArgumentException("Dependency cycle: " + taskID + " -> " + prerequisiteID);
+    if (!dependents.computeIfAbsent(prerequisiteID, k -> new HashSet<>()).add(taskID))
+      return false;
+    prerequisites.computeIfAbsent(taskID, k -> new HashSet<>()).add(prerequisiteID);
+    if (!prerequisiteDone) pending.merge(taskID, 1, Integer::sum);
+    return true;
+  }
+
+  /**
+   * Removes one edge.
+   * @return the IDs released by the removal (the dependent, if it was waiting
+   *         and has no unfinished prerequisites left)
+   */
+  public synchronized TaskList<String> removeDependency(String taskID, String prerequisiteID, boolean prerequisiteDone) {
+    TaskList<String> released = new TaskList<>();
+    HashSet<String> out = dependents.get(prerequisiteID);
+    if (out == null || !out.remove(taskID)) return released;
+    if (out.isEmpty()) dependents.remove(prerequisiteID);
+    HashSet<String> in = prerequisites.get(taskID);
+    in.remove(prerequisiteID);
+    if (in.isEmpty()) prerequisites.remove(taskID);
+    if (!prerequisiteDone) decrement(taskID, released);
+    return released;
+  }
+
+  /**
+   * Drops a task and all of its edges, e.g. when the task is removed.
+   * @param taskID the task to drop
+   * @param wasDone true if the task was DONE (its dependents were already counted down)
+   * @return the dependents released because this prerequisite is gone
+   */
+  public synchronized TaskList<String> removeTask(String taskID, boolean wasDone) {
+    TaskList<String> released = new TaskList<>();
+    HashSet<String> in = prerequisites.remove(taskID);
+    if (in != null) {
+      for (String pre : in) {
+        HashSet<String> out = dependents.get(pre);
+        out.remove(taskID);
+        if (out.isEmpty()) dependents.remove(pre);
+      }
+    }
+    pending.remove(taskID);
+    waiting.remove(taskID);
+    HashSet<String> out = dependents.remove(taskID);
+    if (out != null) {
+      for (String dep : out) {
+        HashSet<String> depIn = prerequisites.get(dep);
+        depIn.remove(taskID);
+        if (depIn.isEmpty()) prerequisites.remove(dep);
+        if (!wasDone) decrement(dep, released);
+      }
+    }
+    return released;
+  }
+
+  /**
+   * Records that a task became DONE. A DONE task no longer waits to be
+   * scheduled, so it is dropped from the waiting tasks. Costs O(out-degree).
+   * @return the waiting dependents whose last unfinished prerequisite this was
+   */
+  public synchronized TaskList<String> onDone(String taskID) {
+    TaskList<String> released = new TaskList<>();
+    waiting.remove(taskID);
+    HashSet<String> out = dependents.get(taskID);
+    if (out == null) return released;
+    for (String dep : out) decrement(dep, released);
+    return released;
+  }
+
+  /**
+   * Records that a DONE task is no longer DONE (e.g. it was replaced by an
+   * update). Costs O(out-degree).
+   */
+  public synchronized void onUndone(String taskID) {
+    HashSet<String> out = dependents.get(taskID);
+    if (out == null) return;
+    for (String dep : out) pending.merge(dep, 1, Integer::sum);
+  }
+
+  /**
+   * Marks a task as waiting for its prerequisites.
+   * @return true if the task is ready now (it is then not marked as waiting)
+   */
+  public synchronized boolean markWaiting(String taskID) {
+    if (pendingCount(taskID) == 0) {
+      waiting.remove(taskID);
+      return true;
+    }
+    waiting.add(taskID);
+    return false;
+  }
+
+  public synchronized boolean isWaiting(String taskID) {
+    return waiting.contains(taskID);
+  }
+
+  /**
+   * Returns the number of prerequisites of a task that are not DONE.
+   */
+  public synchronized int pendingCount(String taskID) {
+    Integer count = pending.get(taskID);
+    return count == null ? 0 : count;
+  }
+
+  public synchronized boolean isEmpty() {
+    return dependents.isEmpty() && waiting.isEmpty();
+  }
+
+  /**
+   * Returns the IDs of every task that some other task depends on.
+   */
+  public synchronized TaskList<String> prerequisiteIDs() {
+    TaskList<String> ids = new TaskList<>();
+    for (String id : dependents.keySet()) ids.add(id);
+    return ids;
+  }
+
+  /**
+   * Recomputes every count from scratch, e.g. after undo/redo replaced the
+   * task list. Costs O(V + E).
+   * @param doneIDs the IDs of the tasks that are DONE now
+   * @return the waiting tasks that are ready after the recount
+   */
+  public synchronized TaskList<String> recount(HashSet<String> doneIDs) {
+    pending.clear();
+    for (Map.Entry<String, HashSet<String>> e : prerequisites.entrySet()) {
+      int count = 0;
+      for (String pre : e.getValue()) {
+        if (!doneIDs.contains(pre)) count++;
+      }
+      if (count > 0) pending.put(e.getKey(), count);
+    }
+    TaskList<String> released = new TaskList<>();
+    TaskList<String> ready = new TaskList<>();
+    for (String id : waiting) {
+      if (!pending.containsKey(id)) ready.add(id);
+    }
+    for (int i = 0; i < ready.size(); i++) {
+      waiting.remove(ready.get(i));
+      released.add(ready.get(i));
+    }
+    return released;
+  }
+
+  /**
+   * Writes the edges, the unfinished-prerequisite counts and the waiting
+   * tasks, for SnapshotFile. The counts are stored so that loading does not
+   * have to look up the status of every prerequisite.
+   */
+  synchronized void write(DataOutputStream out) throws IOException {
+    out.writeInt(prerequisites.size());
+    for (Map.Entry<String, HashSet<String>> e : prerequisites.entrySet()) {
+      SnapshotFile.writeString(out, e.getKey());
+      out.writeInt(e.getValue().size());
+      for (String pre : e.getValue()) SnapshotFile.writeString(out, pre);
+    }
+    out.writeInt(pending.size());
+    for (Map.Entry<String, Integer> e : pending.entrySet()) {
+      SnapshotFile.writeString(out, e.getKey());
+      out.writeInt(e.getValue());
+    }
+    out.writeInt(waiting.size());
+    for (String id : waiting) SnapshotFile.writeString(out, id);
+  }
+
+  /** Reads what write() wrote into this (empty) graph. */
+  synchronized void read(ByteBuffer in) {
+    for (int tasks = in.getInt(); tasks > 0; tasks--) {
+      String taskID = SnapshotFile.readString(in);
+      for (int n = in.getInt(); n > 0; n--) {
+        String pre = SnapshotFile.readString(in);
+        prerequisites.computeIfAbsent(taskID, k -> new HashSet<>()).add(pre);
+        dependents.computeIfAbsent(pre, k -> new HashSet<>()).add(taskID);
+      }
+    }
+    for (int n = in.getInt(); n > 0; n--) {
+      String taskID = SnapshotFile.readString(in);
+      pending.put(taskID, in.getInt());
+    }
+    for (int n = in.getInt(); n > 0; n--) {
+      waiting.add(SnapshotFile.readString(in));
+    }
+  }
+
+  private void decrement(String taskID, TaskList<String> released) {
+    Integer count = pending.get(taskID);
+    if (count == null) return;
+    if (count > 1) {
+      pending.put(taskID, count - 1);
+      return;
+    }
+    pending.remove(taskID);
+    if (waiting.remove(taskID)) released.add(taskID);
+  }
+
+  // true if "to" can be reached from "from" by following dependent edges
+  private boolean reaches(String from, String to) {
+    HashSet<String> seen = new HashSet<>();
+    TaskLinkedList<String> stack = new TaskLinkedList<>();
+    stack.addFirst(from);
+    while (!stack.isEmpty()) {
+      String id = stack.removeFirst();
+      if (id.equals(to)) return true;
+      if (!seen.add(id)) continue;
+      HashSet<String> out = dependents.get(id);
+      if (out == null) continue;
+      for (String dep : out) stack.addFirst(dep);
+    }
+    return false;
+  }
+}
+
+//------------------------------
+//QueryCache
+//------------------------------
+
+/**
+ * QueryCache is a size-bounded LRU cache of query results for
+ * ToDoListManager, keyed by the query text.
+ * <p>
+ * Every entry remembers the manager version it was computed at. The manager
+ * bumps its version on every change, so a lookup at a newer version is a
+ * miss and nothing has to be invalidated when tasks change. When the cache is
+ * full, the least recently used entry is evicted.
+ * </p>
+ *
+ * <p>Methods are synchronized, so several readers holding a shared read lock
+ * (ConcurrentToDoListManager) may use it at once.</p>
+ *
+ * @param <V> The type of cached results.
+ */
+class QueryCache<V> {
+  static final int DEFAULT_CAPACITY = 64;
+
+  // A result and the version it belongs to
+  private static final class Entry<V> {
+    final long version;
+    final V value;
+
+    Entry(long version, V value) {
+      this.version = version;
+      this.value = value;
+    }
+  }
+
+  private final LinkedHashMap<String, Entry<V>> entries;
+  private int capacity;
+  private long hits;
+  private long misses;
+  private long evictions;
+
+  /**
+   * @param capacity the maximum number of entries (0 turns the cache off)
+   */
+  public QueryCache(int capacity) {
+    if (capacity < 0) throw new IllegalArgumentException("Cache capacity must not be negative");
+    this.capacity = capacity;
+    entries = new LinkedHashMap<String, Entry<V>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+        if (size() <= QueryCache.this.capacity) return false;
+        evictions++;
+        return true;
+      }
+    };
+  }
+
+  /**
+   * Looks up a result.
+   * @param key the query
+   * @param version the manager's current version
+   * @return the result, or null if it is not cached at this version
+   */
+  public synchronized V get(String key, long version) {
+    Entry<V> e = entries.get(key);
+    if (e == null || e.version != version) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return e.value;
+  }
+
+  /**
+   * Stores a result computed at version, replacing any older one.
+   */
+  public synchronized void put(String key, long version, V value) {
+    if (capacity > 0) entries.put(key, new Entry<>(version, value));
+  }
+
+  /**
+   * Changes the maximum number of entries, evicting the least recently used
+   * ones if there are more.
+   * @param capacity the new maximum (0 turns the cache off)
+   */
+  public synchronized void setCapacity(int capacity) {
+    if (capacity < 0) throw new IllegalArgumentException("Cache capacity must not be negative");
+    this.capacity = capacity;
+    Iterator<String> it = entries.keySet().iterator();
+    while (entries.size() > capacity && it.hasNext()) {
+      it.next();
+      it.remove();
+      evictions++;
+    }
+  }
+
+  public synchronized int capacity() {
+    return capacity;
+  }
+
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  public synchronized long hits() {
+    return hits;
+  }
+
+  public synchronized long misses() {
+    return misses;
+  }
+
+  /** Entries dropped to stay within the capacity (stale entries replaced in place are not counted). */
+  public synchronized long evictions() {
+    return evictions;
+  }
+
+  /** Drops every entry; the counters are kept. */
+  public synchronized void clear() {
+    entries.clear();
+  }
+}
+
+//------------------------------
+//TaskColumns
+//------------------------------
+
+/**
+ * TaskColumns copies the status and priority of every task in a TaskList
+ * into primitive columns, so filters on them do not have to call
+ * getStatus() and getPriority() on every task object.
+ * <p>
+ * Each column packs eight one-byte lanes into a long. A scan compares all
+ * eight lanes of a word with a few arithmetic operations (SIMD within a
+ * register) and writes one bit per task into a selection bitmap, without a
+ * branch per task. Priorities must fit a lane (0 to 127) for this; if any
+ * does not, priority filters fall back to a loop over an int column.
+ * </p>
+ *
+ * <p>Columns are a copy: ToDoListManager builds new ones after every change
+ * (see its version).</p>
+ */
+class TaskColumns {
+  /** Status codes; case does not matter, as in GET_STATUS */
+  static final int TODO = 0, SCHEDULED = 1, DONE = 2, OTHER = 3;
+  /** Filter value meaning any status */
+  static final int ANY = -1;
+
+  private static final long ONES = 0x0101010101010101L;
+  private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+  private static final long HIGH = 0x8080808080808080L;
+  // Moves bit 0 of lane j to bit 56 + j
+  private static final long GATHER = 0x0102040810204080L;
+
+  /** The manager version the columns were built at */
+  final long version;
+  private final int size;
+  private final long[] statuses;
+  private final long[] priorities;  // null unless every priority fits a lane
+  private final int[] priorityInts; // null if priorities is used
+
+  private TaskColumns(long version, int size, long[] statuses, long[] priorities, int[] priorityInts) {
+    this.version = version;
+    this.size = size;
+    this.statuses = statuses;
+    this.priorities = priorities;
+    this.priorityInts = priorityInts;
+  }
+
+  /**
+   * Builds the columns of a task list.
+   * @param tasks the tasks, in list order
+   * @param version the version to record
+   */
+  static TaskColumns of(TaskList<? extends TaskItem> tasks, long version) {
+    int n = tasks.size();
+    int words = (n + 7) >>> 3;
+    long[] statuses = new long[words];
+    int[] ints = new int[n];
+    boolean fits = true;
+    for (int i = 0; i < n; i++) {
+      TaskItem t = tasks.get(i);
+      statuses[i >>> 3] |= (long) statusCode(t.getStatus()) << ((i & 7) << 3);
+      ints[i] = t.getPriority();
+      fits &= ints[i] >= 0 && ints[i] <= 127;
+    }
+    if (!fits) return new TaskColumns(version, n, statuses, null, ints);
+    long[] priorities = new long[words];
+    for (int i = 0; i < n; i++) {
+      priorities[i >>> 3] |= (long) ints[i] << ((i & 7) << 3);
+    }
+    return new TaskColumns(version, n, statuses, priorities, null);
+  }
+
+  /**
+   * Returns the status code of a status: TODO, SCHEDULED or DONE in any
+   * case, otherwise OTHER.
+   */
+  static int statusCode(String status) {
+    if (status == null) return OTHER;
+    if ("TODO".equalsIgnoreCase(status)) return TODO;
+    if ("DONE".equalsIgnoreCase(status)) return DONE;
+    if ("SCHEDULED".equalsIgnoreCase(status)) return SCHEDULED;
+    return OTHER;
+  }
+
+  /** Number of tasks. */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Selects the tasks with a status and at least a priority.
+   * @param status a status code, or ANY
+   * @param minPriority the lowest priority to select (Integer.MIN_VALUE for any)
+   * @return a bitmap with bit i % 64 of word i / 64 set for each selected task i
+   */
+  public long[] select(int status, int minPriority) {
+    long[] bits = new long[(size + 63) >>> 6];
+    if (priorities == null && minPriority != Integer.MIN_VALUE) {
+      selectEach(status, minPriority, bits);
+      return bits;
+    }
+    // with every priority in 0..127, a bound outside that range selects all or none
+    boolean byPriority = minPriority > 0;
+    if (minPriority > 127) return bits;
+    long statusLanes = status * ONES;
+    long priorityLanes = minPriority * ONES;
+    for (int w = 0; w < statuses.length; w++) {
+      long match = HIGH;
+      if (status != ANY) match &= zeroLanes(statuses[w] ^ statusLanes);
+      // a lane keeps its high bit when priority + 128 - minPriority >= 128
+      if (byPriority) match &= (priorities[w] | HIGH) - priorityLanes;
+      bits[w >>> 3] |= (((match >>> 7) * GATHER) >>> 56) << ((w & 7) << 3);
+    }
+    int tail = size & 63;
+    if (tail != 0) bits[bits.length - 1] &= (1L << tail) - 1; // lanes past the last task
+    return bits;
+  }
+
+  /**
+   * Counts the tasks with a status and at least a priority.
+   * @see #select(int, int)
+   */
+  public int count(int status, int minPriority) {
+    int n = 0;
+    for (long word : select(status, minPriority)) {
+      n += Long.bitCount(word);
+    }
+    return n;
+  }
+
+  // The high bit of every lane of x that is zero, exactly
+  private static long zeroLanes(long x) {
+    return ~(((x & LOW7) + LOW7) | x | LOW7);
+  }
+
+  // One task at a time, for priorities that do not fit a lane
+  private void selectEach(int status, int minPriority, long[] bits) {
+    for (int i = 0; i < size; i++) {
+      int code = (int) (statuses[i >>> 3] >>> ((i & 7) << 3)) & 0xFF;
+      if ((status == ANY || code == status) && priorityInts[i] >= minPriority) bits[i >>> 6] |= 1L << i;
+    }
+  }
+}
+
+//------------------------------
+//UndoRedoManager
+//------------------------------
+
+/**
+ * UndoRedoManager implements a simple stack using TaskLinkedList.
+ * <p>
+ * This class is used to manage undo and redo operations for task modifications
+ * in the ToDoListManager. Each push stores a snapshot of a task list or state,
+ * and pop restores the most recent state.
+ * </p>
+ *
+ * <p>Hints for students:</p>
+ * <ul>
+ *   <li>Use TaskLinkedList internally to implement stack behavior (LIFO).</li>
+ *   <li>push() adds a new element to the top of the stack.</li>
+ *   <li>pop() removes and returns the top element of the stack.</li>
+ *   <li>isEmpty() returns true if the stack has no elements.</li>
+ * </ul>
+ *
+ * @param <T> The type of objects stored in the undo/redo stack.
+ */
+class UndoRedoManager<T>{
+	private TaskLinkedList<T> stack;
+
+  public UndoRedoManager() {
+		stack = new TaskLinkedList<>();
+	}
+
+	// push to top
+	public void push(T item) {
+		stack.addFirst(item);
+	}
+
+	// pop from top
+	public T pop() {
+		if (stack.isEmpty()) 
+      return null;
+		return stack.removeFirst();
+	}
+
+	public boolean isEmpty() {
+		return stack.isEmpty();
+	}
+
+	public void clear() {
+		stack.clear();
+	}
+}
+
+//------------------------------
+//PriorityTaskManager
+//------------------------------
+
+/**
+ * PriorityTaskManager implements a max-heap using TaskList to manage tasks
+ * based on their priority. Only tasks with status "TODO" are stored in the heap.
+ * <p>
+ * This class allows students to insert tasks, extract the highest-priority task,
+ * display all tasks in the heap, and build the heap from an existing list of tasks.
+ * </p>
+ *
+ * <p>Hints for students:</p>
+ * <ul>
+ *   <li>Use TaskList internally to implement the heap.</li>
+ *   <li>buildHeap() initializes the heap from a list of tasks (filter only TODO tasks).</li>
+ *   <li>insert() inserts a new task into the heap and maintains max-heap property.</li>
+ *   <li>extractMax() removes and returns the task with the highest priority.</li>
+ *   <li>displayHeap() prints the tasks in heap order.</li>
+ *   <li>higherPriority() compares two tasks and returns true if the first has higher priority.</li>
+ * </ul>
+ *
+ * @param <T> The type of tasks stored in the heap, must extend TaskItem
+ */
+class PriorityTaskManager<T extends TaskItem> {
+  private TaskList<T> heap;
+  
+  public PriorityTaskManager() {
+    heap = new TaskList<>();
+  }
+  
+  public void clear() {
+    heap = new TaskList<>();
+  }
+  
+  // Only accept TODO tasks
+  public void insert(T item) {
+    if (item == null) return;
+    if (!"TODO".equals(item.getStatus())) return;
+    
+    heap.add(item);
+    bubbleUp(heap.size() - 1);
+  }
+  
+  // Extract max and skip any non-TODO tasks
+  public T extractMax() {
+    if(heap.isEmpty()) return null;
+    T max = heap.get(0);
+    T last = heap.removeAt(heap.size() -1);
+
+    if(!heap.isEmpty()) {
+        heap.set(0, last);
+        sinkDown(0);
+    }
+    return max;
+  }
+  
+  public void displayHeap() {
+    if(heap.isEmpty()) return;
+    for(int i = 0; i < heap.size(); i++) {
+        System.out.println(heap.get(i));
+    }
+  }
+  
+  // Swim up to restore heap property
+  private void bubbleUp(int index) {
+    while (index > 0) {
+        int parentIdx = (index - 1) / 2;
+        T current = heap.get(index);
+        T parent = heap.get(parentIdx);
+        
+        // Compare by PRIORITY VALUE, not compareTo
+        if (current.getPriority() > parent.getPriority()) {
+            swap(index, parentIdx);
+            index = parentIdx;
+        } else {
+            break;
+        }
+    }
+}
+  
+  // Sink down to restore heap property
+  private void sinkDown(int index) {
+    int size = heap.size();
+    while (true) {
+        int left = 2 * index + 1;
+        int right = 2 * index + 2;
+        int largest = index;
+        
+        // Compare by PRIORITY VALUE, not compareTo
+        if (left < size && heap.get(left).getPriority() > heap.get(largest).getPriority()) {
+            largest = left;
+        }
+        if (right < size && heap.get(right).getPriority() > heap.get(largest).getPriority()) {
+            largest = right;
+        }
+        
+        if (largest != index) {
+            swap(index, largest);
+            index = largest;
+        } else {
+            break;
+        }
+    }
+  }
+  
+  private void swap(int i, int j) {
+    T temp = heap.get(i);
+    heap.set(i, heap.get(j));
+    heap.set(j, temp);
+  }
+}
+
+//------------------------------
+//TaskTree (BST with DFS and BFS traversal)
+//------------------------------
+
+/**
+ * TaskTree implements a Binary Search Tree (BST) for storing tasks based on their
+ * description (alphabetical order). It allows DFS (in-order) and BFS (level-order)
+ * traversals to visualize tasks.
+ *
+ * <p>Students should use TaskLinkedList as a queue for BFS traversal.</p>
+ *
+ * <p>Hints for students:</p>
+ * <ul>
+ *   <li>Each TreeNode stores a TaskItem.</li>
+ *   <li>buildTree() constructs the BST from a given TaskList.</li>
+ *   <li>insert() adds a new task to the tree, maintaining BST properties.</li>
+ *   <li>dfsPrint() performs an in-order traversal to print tasks alphabetically.</li>
+ *   <li>bfsPrint() performs a level-order traversal to print tasks by tree levels.</li>
+ * </ul>
+ *
+ * @param <T> The type of tasks stored in the tree, must extend TaskItem
+ */
+class TaskTree<T extends TaskItem> {
+    // Node class
+    class TreeNode {
+        T val;
+        TreeNode left, right;
+        TreeNode(T v) { 
+            val = v; 
+            left = right = null; 
+        }
+    }
+    private TreeNode root;
+
+    public TaskTree() {
+        root = null;
+    }
+
+    // insert by description (alphabetical)
+    public void insert(T task) {
+        if (task == null) 
+          return;
+        root = insertRec(root, task);
+    }
+
+    private TreeNode insertRec(TreeNode node, T task) {
+        if (node == null) return new TreeNode(task);
+        String a = task.getDescription();
+        String b = node.val.getDescription();
+        // equal goes RIGHT now
+        if (a.compareToIgnoreCase(b) < 0) {
+            node.left = insertRec(node.left, task);
+        } 
+        else {
+            node.right = insertRec(node.right, task);
+        }
+        return node;
+    }
+
+    // build tree from TaskList
+    public void buildTree(TaskList<T> tasks) {
+        clear();
+        for (int i = 0; i < tasks.size(); i++) 
+          insert(tasks.get(i));
+    }
+
+    // in-order DFS -> alphabetical by description
+    public void dfsPrint() {
+      if (root == null) return;
+		  dfsRec(root);
+	  }
+
+    private void dfsRec(TreeNode node) {
+        if (node == null) 
+          return;
+        dfsRec(node.left);
+        // print description only
+        System.out.println(node.val.getDescription());
+        dfsRec(node.right);
+    }
+
+    // BFS level-order using TaskLinkedList as queue
+    public void bfsPrint() {
+        if (root == null) 
+          return;
+        TaskLinkedList<TreeNode> q = new TaskLinkedList<>();
+        q.addLast(root);
+        while (!q.isEmpty()) {
+            TreeNode node = q.removeFirst();
+            // print description only
+            System.out.println(node.val.getDescription());
+            if (node.left != null) 
+              q.addLast(node.left);
+            if (node.right != null) 
+              q.addLast(node.right);
+        }
+    }
+
+    public void clear() {
+        root = null;
+    }
+}
+
+//------------------------------
+//ToDoListManager (implements all behaviors)
+//------------------------------
+
+/**
+ * ToDoListManager is the main class managing tasks and implements all required operations:
+ * adding, updating, removing tasks; undo/redo history; scheduling; priority access;
+ * searching; sorting; marking tasks as done; and tree-based traversal.
+ *
+ * <p>It uses:</p>
+ * <ul>
+ *   <li>TaskList (dynamic array) to store active tasks</li>
+ *   <li>UndoRedoManager (stack behavior) for undo/redo history</li>
+ *   <li>Scheduler (queue) for FIFO scheduled tasks</li>
+ *   <li>TimingWheelScheduler (timing wheel) for scheduled tasks by due date</li>
+ *   <li>TaskDependencyGraph (DAG) to hold tasks until their prerequisites are DONE</li>
+ *   <li>PriorityTaskManager (max-heap) to get high-priority tasks</li>
+ *   <li>TaskTree (BST) for searching and sorted views</li>
+ *   <li>QueryCache (LRU) for repeated SEARCH_DESC and GET_STATUS results</li>
+ * </ul>
+ *
+ * <p>Students should implement missing functionality or modify behavior as needed, 
+ * especially in scheduling, priority management, undo/redo, and task completion.</p>
+ *
+ * <p>Hints:</p>
+ * <ul>
+ *   <li>Use snapshot() to store a copy of the task list before modifications for undo/redo.</li>
+ *   <li>Remember to rebuild the heap whenever tasks are added, removed, or updated.</li>
+ *   <li>Use taskTree.buildTree(taskList) before traversals (DFS or BFS).</li>
+ *   <li>Filtering and sorting can be done via simple loops or bubble sort for now.</li>
+ *   <li>Mark the first SCHEDULED tasks in the queue as DONE before enqueueing or processing.</li>
+ * </ul>
+ *
+ * @param <T> The type of tasks, must extend TaskItem
+ */
+class ToDoListManager<T extends TaskItem> extends AbstractListManager<T> {
+
+	/** Active tasks list */
+	private TaskList<T> taskList;                  
+	/** Undo history stack */
+	private UndoRedoManager<TaskList<T>> undoHistory;
+	/** Redo history stack */
+	private UndoRedoManager<TaskList<T>> redoHistory;
+	/** FIFO queue for scheduled tasks */
+	private Ischeduler<T> scheduledTasks;           
+	/** Timing wheel of scheduled tasks keyed on due date */
+	private TimingWheelScheduler<T> dueSchedule;
+	/** Dependency edges between task IDs */
+	private TaskDependencyGraph dependencies;
+	/** Max-heap for high-priority tasks */
+	private PriorityTaskManager<T> highPriorityTasks;
+	/** BST for searching and sorted display */
+	private TaskTree<T> taskTree;
+	/** On-disk tier for archived DONE tasks, or null */
+	private TaskArchive archive;
+	/**
+	 * Bumped by every change to the tasks, so cached query results from before
+	 * it are ignored. Changes made directly to the list from getAllTasks() or
+	 * to returned tasks are not seen; call clearQueryCache() after those.
+	 */
+	private long version;
+	/** Results of recent description searches and status queries */
+	private final QueryCache<TaskList<T>> queryCache = new QueryCache<>(QueryCache.DEFAULT_CAPACITY);
+	/** The tasks as they were at beginTransaction(), or null outside a transaction */
+	private TaskList<T> transactionStart;
+	/** Whether a change inside the open transaction needs an undo step */
+	private boolean transactionChanged;
+	/** Whether the task list marks removed slots instead of shifting (see TaskList) */
+	private boolean tombstones;
+	/** Status and priority columns of the task list, rebuilt when the version moves on */
+	private volatile TaskColumns columns;
+
+  public ToDoListManager() {
+		this(new Scheduler<>());
+	}
+
+  /**
+   * Creates a manager that uses the given queue for scheduled tasks.
+   * A LockFreeScheduler or WorkStealingScheduler makes only the queue itself
+   * safe to share between threads. The manager's other state (the task
+   * list, undo/redo, the timing wheel, the dependency graph) is not
+   * synchronized, so concurrent callers need a ConcurrentToDoListManager
+   * created with sharedQueue = true. There, workers dequeue in parallel,
+   * but producers do not: scheduleTask() adds to the task list and still
+   * takes the wrapper's write lock, one call at a time.
+   *
+   * @param scheduler the queue used for scheduled tasks
+   */
+  public ToDoListManager(Ischeduler<T> scheduler) {
+		taskList = new TaskList<>();
+		undoHistory = new UndoRedoManager<>();
+		redoHistory = new UndoRedoManager<>();
+		scheduledTasks = scheduler;
+		dueSchedule = new TimingWheelScheduler<>();
+		dependencies = new TaskDependencyGraph();
+		highPriorityTasks = new PriorityTaskManager<>();
+		taskTree = new TaskTree<>();
+	}
+
+  // Helper: create deep copy snapshot for undo/redo
+  @SuppressWarnings("unchecked")
+	private TaskList<T> createSnapshot() {
+		TaskList<T> snapshot = new TaskList<>();
+		snapshot.setTombstones(tombstones);
+		for(int i = 0; i < taskList.size(); i++) {
+			TaskItem original = taskList.get(i);
+			snapshot.add((T) new TaskItem(original));
+		}
+		return snapshot;
+	}
+
+  // Helper: save state before modification
+	private void saveState() {
+		changed();
+		if (transactionStart != null) {
+			// the whole transaction becomes one undo step at commit
+			transactionChanged = true;
+			return;
+		}
+		undoHistory.push(createSnapshot());
+		redoHistory.clear();
+	}
+
+  // Helper: note a change to the tasks, which makes cached query results stale
+  private void changed() {
+    version++;
+  }
+
+  // Helper: drop a task from the schedule queue and the timing wheel
+  private void unschedule(T task) {
+    if (task == null) return;
+    scheduledTasks.remove(task);
+    dueSchedule.cancel(task.getId());
+  }
+
+  // Helper: after undo/redo the list holds different task objects, so point
+  // the schedule at the restored tasks that are still SCHEDULED
+  private void resyncSchedule() {
+    HashMap<String, T> byId = new HashMap<>();
+    for (int i = 0; i < taskList.size(); i++) {
+      byId.putIfAbsent(taskList.get(i).getId(), taskList.get(i));
+    }
+    TaskList<T> queued = new TaskList<>();
+    for (T t = scheduledTasks.dequeue(); t != null; t = scheduledTasks.dequeue()) {
+      queued.add(t);
+    }
+    dueSchedule.clear();
+    // keep the queue order for tasks that are still scheduled
+    for (int i = 0; i < queued.size(); i++) {
+      T restored = byId.get(queued.get(i).getId());
+      if (restored != null && "SCHEDULED".equals(restored.getStatus())) {
+        scheduledTasks.enqueue(restored);
+        dueSchedule.schedule(restored);
+      }
+    }
+    // tasks that came back as SCHEDULED (e.g. an undone remove) go to the tail
+    for (int i = 0; i < taskList.size(); i++) {
+      T t = taskList.get(i);
+      if ("SCHEDULED".equals(t.getStatus()) && !scheduledTasks.contains(t)) {
+        scheduledTasks.enqueue(t);
+        dueSchedule.schedule(t);
+      }
+    }
+  }
+
+  // Helper: mark a task DONE and release the dependents it was holding back
+  private void markDone(T task) {
+    if ("DONE".equals(task.getStatus())) return;
+    changed();
+    task.setStatus("DONE");
+    release(dependencies.onDone(task.getId()));
+  }
+
+  // Helper: schedule tasks whose prerequisites have all finished; tasks that
+  // were completed or removed while they waited are skipped
+  private void release(TaskList<String> ready) {
+    for (int i = 0; i < ready.size(); i++) {
+      T task = findActive(ready.get(i));
+      if (task != null && !"DONE".equals(task.getStatus())) scheduleTask(ready.get(i));
+    }
+  }
+
+  // Helper: recount dependency edges against the current task list;
+  // archived prerequisites count as DONE, as they do in addDependency()
+  private void recountDependencies() {
+    if (dependencies.isEmpty()) return;
+    HashSet<String> doneIDs = new HashSet<>();
+    HashSet<String> activeIDs = new HashSet<>();
+    for (int i = 0; i < taskList.size(); i++) {
+      activeIDs.add(taskList.get(i).getId());
+      if ("DONE".equals(taskList.get(i).getStatus())) doneIDs.add(taskList.get(i).getId());
+    }
+    if (archive != null) {
+      TaskList<String> pre = dependencies.prerequisiteIDs();
+      for (int i = 0; i < pre.size(); i++) {
+        String id = pre.get(i);
+        if (!activeIDs.contains(id) && archive.find(id) != null) doneIDs.add(id);
+      }
+    }
+    release(dependencies.recount(doneIDs));
+  }
+
+  // Helper: swap elements (used in sorting)
+  private void swap(int i, int j) {
+		T temp = taskList.get(i);
+		taskList.set(i, taskList.get(j));
+		taskList.set(j, temp);
+	}
+
+	// CRUD Operations
+
+  @Override
+  public void addItem(T item) {
+    if (item == null) return;
+    saveState();
+    taskList.add(item);
+  }
+
+  @Override
+  public void removeItem(String taskID) {
+    if (taskID == null) return;
+    saveState();
+    T removed = taskList.removeFirst(t -> t.getId().equals(taskID));
+    if (removed == null) return;
+    unschedule(removed);
+    release(dependencies.removeTask(taskID, "DONE".equals(removed.getStatus())));
+  }
+
+  @Override
+  public void updateItem(String idtaskID, T newItem) {
+    if (idtaskID == null || newItem == null) return;
+    saveState();
+    for (int i = 0; i < taskList.size(); i++) {
+      if (taskList.get(i).getId().equals(idtaskID)) {
+        T old = taskList.get(i);
+        unschedule(old);
+        taskList.set(i, newItem);
+        boolean wasDone = "DONE".equals(old.getStatus());
+        boolean isDone = "DONE".equals(newItem.getStatus());
+        if (wasDone && !isDone) dependencies.onUndone(idtaskID);
+        if (!wasDone && isDone) release(dependencies.onDone(idtaskID));
+        return;
+      }
+    }
+  }
+
+  /**
+   * Moves a task to another position in the list, e.g. when it is dragged
+   * to a new place in a view. It can be undone like any other change.
+   * @param taskID the task to move
+   * @param position its new index, counted with the task itself taken out
+   * @return true if the task was moved, false if it does not exist
+   * @throws IndexOutOfBoundsException if position is not in the list
+   */
+  public boolean moveTask(String taskID, int position) {
+    if (taskID == null) return false;
+    for (int i = 0; i < taskList.size(); i++) {
+      if (taskList.get(i).getId().equals(taskID)) {
+        if (position < 0 || position >= taskList.size())
+          throw new IndexOutOfBoundsException("Index: " + position + " Size: " + taskList.size());
+        saveState();
+        taskList.insert(position, taskList.removeAt(i));
+        return true;
+      }
+    }
+    return false;
+  }
+
+  // Task Completion
+
+  @Override
+  public boolean completeTask(String id) {
+    if (id == null) return false;
+    for (int i = 0; i < taskList.size(); i++) {
+      T task = taskList.get(i);
+      if (task.getId().equals(id)) {
+        saveState();
+        unschedule(task);
+        markDone(task);
+        return true;
+      }
+    }
+    return false;
+  } 
+
+  @Override
+  public void removeCompletedTasks() {
+    saveState();
+    // one pass instead of a shift per removed task
+    taskList.removeIf(t -> "DONE".equalsIgnoreCase(t.getStatus()),
+        t -> dependencies.removeTask(t.getId(), true));
+  }
+
+  /**
+   * Turns tombstone mode of the task list on or off: REMOVE then marks the
+   * task's slot instead of shifting every later task, and the list is
+   * compacted in one pass later (see TaskList). Lists restored by undo keep
+   * the mode. Not for a manager that several threads read at once.
+   * @param on true for tombstones
+   */
+  public void setTombstones(boolean on) {
+    tombstones = on;
+    taskList.setTombstones(on);
+  }
+
+  // Searching 
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T searchById(String taskID) {
+    T found = findActive(taskID);
+    if (found != null || archive == null || taskID == null) return found;
+    return (T) archive.find(taskID);
+  }
+
+  /**
+   * Whether a task is in the in-memory list. Archived tasks can be found by
+   * searchById() but are read-only, so they cannot be scheduled.
+   */
+  public boolean isActive(String taskID) {
+    return findActive(taskID) != null;
+  }
+
+  // Helper: search the in-memory list only
+  private T findActive(String taskID) {
+    if (taskID == null) return null;
+    for (int i = 0; i < taskList.size(); i++) {
+      if (taskList.get(i).getId().equals(taskID)) {
+        return taskList.get(i);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public TaskList<T> searchByDescription(String keyword) {
+    TaskList<T> results = new TaskList<>();
+    if (keyword == null) return results;
+    String key = "D:" + keyword;
+    TaskList<T> cached = queryCache.get(key, version);
+    if (cached != null) return copyOf(cached);
+    for (int i = 0; i < taskList.size(); i++) {
+      if (taskList.get(i).getDescription().contains(keyword)) {
+        results.add(taskList.get(i));
+      }
+    }
+    // archived matches follow the active ones
+    if (archive != null) archive.search(keyword, (TaskList<TaskItem>) results);
+    queryCache.put(key, version, results);
+    return copyOf(results);
+  }
+
+  @Override
+  public TaskList<T> getTasksByStatusSortedByPriority(String status) {
+    TaskList<T> results = new TaskList<>();
+    if (status == null) return results;
+    String key = "S:" + status;
+    TaskList<T> cached = queryCache.get(key, version);
+    if (cached != null) return copyOf(cached);
+    
+    // Filter by status
+    int code = TaskColumns.statusCode(status);
+    if (code != TaskColumns.OTHER) {
+      forSelected(columns().select(code, Integer.MIN_VALUE), results::add);
+    } else {
+      for (int i = 0; i < taskList.size(); i++) {
+        if (taskList.get(i).getStatus().equalsIgnoreCase(status)) {
+          results.add(taskList.get(i));
+        }
+      }
+    }
+    
+    // Bubble sort by priority (ascending)
+    for (int i = 0; i < results.size() - 1; i++) {
+      for (int j = 0; j < results.size() - i - 1; j++) {
+        if (results.get(j).getPriority() > results.get(j + 1).getPriority()) {
+          T temp = results.get(j);
+          results.set(j, results.get(j + 1));
+          results.set(j + 1, temp);
+        }
+      }
+    }
+    
+    queryCache.put(key, version, results);
+    return copyOf(results);
+  }
+
+  /**
+   * Counts the tasks with a status and at least a priority, using the
+   * primitive columns (see TaskColumns).
+   * @param status the status (any case), or null for any
+   * @param minPriority the lowest priority to count
+   * @return the number of matching tasks
+   */
+  public int countTasks(String status, int minPriority) {
+    if (status == null) return columns().count(TaskColumns.ANY, minPriority);
+    int code = TaskColumns.statusCode(status);
+    if (code != TaskColumns.OTHER) return columns().count(code, minPriority);
+    int n = 0;
+    for (int i = 0; i < taskList.size(); i++) {
+      T t = taskList.get(i);
+      if (t.getStatus().equalsIgnoreCase(status) && t.getPriority() >= minPriority) n++;
+    }
+    return n;
+  }
+
+  // Helper: the status and priority columns of the current task list
+  private TaskColumns columns() {
+    TaskColumns c = columns;
+    if (c == null || c.version != version || c.size() != taskList.size()) {
+      c = TaskColumns.of(taskList, version);
+      columns = c;
+    }
+    return c;
+  }
+
+  // Helper: run action on the tasks whose bit is set, in list order
+  private void forSelected(long[] bits, Consumer<? super T> action) {
+    for (int w = 0; w < bits.length; w++) {
+      for (long b = bits[w]; b != 0; b &= b - 1) {
+        action.accept(taskList.get((w << 6) + Long.numberOfTrailingZeros(b)));
+      }
+    }
+  }
+
+  // Helper: a new list with the same tasks, so callers cannot change a cached list
+  private TaskList<T> copyOf(TaskList<T> tasks) {
+    TaskList<T> copy = new TaskList<>();
+    for (int i = 0; i < tasks.size(); i++) {
+      copy.add(tasks.get(i));
+    }
+    return copy;
+  }
+
+  /**
+   * The cache of SEARCH_DESC and GET_STATUS results, for its hit, miss and
+   * eviction counters and to change its capacity.
+   */
+  public QueryCache<TaskList<T>> getQueryCache() {
+    return queryCache;
+  }
+
+  /**
+   * Drops every cached query result and the status and priority columns.
+   * Only needed after changing tasks without going through the manager.
+   */
+  public void clearQueryCache() {
+    queryCache.clear();
+    columns = null;
+  }
+
+  @Override
+  public TaskList<T> getAllTasks() {
+    return taskList; 
+  }
+
+  // Sorting Operations
+
+  @Override
+  public void sortByDescription() {
+    changed();
+    // Bubble sort by description (case-sensitive)
+    for (int i = 0; i < taskList.size() - 1; i++) {
+      for (int j = 0; j < taskList.size() - i - 1; j++) {
+        if (taskList.get(j).getDescription().compareTo(taskList.get(j + 1).getDescription()) > 0) {
+          swap(j, j + 1);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void sortByDueDate() {
+    changed();
+    // Bubble sort by due date
+    for (int i = 0; i < taskList.size() - 1; i++) {
+      for (int j = 0; j < taskList.size() - i - 1; j++) {
+        if (taskList.get(j).getDueDate().compareTo(taskList.get(j + 1).getDueDate()) > 0) {
+          swap(j, j + 1);
+        }
+      }
+    }
+  }
+
+  @Override
+  public void sortByPriority() {
+    changed();
+    // Bubble sort by priority (ascending)
+    for (int i = 0; i < taskList.size() - 1; i++) {
+      for (int j = 0; j < taskList.size() - i - 1; j++) {
+        if (taskList.get(j).getPriority() > taskList.get(j + 1).getPriority()) {
+          swap(j, j + 1);
+        }
+      }
+    }
+  }
+
+  // Undo / Redo (Stack)
+  @Override
+  public void undo() {
+    checkNoTransaction("undo");
+    if(undoHistory.isEmpty()) return;
+    changed();
+    redoHistory.push(taskList);
+    taskList = undoHistory.pop();
+    resyncSchedule();
+    recountDependencies();
+  }
+
+  @Override
+  public void redo() {
+    checkNoTransaction("redo");
+    if(redoHistory.isEmpty()) return;
+    changed();
+    undoHistory.push(taskList);
+    taskList = redoHistory.pop();
+    resyncSchedule();
+    recountDependencies();
+  }
+
+  // Transactions
+
+  /**
+   * Starts a transaction. Until commitTransaction() the changes take no undo
+   * snapshots of their own: the tasks are copied once, here, and the whole
+   * transaction becomes a single undo step.
+   * @throws IllegalStateException if a transaction is already open
+   */
+  public void beginTransaction() {
+    if (transactionStart != null) throw new IllegalStateException("Transaction already open");
+    transactionStart = createSnapshot();
+    transactionChanged = false;
+  }
+
+  /**
+   * Ends the open transaction, keeping its changes as one undo step (none if
+   * nothing that is undoable changed).
+   * @throws IllegalStateException if no transaction is open
+   */
+  public void commitTransaction() {
+    if (transactionStart == null) throw new IllegalStateException("No open transaction");
+    if (transactionChanged) {
+      undoHistory.push(transactionStart);
+      redoHistory.clear();
+    }
+    transactionStart = null;
+  }
+
+  /**
+   * Ends the open transaction and puts the tasks back as they were when it
+   * began. Dependency edges added inside it are kept, like after an undo.
+   * @throws IllegalStateException if no transaction is open
+   */
+  public void rollbackTransaction() {
+    if (transactionStart == null) throw new IllegalStateException("No open transaction");
+    changed();
+    taskList = transactionStart;
+    transactionStart = null;
+    resyncSchedule();
+    recountDependencies();
+  }
+
+  /** Whether beginTransaction() has been called without a commit or rollback. */
+  public boolean inTransaction() {
+    return transactionStart != null;
+  }
+
+  // Helper: reject operations a transaction cannot contain
+  private void checkNoTransaction(String operation) {
+    if (transactionStart != null)
+      throw new IllegalStateException("Cannot " + operation + " inside a transaction");
+  }
+
+  // Scheduling (Queue) 
+
+  @Override
+  public boolean scheduleTask(String taskID) {
+    if (taskID == null) return false;
+    T item = findActive(taskID);
+    if (item != null) {
+      if (scheduledTasks.contains(item))
+        return true; // already scheduled
+      changed();
+      item.setStatus("SCHEDULED");
+      scheduledTasks.enqueue(item);
+      dueSchedule.schedule(item);
+      return true;
+    }
+    return false;
+  }
+
+  @Override
+  public void scheduleTask(T task) {
+    if (task == null) return;
+    saveState();
+    task.setStatus("SCHEDULED");
+    taskList.add(task);
+    unschedule(task); // a queued task with the same ID is replaced
+    scheduledTasks.enqueue(task);
+    dueSchedule.schedule(task);
+  }
+
+  @Override
+  public T processNextScheduledTask() {  // Return T, not ListItem
+    T task = scheduledTasks.dequeue();
+    if (task == null)
+      return null;
+    completeTaken(task);
+    return task;
+  }
+
+  /**
+   * First half of processNextScheduledTask(): takes the next task off the
+   * scheduling queue and touches nothing else, so with a thread-safe queue
+   * it may run on several threads at once (see ConcurrentToDoListManager).
+   * Every task taken must be passed to completeTaken() before any other
+   * change is made to the manager.
+   * @return the task, or null if the queue is empty
+   */
+  T takeScheduled() {
+    return scheduledTasks.dequeue();
+  }
+
+  /**
+   * Second half of processNextScheduledTask(): marks a task returned by
+   * takeScheduled() as DONE and releases its dependents.
+   * @param task the task that was taken
+   */
+  void completeTaken(T task) {
+    dueSchedule.cancel(task.getId());
+    scheduledTasks.remove(task); // scheduled again while it was taken
+    markDone(task);
+  }
+
+  /**
+   * Returns the tasks in the scheduling queue, in FIFO order. The queue is
+   * read in place and left as it is.
+   * @return the queued tasks
+   */
+  public TaskList<T> getScheduledTasks() {
+    return scheduledTasks.toList();
+  }
+
+  /**
+   * Whether a task is waiting in the scheduling queue.
+   * @param taskID the task to check
+   */
+  public boolean isScheduled(String taskID) {
+    T task = findActive(taskID);
+    return task != null && scheduledTasks.contains(task);
+  }
+
+  /**
+   * Takes one particular task out of the scheduling queue, wherever it is,
+   * and marks it as DONE.
+   *
+   * @param taskID the task to process
+   * @return the processed task, or null if it is not in the queue
+   */
+  public T processScheduledTask(String taskID) {
+    T task = findActive(taskID);
+    if (task == null || !scheduledTasks.remove(task)) return null;
+    dueSchedule.cancel(taskID);
+    markDone(task);
+    return task;
+  }
+
+  /**
+   * Removes up to n tasks from the scheduling queue in one call, marks them
+   * as DONE and returns them in FIFO order.
+   *
+   * @param n the maximum number of tasks to process
+   * @return the processed tasks (empty if the queue is empty)
+   */
+  public TaskList<T> processNextScheduledTasks(int n) {
+    TaskList<T> batch = dequeueBatch(n);
+    for (int i = 0; i < batch.size(); i++) {
+      markDone(batch.get(i));
+    }
+    return batch;
+  }
+
+  /**
+   * Removes up to n tasks from the scheduling queue and runs work on each of
+   * them through the executor. The caller waits until the whole batch has
+   * finished, then applies the status updates in one pass on its own thread,
+   * so the manager is never changed from a worker thread.
+   *
+   * <p>Tasks whose work completed are marked DONE and returned. Tasks whose
+   * work threw an exception or was cancelled stay SCHEDULED and go back to
+   * the tail of the queue. If the caller is interrupted, every task that was
+   * not marked DONE yet goes back to the queue before the exception is
+   * thrown, so no task is lost.</p>
+   *
+   * @param n the maximum number of tasks to process
+   * @param work the work to run for each task
+   * @param executor the executor that runs the work (see newWorkExecutor())
+   * @return the tasks whose work completed, in FIFO order
+   * @throws InterruptedException if the caller is interrupted while waiting
+   */
+  public TaskList<T> processNextScheduledTasks(int n, Consumer<? super T> work, ExecutorService executor)
+      throws InterruptedException {
+    TaskList<T> batch = dequeueBatch(n);
+    TaskList<T> done = new TaskList<>();
+    int settled = 0; // tasks before this index are DONE or back in the queue
+    try {
+      ArrayList<Callable<Void>> jobs = new ArrayList<>(batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        T task = batch.get(i);
+        jobs.add(() -> {
+          work.accept(task);
+          return null;
+        });
+      }
+      List<Future<Void>> results = executor.invokeAll(jobs);
+
+      for (; settled < batch.size(); settled++) {
+        T task = batch.get(settled);
+        try {
+          results.get(settled).get();
+          markDone(task);
+          done.add(task);
+        } catch (ExecutionException | CancellationException e) {
+          requeue(task);
+        }
+      }
+    } finally {
+      // interrupted (or the executor refused the jobs): put the rest back
+      for (int i = settled; i < batch.size(); i++) {
+        requeue(batch.get(i));
+      }
+    }
+    return done;
+  }
+
+  // Helper: put a dequeued task back at the tail of the queue and into the timing wheel
+  private void requeue(T task) {
+    scheduledTasks.enqueue(task);
+    dueSchedule.schedule(task);
+  }
+
+  /**
+   * Creates an executor for processNextScheduledTasks(). On a JVM with
+   * virtual threads (Java 21+) every task gets its own virtual thread;
+   * otherwise a cached pool of platform threads is used.
+   *
+   * @return a new executor; the caller should shut it down
+   */
+  public static ExecutorService newWorkExecutor() {
+    try {
+      Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool();
+    }
+  }
+
+  // Helper: take up to n tasks off the queue and the timing wheel
+  private TaskList<T> dequeueBatch(int n) {
+    TaskList<T> batch = new TaskList<>();
+    for (int i = 0; i < n; i++) {
+      T task = scheduledTasks.dequeue();
+      if (task == null) break;
+      dueSchedule.cancel(task.getId());
+      batch.add(task);
+    }
+    return batch;
+  }
+
+  /**
+   * Processes every scheduled task whose due date is on or before now:
+   * each one is removed from the timing wheel and marked as DONE.
+   *
+   * @param now the current date in YYYY-MM-DD format
+   * @return the processed tasks in due-date order
+   * @throws IllegalArgumentException if now is not a valid date
+   */
+  public TaskList<T> processDueTasks(String now) {
+    long tick = TimingWheelScheduler.toTick(now);
+    if (tick == Long.MIN_VALUE)
+      throw new IllegalArgumentException("Invalid date: " + now);
+    TaskList<T> due = dueSchedule.processDue(tick);
+    for (int i = 0; i < due.size(); i++) {
+      scheduledTasks.remove(due.get(i));
+      markDone(due.get(i));
+    }
+    return due;
+  }
+
+  // Task Dependencies (DAG)
+
+  /**
+   * Records that prerequisiteID must be DONE before taskID may be scheduled
+   * with scheduleWhenReady().
+   *
+   * @param taskID the dependent task
+   * @param prerequisiteID the task that must finish first
+   * @return true if the edge was added, false if it already existed
+   * @throws IllegalArgumentException if the edge would create a cycle
+   */
+  public boolean addDependency(String taskID, String prerequisiteID) {
+    T pre = searchById(prerequisiteID);
+    return dependencies.addDependency(taskID, prerequisiteID,
+        pre != null && "DONE".equals(pre.getStatus()));
+  }
+
+  /**
+   * Removes a dependency edge. A waiting task whose last unfinished
+   * prerequisite was this one is scheduled right away.
+   *
+   * @param taskID the dependent task
+   * @param prerequisiteID the prerequisite to drop
+   */
+  public void removeDependency(String taskID, String prerequisiteID) {
+    T pre = searchById(prerequisiteID);
+    release(dependencies.removeDependency(taskID, prerequisiteID,
+        pre != null && "DONE".equals(pre.getStatus())));
+  }
+
+  /**
+   * Schedules a task once all of its prerequisites are DONE. If they already
+   * are, the task goes into the schedule queue now; otherwise it waits and is
+   * released automatically when its last prerequisite is completed.
+   *
+   * @param taskID the task to schedule
+   * @return true if the task was scheduled now, false if it is waiting
+   *         (or does not exist)
+   */
+  public boolean scheduleWhenReady(String taskID) {
+    if (findActive(taskID) == null) return false;
+    if (!dependencies.markWaiting(taskID)) return false;
+    return scheduleTask(taskID);
+  }
+
+  // Archive tier
+
+  /**
+   * Sets the on-disk tier that archiveCompletedTasks() moves DONE tasks to.
+   * searchById() and searchByDescription() look there after the in-memory list.
+   * @param archive the archive, or null for none
+   */
+  public void setArchive(TaskArchive archive) {
+    changed();
+    this.archive = archive;
+  }
+
+  /**
+   * Moves every DONE task from the in-memory list into a new archive
+   * segment. The tasks can still be found by ID and description but can no
+   * longer change. Like a snapshot, this starts the undo history over.
+   *
+   * @return the number of tasks archived
+   * @throws IOException if the segment cannot be written (nothing is moved)
+   * @throws IllegalStateException if no archive is set
+   */
+  public int archiveCompletedTasks() throws IOException {
+    if (archive == null) throw new IllegalStateException("No archive directory");
+    checkNoTransaction("archive");
+    TaskList<T> done = new TaskList<>();
+    TaskList<T> active = new TaskList<>();
+    active.setTombstones(tombstones);
+    for (int i = 0; i < taskList.size(); i++) {
+      T task = taskList.get(i);
+      if ("DONE".equals(task.getStatus())) done.add(task);
+      else active.add(task);
+    }
+    if (done.size() == 0) return 0;
+    archive.append(done);
+    changed();
+    taskList = active;
+    for (int i = 0; i < done.size(); i++) {
+      unschedule(done.get(i));
+      dependencies.removeTask(done.get(i).getId(), true);
+    }
+    undoHistory.clear();
+    redoHistory.clear();
+    return done.size();
+  }
+
+  // Bulk import/export
+
+  /**
+   * Imports every task from a task file (see ItaskReader.open()).
+   * @return the number of tasks imported
+   * @throws IOException if the file cannot be read or has a malformed row
+   */
+  public int importTasks(Path path) throws IOException {
+    try (ItaskReader in = ItaskReader.open(path)) {
+      return importTasks(in);
+    }
+  }
+
+  /**
+   * Adds every task from a reader as one change: a single undo entry for the
+   * whole import, and the schedule and dependency counts are brought up to
+   * date once at the end instead of per row. Imported tasks that are
+   * SCHEDULED join the schedule queue in file order.
+   * <p>
+   * Rows are collected before anything is added, so a malformed row leaves
+   * the manager unchanged.
+   * </p>
+   *
+   * @param in the tasks to add
+   * @return the number of tasks imported
+   * @throws IOException if the input cannot be read or has a malformed row
+   */
+  @SuppressWarnings("unchecked")
+  public int importTasks(ItaskReader in) throws IOException {
+    TaskList<T> rows = new TaskList<>();
+    for (TaskItem task = in.next(); task != null; task = in.next()) {
+      rows.add((T) task);
+    }
+    if (rows.size() == 0) return 0;
+    saveState();
+    for (int i = 0; i < rows.size(); i++) {
+      taskList.add(rows.get(i));
+    }
+    for (int i = 0; i < rows.size(); i++) {
+      T task = rows.get(i);
+      if ("SCHEDULED".equals(task.getStatus())) {
+        scheduledTasks.enqueue(task);
+        dueSchedule.schedule(task);
+      }
+    }
+    recountDependencies();
+    return rows.size();
+  }
+
+  /**
+   * Exports all tasks, in list order, to a task file (see ItaskWriter.create()).
+   * @return the number of tasks exported
+   * @throws IOException if the file cannot be written
+   */
+  public int exportTasks(Path path) throws IOException {
+    try (ItaskWriter out = ItaskWriter.create(path)) {
+      return exportTasks(out);
+    }
+  }
+
+  /**
+   * Writes all tasks, in list order, to a writer.
+   * @return the number of tasks written
+   * @throws IOException if the output cannot be written
+   */
+  public int exportTasks(ItaskWriter out) throws IOException {
+    for (int i = 0; i < taskList.size(); i++) {
+      out.write(taskList.get(i));
+    }
+    return taskList.size();
+  }
+
+  // Snapshots
+
+  /**
+   * Writes the current state to a snapshot file (see SnapshotFile) and
+   * starts the undo history over: undo cannot go back past a snapshot. That
+   * is what lets the write-ahead log be replayed from logOffset on top of
+   * the snapshot, since an UNDO in the log never needs older states.
+   *
+   * @param path the snapshot file
+   * @param logOffset the write-ahead log length this state includes
+   * @param logRecords the number of log records this state includes
+   * @throws IOException if the snapshot cannot be written
+   */
+  public void writeSnapshot(Path path, long logOffset, long logRecords) throws IOException {
+    SnapshotFile.write(path, taskList, getScheduledTasks(), dependencies, logOffset, logRecords,
+        archive == null ? 0 : archive.segmentCount());
+    undoHistory.clear();
+    redoHistory.clear();
+  }
+
+  /**
+   * Loads a snapshot into this manager, which must be empty. The tasks are
+   * read from the mapped file the first time they are used.
+   *
+   * @param path the snapshot file
+   * @return the snapshot, which tells where to resume the write-ahead log
+   * @throws IOException if the snapshot cannot be read
+   * @throws IllegalStateException if the manager already has tasks
+   */
+  @SuppressWarnings("unchecked")
+  public SnapshotFile loadSnapshot(Path path) throws IOException {
+    if (taskList.size() > 0) throw new IllegalStateException("Snapshots load into an empty manager");
+    SnapshotFile snapshot = SnapshotFile.open(path);
+    changed();
+    if (snapshot.archiveSegments() > 0) {
+      if (archive == null) throw new IOException("Snapshot " + path + " has archived tasks but no archive is set");
+      archive.setSegmentCount(snapshot.archiveSegments());
+    }
+    for (int i = 0; i < snapshot.taskCount(); i++) {
+      taskList.add((T) snapshot.task(i));
+    }
+    for (int record : snapshot.queue()) {
+      T task = taskList.get(record);
+      scheduledTasks.enqueue(task);
+      dueSchedule.schedule(task);
+    }
+    snapshot.readDependencies(dependencies);
+    return snapshot;
+  }
+
+  /**
+   * Returns how many prerequisites of a task are not DONE yet.
+   * @param taskID the task to check
+   * @return the number of unfinished prerequisites
+   */
+  public int pendingPrerequisites(String taskID) {
+    return dependencies.pendingCount(taskID);
+  }
+
+  // BST Traversals
+
+  @Override
+  public void traverseBSTDFS() {
+    taskTree.buildTree(taskList);
+    taskTree.dfsPrint();
+  }
+
+  @Override
+  public void traverseBSTBFS() {
+    taskTree.buildTree(taskList);
+    taskTree.bfsPrint();
+  }
+
+  // Priority Queue (Heap)
+
+  @Override
+  public T getNextHighPriorityTask() {
+    fillTodoHeap();
+    return highPriorityTasks.extractMax();
+  }
+
+  // Helper: put the TODO tasks into the heap, in list order
+  private void fillTodoHeap() {
+    highPriorityTasks.clear();
+    forSelected(columns().select(TaskColumns.TODO, Integer.MIN_VALUE), highPriorityTasks::insert);
+  }
+
+  @Override
+  public void displayHeap() {
+    fillTodoHeap();
+    highPriorityTasks.displayHeap();
+}
+}
+//------------------------------
+//ConcurrentToDoListManager
+//------------------------------
+
+/**
+ * ConcurrentToDoListManager lets several threads share one ToDoListManager,
+ * e.g. a writer applying commands while readers run searches and reports.
+ *
+ * <p>Every call goes through a StampedLock. Writes take the write lock, so
+ * they run one at a time. Reads first run without locking under an optimistic
+ * stamp; if a write happened meanwhile (or the read tripped over a half-done
+ * write and threw), the read runs again under the read lock. Reads therefore
+ * never block each other, and only block on a writer when they actually
+ * overlapped with one.</p>
+ *
+ * <p>Tasks and lists returned by this class are copies, because the manager's
+ * own objects keep changing after the lock is released. getAllTasks() copies
+ * the whole list, so prefer the searches when only some tasks are needed.</p>
+ *
+ * <p>Long reads over every task (DISPLAY, the traversals, reports) should use
+ * openView() instead: it pins a version of the list that later writes do not
+ * change, and the reader walks it without holding any lock.</p>
+ *
+ * <p>Workers draining the schedule: when the wrapped manager uses a
+ * thread-safe queue (LockFreeScheduler, WorkStealingScheduler) and the
+ * wrapper is created with sharedQueue = true, processNextScheduledTask()
+ * takes the task off the queue under the shared read lock, so workers
+ * dequeue in parallel, and leaves it in a set of taken tasks. The next
+ * write, whichever thread runs it, first completes every taken task (marks
+ * it DONE, cancels its timing-wheel entry, releases its dependents) under
+ * the write lock. Completion stays serialized, but one write completes all
+ * the tasks taken since the last one, and no other write ever sees a task
+ * that was taken but not completed. Every other write, scheduleTask()
+ * included, still takes the write lock.</p>
+ *
+ * @param <T> The type of tasks, must extend TaskItem
+ */
+class ConcurrentToDoListManager<T extends TaskItem> extends AbstractListManager<T> {
+  private final ToDoListManager<T> manager;
+  private final StampedLock lock = new StampedLock();
+  /** Whether the manager's queue may be dequeued by several threads at once */
+  private final boolean sharedQueue;
+  /** Tasks taken off the queue and not yet completed; see completeTaken() */
+  private final ConcurrentLinkedQueue<T> taken = new ConcurrentLinkedQueue<>();
+  /** Bumped by every write, under the write lock */
+  private volatile long version;
+  /** The newest published version of the task list, or null before the first openView() */
+  private volatile TaskListVersion<T> published;
+  /** Versions still reachable: the published one and any a view has pinned */
+  private final AtomicInteger liveVersions = new AtomicInteger();
+
+  public ConcurrentToDoListManager() {
+    this(new ToDoListManager<>());
+  }
+
+  /**
+   * Wraps an existing manager. After this, the manager must only be used
+   * through the wrapper.
+   * @param manager the manager to share
+   */
+  public ConcurrentToDoListManager(ToDoListManager<T> manager) {
+    this(manager, false);
+  }
+
+  /**
+   * Wraps an existing manager whose scheduling queue may be thread-safe.
+   * @param manager the manager to share
+   * @param sharedQueue true if the manager was created with a queue that
+   *        several threads may dequeue from at once; processNextScheduledTask()
+   *        then dequeues outside the write lock
+   */
+  public ConcurrentToDoListManager(ToDoListManager<T> manager, boolean sharedQueue) {
+    this.manager = manager;
+    this.sharedQueue = sharedQueue;
+    manager.setTombstones(false); // reads must not compact the list under a shared lock
+  }
+
+  // Helper: run a read optimistically, then under the read lock if a write got in the way
+  private <R> R read(Supplier<R> body) {
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        R result = body.get();
+        if (lock.validate(stamp)) return result;
+      } catch (RuntimeException e) {
+        // a real failure, not one caused by a concurrent write
+        if (lock.validate(stamp)) throw e;
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return body.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Helper: run a read under the read lock only, for reads that fill the
+  // manager's query cache and so must never see a half-done write
+  private <R> R readLocked(Supplier<R> body) {
+    long stamp = lock.readLock();
+    try {
+      return body.get();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  // Helper: run a write under the write lock
+  private <R> R write(Supplier<R> body) {
+    long stamp = lock.writeLock();
+    try {
+      version++;
+      completeTaken();
+      return body.get();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private void write(Runnable body) {
+    long stamp = lock.writeLock();
+    try {
+      version++;
+      completeTaken();
+      body.run();
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Helper: under the write lock, complete the tasks workers have taken off
+  // the queue. Tasks are only taken under the read lock, so none is being
+  // added while this runs.
+  private void completeTaken() {
+    for (T task = taken.poll(); task != null; task = taken.poll()) {
+      manager.completeTaken(task);
+    }
+  }
+
+  // Helper: copy a task so the caller does not share it with the writer
+  @SuppressWarnings("unchecked")
+  private T copy(T task) {
+    return task == null ? null : (T) new TaskItem(task);
+  }
+
+  private TaskList<T> copy(TaskList<T> tasks) {
+    TaskList<T> copies = new TaskList<>();
+    for (int i = 0; i < tasks.size(); i++) {
+      copies.add(copy(tasks.get(i)));
+    }
+    return copies;
+  }
+
+  // CRUD Operations
+
+  @Override
+  public void addItem(T item) {
+    write(() -> manager.addItem(item));
+  }
+
+  @Override
+  public void removeItem(String taskID) {
+    write(() -> manager.removeItem(taskID));
+  }
+
+  @Override
+  public void updateItem(String idtaskID, T newItem) {
+    write(() -> manager.updateItem(idtaskID, newItem));
+  }
+
+  // Task Completion
+
+  @Override
+  public boolean completeTask(String id) {
+    return write(() -> manager.completeTask(id));
+  }
+
+  @Override
+  public void removeCompletedTasks() {
+    write(() -> manager.removeCompletedTasks());
+  }
+
+  // Searching
+
+  @Override
+  public T searchById(String taskID) {
+    return read(() -> copy(manager.searchById(taskID)));
+  }
+
+  /** See ToDoListManager.isActive(). */
+  public boolean isActive(String taskID) {
+    return read(() -> manager.isActive(taskID));
+  }
+
+  @Override
+  public TaskList<T> searchByDescription(String keyword) {
+    return readLocked(() -> copy(manager.searchByDescription(keyword)));
+  }
+
+  @Override
+  public TaskList<T> getTasksByStatusSortedByPriority(String status) {
+    return readLocked(() -> copy(manager.getTasksByStatusSortedByPriority(status)));
+  }
+
+  @Override
+  public TaskList<T> getAllTasks() {
+    return read(() -> copy(manager.getAllTasks()));
+  }
+
+  // Sorting Operations
+
+  @Override
+  public void sortByDescription() {
+    write(() -> manager.sortByDescription());
+  }
+
+  @Override
+  public void sortByDueDate() {
+    write(() -> manager.sortByDueDate());
+  }
+
+  @Override
+  public void sortByPriority() {
+    write(() -> manager.sortByPriority());
+  }
+
+  // Undo / Redo (Stack)
+
+  @Override
+  public void undo() {
+    write(() -> manager.undo());
+  }
+
+  @Override
+  public void redo() {
+    write(() -> manager.redo());
+  }
+
+  // Scheduling (Queue)
+
+  @Override
+  public boolean scheduleTask(String taskID) {
+    return write(() -> manager.scheduleTask(taskID));
+  }
+
+  @Override
+  public void scheduleTask(T task) {
+    write(() -> manager.scheduleTask(task));
+  }
+
+  /**
+   * See ToDoListManager.processNextScheduledTask(). With sharedQueue the
+   * task is dequeued under the read lock, in parallel with other workers,
+   * and completed by the next write (see the class comment).
+   */
+  @Override
+  public T processNextScheduledTask() {
+    if (!sharedQueue) return write(() -> copy(manager.processNextScheduledTask()));
+    T task;
+    long stamp = lock.readLock();
+    try {
+      task = manager.takeScheduled();
+      if (task != null) taken.add(task);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+    if (task == null) return null;
+    return write(() -> copy(task)); // completes task, and any other taken ones
+  }
+
+  /** See ToDoListManager.getScheduledTasks(). */
+  public TaskList<T> getScheduledTasks() {
+    return readLocked(() -> copy(manager.getScheduledTasks()));
+  }
+
+  /** See ToDoListManager.isScheduled(). */
+  public boolean isScheduled(String taskID) {
+    return read(() -> manager.isScheduled(taskID));
+  }
+
+  /** See ToDoListManager.processScheduledTask(). */
+  public T processScheduledTask(String taskID) {
+    return write(() -> copy(manager.processScheduledTask(taskID)));
+  }
+
+  /** See ToDoListManager.processNextScheduledTasks(int). */
+  public TaskList<T> processNextScheduledTasks(int n) {
+    return write(() -> copy(manager.processNextScheduledTasks(n)));
+  }
+
+  /** See ToDoListManager.processDueTasks(). */
+  public TaskList<T> processDueTasks(String now) {
+    return write(() -> copy(manager.processDueTasks(now)));
+  }
+
+  // Task Dependencies (DAG)
+
+  /** See ToDoListManager.addDependency(). */
+  public boolean addDependency(String taskID, String prerequisiteID) {
+    return write(() -> manager.addDependency(taskID, prerequisiteID));
+  }
+
+  /** See ToDoListManager.removeDependency(). */
+  public void removeDependency(String taskID, String prerequisiteID) {
+    write(() -> manager.removeDependency(taskID, prerequisiteID));
+  }
+
+  /** See ToDoListManager.scheduleWhenReady(). */
+  public boolean scheduleWhenReady(String taskID) {
+    return write(() -> manager.scheduleWhenReady(taskID));
+  }
+
+  /** See ToDoListManager.pendingPrerequisites(). */
+  public int pendingPrerequisites(String taskID) {
+    return read(() -> manager.pendingPrerequisites(taskID));
+  }
+
+  // Read views (MVCC)
+
+  /**
+   * Pins the current version of the task list for a long read. The view never
+   * changes, writers are not held up while it is read, and it never shows a
+   * write half done. Close it when finished so its version can be reclaimed.
+   *
+   * <p>The first view after a write builds the new version: one pass over the
+   * list, optimistically first and under the read lock if writers get in the
+   * way. Chunks of tasks that did not change are shared with the version
+   * before, so holding several versions costs little more than one.</p>
+   *
+   * @return a view of the newest version
+   */
+  public ReadView<T> openView() {
+    TaskListVersion<T> current = published;
+    if (current == null || current.version() != version) {
+      synchronized (liveVersions) {
+        current = published;
+        if (current == null || current.version() != version) current = publish(current);
+      }
+    }
+    return new ReadView<>(current, liveVersions);
+  }
+
+  // Helper: build and publish the version the list is at now
+  private TaskListVersion<T> publish(TaskListVersion<T> previous) {
+    TaskListVersion<T> next = null;
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        next = new TaskListVersion<>(version, manager.getAllTasks(), previous);
+        if (!lock.validate(stamp)) next = null;
+      } catch (RuntimeException e) {
+        if (lock.validate(stamp)) throw e;
+      }
+    }
+    if (next == null) {
+      stamp = lock.readLock();
+      try {
+        next = new TaskListVersion<>(version, manager.getAllTasks(), previous);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    liveVersions.incrementAndGet();
+    published = next;
+    if (previous != null) previous.retire(liveVersions);
+    return next;
+  }
+
+  /** The number of task list versions still held: the newest one plus older ones open views pin. */
+  public int liveVersions() {
+    return liveVersions.get();
+  }
+
+  // BST Traversals
+  // The tree is built from a read view on the caller's thread, so writers go
+  // on while it is built and printed, and the manager's own tree is not used.
+
+  @Override
+  public void traverseBSTDFS() {
+    TaskTree<T> tree = new TaskTree<>();
+    try (ReadView<T> view = openView()) {
+      tree.buildTree(view.toList());
+    }
+    tree.dfsPrint();
+  }
+
+  @Override
+  public void traverseBSTBFS() {
+    TaskTree<T> tree = new TaskTree<>();
+    try (ReadView<T> view = openView()) {
+      tree.buildTree(view.toList());
+    }
+    tree.bfsPrint();
+  }
+
+  // Priority Queue (Heap)
+  // The manager rebuilds one shared heap on every call, which readers cannot
+  // do at the same time, so each call builds its own.
+
+  @Override
+  public T getNextHighPriorityTask() {
+    return read(() -> copy(todoHeap(false).extractMax()));
+  }
+
+  @Override
+  public void displayHeap() {
+    read(() -> todoHeap(true)).displayHeap();
+  }
+
+  // Helper: a heap of the TODO tasks, in list order like the manager's heap
+  private PriorityTaskManager<T> todoHeap(boolean copies) {
+    PriorityTaskManager<T> heap = new PriorityTaskManager<>();
+    TaskList<T> tasks = manager.getAllTasks();
+    for (int i = 0; i < tasks.size(); i++) {
+      if ("TODO".equalsIgnoreCase(tasks.get(i).getStatus())) {
+        heap.insert(copies ? copy(tasks.get(i)) : tasks.get(i));
+      }
+    }
+    return heap;
+  }
+}
+
+//------------------------------
+//ShardedToDoListManager
+//------------------------------
+
+/**
+ * ShardedToDoListManager splits the tasks over N independent shards by a
+ * hash of the task ID. Each shard is a ConcurrentToDoListManager with its
+ * own TaskList, schedule queue, heap and undo history, so writes to
+ * different shards run at the same time on different cores, and every undo
+ * snapshot only copies one shard.
+ *
+ * <p>Calls that name a task ID go to that task's shard only. Calls about all
+ * tasks ask every shard and k-way merge the answers, which come back in the
+ * order one ToDoListManager holding every task would use:</p>
+ * <ul>
+ *   <li>DISPLAY, SEARCH_DESC and the traversals use list order: the order
+ *       tasks were added, or the last sort key with earlier ones breaking ties.
+ *       Sorting only changes this order, so tasks added or updated after a
+ *       sort, or brought back by undo, show up in sorted position.</li>
+ *   <li>GET_STATUS merges the shards' priority-sorted lists.</li>
+ *   <li>GET_NEXT_PRIORITY takes the best of the shards' tops.</li>
+ *   <li>PROCESS_NEXT follows the order tasks were scheduled in, across shards.</li>
+ * </ul>
+ *
+ * <p>UNDO and REDO undo the latest change to any shard, by restoring that
+ * shard alone. Scheduling and processing have no undo entry of their own, so
+ * when they happened in other shards since, they are kept (one manager would
+ * roll them back too). Changes to different shards from different threads
+ * happen in no fixed order, so undo is only meaningful when one thread makes
+ * the changes. Tasks cannot depend on tasks
+ * in other shards, so dependencies are not offered here. An update must keep
+ * the task's ID, since the ID decides the shard.</p>
+ *
+ * @param <T> The type of tasks, must extend TaskItem
+ */
+class ShardedToDoListManager<T extends TaskItem> extends AbstractListManager<T> {
+  /** Undo entry for a change that touched every shard */
+  private static final int ALL_SHARDS = -1;
+
+  private final ConcurrentToDoListManager<T>[] shards;
+  /**
+   * When each task ID in a shard was last added, for putting the shard lists
+   * back in one order. An ID leaves when its last task leaves its shard; the
+   * undo entry of that change keeps the value for undo to put back.
+   */
+  private final ConcurrentHashMap<String, Long> addedAt = new ConcurrentHashMap<>();
+  private final AtomicLong nextAdded = new AtomicLong();
+  /** Tasks in the order they entered a schedule queue */
+  private final LockFreeScheduler<ScheduledTask> scheduleOrder = new LockFreeScheduler<>();
+  /** The scheduleOrder entry of each queued task ID; both go when the task leaves its queue */
+  private final ConcurrentHashMap<String, ScheduledTask> scheduledAt = new ConcurrentHashMap<>();
+  /** The changes to undo and redo */
+  private final UndoRedoManager<Change> undoShards = new UndoRedoManager<>();
+  private final UndoRedoManager<Change> redoShards = new UndoRedoManager<>();
+  /** Sort keys used so far, latest first: D(escription), U (due date), P(riority) */
+  private volatile String sortKeys = "";
+
+  // One scheduleOrder entry
+  private static class ScheduledTask {
+    final String id;
+
+    ScheduledTask(String id) {
+      this.id = id;
+    }
+  }
+
+  // One undo or redo entry: the shard a change went to (ALL_SHARDS for all)
+  // and the addedAt values of the IDs it took out of their shards
+  private static class Change {
+    final int shard;
+    final HashMap<String, Long> removed;
+
+    Change(int shard, HashMap<String, Long> removed) {
+      this.shard = shard;
+      this.removed = removed;
+    }
+  }
 
-	/** Active tasks list */
-	private TaskList<T> taskList;                  
-	/** Undo history stack */
-	private UndoRedoManager<TaskList<T>> undoHistory;
-	/** Redo history stack */
-	private UndoRedoManager<TaskList<T>> redoHistory;
-	/** FIFO queue for scheduled tasks */
-	private Scheduler<T> scheduledTasks;           
-	/** Max-heap for high-priority tasks */
-	private PriorityTaskManager<T> highPriorityTasks;
-	/** BST for searching and sorted display */
-	private TaskTree<T> taskTree;
+  /**
+   * @param shardCount the number of shards, e.g. the number of cores
+   */
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  public ShardedToDoListManager(int shardCount) {
+    if (shardCount < 1) throw new IllegalArgumentException("Shard count must be at least 1");
+    shards = new ConcurrentToDoListManager[shardCount];
+    for (int i = 0; i < shardCount; i++) {
+      shards[i] = new ConcurrentToDoListManager<>();
+    }
+  }
 
-  public ToDoListManager() {
-		taskList = new TaskList<>();
-		undoHistory = new UndoRedoManager<>();
-		redoHistory = new UndoRedoManager<>();
-		scheduledTasks = new Scheduler<>();
-		highPriorityTasks = new PriorityTaskManager<>();
-		taskTree = new TaskTree<>();
-	}
+  public int shardCount() {
+    return shards.length;
+  }
 
-  // Helper: create deep copy snapshot for undo/redo
-  @SuppressWarnings("unchecked")
-	private TaskList<T> createSnapshot() {
-		TaskList<T> snapshot = new TaskList<>();
-		for(int i = 0; i < taskList.size(); i++) {
-			TaskItem original = taskList.get(i);
-			snapshot.add((T) new TaskItem(original));
-		}
-		return snapshot;
-	}
+  // Helper: the shard a task ID belongs to
+  private int shardOf(String taskID) {
+    int h = taskID.hashCode();
+    return Math.floorMod(h ^ (h >>> 16), shards.length);
+  }
 
-  // Helper: save state before modification
-	private void saveState() {
-		undoHistory.push(createSnapshot());
-		redoHistory.clear();
-	}
+  // Helper: remember which shard a change went to (ALL_SHARDS for all)
+  private void recordChange(int shard) {
+    recordChange(shard, null);
+  }
 
-  // Helper: swap elements (used in sorting)
-  private void swap(int i, int j) {
-		T temp = taskList.get(i);
-		taskList.set(i, taskList.get(j));
-		taskList.set(j, temp);
-	}
+  // Helper: the same, with the addedAt values the change removed
+  private void recordChange(int shard, HashMap<String, Long> removed) {
+    synchronized (undoShards) {
+      undoShards.push(new Change(shard, removed));
+      redoShards.clear();
+    }
+  }
 
-	// CRUD Operations
+  // Helper: the IDs of the tasks in one shard
+  private HashSet<String> ids(int shard) {
+    HashSet<String> ids = new HashSet<>();
+    TaskList<T> tasks = shards[shard].getAllTasks();
+    for (int i = 0; i < tasks.size(); i++) ids.add(tasks.get(i).getId());
+    return ids;
+  }
+
+  // Helper: drop the addedAt value of an ID whose last task left its shard,
+  // keeping it in removed
+  private HashMap<String, Long> forget(int shard, String taskID, HashMap<String, Long> removed) {
+    Long added = addedAt.get(taskID);
+    if (added == null || shards[shard].isActive(taskID) || !addedAt.remove(taskID, added)) return removed;
+    if (removed == null) removed = new HashMap<>();
+    removed.put(taskID, added);
+    return removed;
+  }
+
+  // Helper: drop the schedule order entry of a task that left its queue
+  private void leftQueue(int shard, String taskID) {
+    ScheduledTask entry = scheduledAt.get(taskID);
+    if (entry == null || shards[shard].isScheduled(taskID)) return;
+    if (scheduledAt.remove(taskID, entry)) scheduleOrder.remove(entry);
+  }
+
+  // Helper: list order, built from the sort keys with the add order last
+  private Comparator<TaskItem> listOrder() {
+    Comparator<TaskItem> order = Comparator.comparingLong(t -> addedAt.getOrDefault(t.getId(), Long.MAX_VALUE));
+    String keys = sortKeys;
+    for (int i = keys.length() - 1; i >= 0; i--) {
+      switch (keys.charAt(i)) {
+        case 'D': order = Comparator.comparing(TaskItem::getDescription).thenComparing(order); break;
+        case 'U': order = Comparator.comparing(TaskItem::getDueDate).thenComparing(order); break;
+        default: order = Comparator.comparingInt(TaskItem::getPriority).thenComparing(order); break;
+      }
+    }
+    return order;
+  }
+
+  // Helper: sort every shard's answer by order and k-way merge them into one list
+  private TaskList<T> merge(TaskList<TaskList<T>> parts, Comparator<? super T> order) {
+    for (int s = 0; s < parts.size(); s++) {
+      sort(parts.get(s), order);
+    }
+    // each head is {shard, index}; equal tasks keep shard then index order
+    PriorityQueue<int[]> heads = new PriorityQueue<>((a, b) -> {
+      int cmp = order.compare(parts.get(a[0]).get(a[1]), parts.get(b[0]).get(b[1]));
+      return cmp != 0 ? cmp : a[0] != b[0] ? Integer.compare(a[0], b[0]) : Integer.compare(a[1], b[1]);
+    });
+    for (int s = 0; s < parts.size(); s++) {
+      if (parts.get(s).size() > 0) heads.add(new int[] {s, 0});
+    }
+    TaskList<T> merged = new TaskList<>();
+    while (!heads.isEmpty()) {
+      int[] head = heads.poll();
+      TaskList<T> part = parts.get(head[0]);
+      merged.add(part.get(head[1]));
+      if (++head[1] < part.size()) heads.add(head);
+    }
+    return merged;
+  }
+
+  // Helper: stable sort of one shard's answer (already sorted in the common case)
+  @SuppressWarnings("unchecked")
+  private void sort(TaskList<T> part, Comparator<? super T> order) {
+    T[] items = (T[]) new TaskItem[part.size()];
+    for (int i = 0; i < items.length; i++) items[i] = part.get(i);
+    Arrays.sort(items, order);
+    for (int i = 0; i < items.length; i++) part.set(i, items[i]);
+  }
+
+  // CRUD Operations
 
   @Override
   public void addItem(T item) {
     if (item == null) return;
-    saveState();
-    taskList.add(item);
+    int shard = shardOf(item.getId());
+    addedAt.put(item.getId(), nextAdded.incrementAndGet());
+    shards[shard].addItem(item);
+    recordChange(shard);
   }
 
   @Override
   public void removeItem(String taskID) {
     if (taskID == null) return;
-    saveState();
-    for (int i = 0; i < taskList.size(); i++) {
-      if (taskList.get(i).getId().equals(taskID)) {
-        taskList.removeAt(i);
-        return;
-      }
-    }
+    int shard = shardOf(taskID);
+    shards[shard].removeItem(taskID);
+    leftQueue(shard, taskID);
+    recordChange(shard, forget(shard, taskID, null));
   }
 
   @Override
   public void updateItem(String idtaskID, T newItem) {
     if (idtaskID == null || newItem == null) return;
-    saveState();
-    for (int i = 0; i < taskList.size(); i++) {
-      if (taskList.get(i).getId().equals(idtaskID)) {
-        taskList.set(i, newItem);
-        return;
-      }
-    }
+    if (!idtaskID.equals(newItem.getId()))
+      throw new IllegalArgumentException("An updated task must keep its ID: " + idtaskID);
+    int shard = shardOf(idtaskID);
+    shards[shard].updateItem(idtaskID, newItem);
+    leftQueue(shard, idtaskID);
+    recordChange(shard);
   }
 
   // Task Completion
@@ -1242,205 +7885,380 @@ class ToDoListManager<T extends TaskItem> extends AbstractListManager<T> {
   @Override
   public boolean completeTask(String id) {
     if (id == null) return false;
-    for (int i = 0; i < taskList.size(); i++) {
-      T task = taskList.get(i);
-      if (task.getId().equals(id)) {
-        saveState();
-        task.setStatus("DONE");
-        return true;
-      }
-    }
-    return false;
-  } 
+    int shard = shardOf(id);
+    if (!shards[shard].completeTask(id)) return false;
+    leftQueue(shard, id);
+    recordChange(shard);
+    return true;
+  }
 
   @Override
   public void removeCompletedTasks() {
-    saveState();
-    // Loop backwards to avoid index shifting issues
-    for (int i = taskList.size() - 1; i >= 0; i--) {
-      if ("DONE".equalsIgnoreCase(taskList.get(i).getStatus())) {
-        taskList.removeAt(i);
-      }
+    HashMap<String, Long> removed = null;
+    for (int s = 0; s < shards.length; s++) {
+      HashSet<String> before = ids(s);
+      shards[s].removeCompletedTasks();
+      before.removeAll(ids(s));
+      for (String id : before) removed = forget(s, id, removed);
     }
+    recordChange(ALL_SHARDS, removed);
   }
 
-  // Searching 
+  // Searching
 
   @Override
   public T searchById(String taskID) {
-    if (taskID == null) return null;
-    for (int i = 0; i < taskList.size(); i++) {
-      if (taskList.get(i).getId().equals(taskID)) {
-        return taskList.get(i);
-      }
-    }
-    return null;
+    return taskID == null ? null : shards[shardOf(taskID)].searchById(taskID);
   }
 
   @Override
   public TaskList<T> searchByDescription(String keyword) {
-    TaskList<T> results = new TaskList<>();
-    if (keyword == null) return results;
-    for (int i = 0; i < taskList.size(); i++) {
-      if (taskList.get(i).getDescription().contains(keyword)) {
-        results.add(taskList.get(i));
-      }
+    TaskList<TaskList<T>> parts = new TaskList<>();
+    for (ConcurrentToDoListManager<T> shard : shards) {
+      parts.add(shard.searchByDescription(keyword));
     }
-    return results;
+    return merge(parts, listOrder());
   }
 
   @Override
   public TaskList<T> getTasksByStatusSortedByPriority(String status) {
-    TaskList<T> results = new TaskList<>();
-    if (status == null) return results;
-    
-    // Filter by status
-    for (int i = 0; i < taskList.size(); i++) {
-      if (taskList.get(i).getStatus().equalsIgnoreCase(status)) {
-        results.add(taskList.get(i));
-      }
-    }
-    
-    // Bubble sort by priority (ascending)
-    for (int i = 0; i < results.size() - 1; i++) {
-      for (int j = 0; j < results.size() - i - 1; j++) {
-        if (results.get(j).getPriority() > results.get(j + 1).getPriority()) {
-          T temp = results.get(j);
-          results.set(j, results.get(j + 1));
-          results.set(j + 1, temp);
-        }
-      }
+    TaskList<TaskList<T>> parts = new TaskList<>();
+    for (ConcurrentToDoListManager<T> shard : shards) {
+      parts.add(shard.getTasksByStatusSortedByPriority(status));
     }
-    
-    return results;
+    return merge(parts, Comparator.comparingInt(TaskItem::getPriority).thenComparing(listOrder()));
   }
 
+  /** All tasks in list order. The list is a merged copy, not the shards' own lists. */
   @Override
   public TaskList<T> getAllTasks() {
-    return taskList; 
+    TaskList<TaskList<T>> parts = new TaskList<>();
+    for (ConcurrentToDoListManager<T> shard : shards) {
+      parts.add(shard.getAllTasks());
+    }
+    return merge(parts, listOrder());
   }
 
   // Sorting Operations
+  // Only the merged order changes; the shards' own lists are left as they are.
 
   @Override
   public void sortByDescription() {
-    // Bubble sort by description (case-sensitive)
-    for (int i = 0; i < taskList.size() - 1; i++) {
-      for (int j = 0; j < taskList.size() - i - 1; j++) {
-        if (taskList.get(j).getDescription().compareTo(taskList.get(j + 1).getDescription()) > 0) {
-          swap(j, j + 1);
-        }
-      }
-    }
+    sortBy('D');
   }
 
   @Override
   public void sortByDueDate() {
-    // Bubble sort by due date
-    for (int i = 0; i < taskList.size() - 1; i++) {
-      for (int j = 0; j < taskList.size() - i - 1; j++) {
-        if (taskList.get(j).getDueDate().compareTo(taskList.get(j + 1).getDueDate()) > 0) {
-          swap(j, j + 1);
-        }
-      }
-    }
+    sortBy('U');
   }
 
   @Override
   public void sortByPriority() {
-    // Bubble sort by priority (ascending)
-    for (int i = 0; i < taskList.size() - 1; i++) {
-      for (int j = 0; j < taskList.size() - i - 1; j++) {
-        if (taskList.get(j).getPriority() > taskList.get(j + 1).getPriority()) {
-          swap(j, j + 1);
-        }
-      }
-    }
+    sortBy('P');
+  }
+
+  private synchronized void sortBy(char key) {
+    sortKeys = key + sortKeys.replace(String.valueOf(key), "");
   }
 
   // Undo / Redo (Stack)
+
   @Override
   public void undo() {
-    if(undoHistory.isEmpty()) return;
-    redoHistory.push(taskList);
-    taskList = undoHistory.pop();
+    synchronized (undoShards) {
+      Change change = undoShards.pop();
+      if (change != null) redoShards.push(replay(change, true));
+    }
   }
 
   @Override
   public void redo() {
-    if(redoHistory.isEmpty()) return;
-    undoHistory.push(taskList);
-    taskList = redoHistory.pop();
+    synchronized (undoShards) {
+      Change change = redoShards.pop();
+      if (change != null) undoShards.push(replay(change, false));
+    }
   }
 
-  // Scheduling (Queue) 
+  // Helper: undo or redo one change and return the entry that reverses it.
+  // IDs it brings back get their addedAt values back; IDs it takes out are
+  // forgotten into the returned entry. Tasks it puts back in a schedule queue
+  // go to the end of the global schedule order, as they do in a single manager.
+  private Change replay(Change change, boolean undo) {
+    int shard = change.shard;
+    int from = shard == ALL_SHARDS ? 0 : shard;
+    int to = shard == ALL_SHARDS ? shards.length : shard + 1;
+    HashMap<String, Long> removed = null;
+    TaskList<T> requeued = new TaskList<>();
+    for (int s = from; s < to; s++) {
+      HashSet<String> queued = new HashSet<>();
+      TaskList<T> before = shards[s].getScheduledTasks();
+      for (int i = 0; i < before.size(); i++) queued.add(before.get(i).getId());
+      HashSet<String> present = ids(s);
+      if (undo) shards[s].undo();
+      else shards[s].redo();
+      TaskList<T> after = shards[s].getScheduledTasks();
+      for (int i = 0; i < after.size(); i++) {
+        if (!queued.remove(after.get(i).getId())) requeued.add(after.get(i));
+      }
+      for (String id : queued) leftQueue(s, id);
+      HashSet<String> now = ids(s);
+      for (String id : now) {
+        if (!present.remove(id) && change.removed != null && change.removed.containsKey(id))
+          addedAt.putIfAbsent(id, change.removed.get(id));
+      }
+      for (String id : present) removed = forget(s, id, removed);
+    }
+    if (shard == ALL_SHARDS) sort(requeued, listOrder());
+    for (int i = 0; i < requeued.size(); i++) {
+      enqueueOrder(requeued.get(i).getId());
+    }
+    return new Change(shard, removed);
+  }
+
+  // Scheduling (Queue)
 
   @Override
   public boolean scheduleTask(String taskID) {
     if (taskID == null) return false;
-    T item = searchById(taskID);
-    if (item != null) {
-      item.setStatus("SCHEDULED");
-      scheduledTasks.enqueue(item);
-      return true;
-    }
-    return false;
+    ConcurrentToDoListManager<T> shard = shards[shardOf(taskID)];
+    boolean queued = shard.isScheduled(taskID);
+    if (!shard.scheduleTask(taskID)) return false;
+    if (!queued) enqueueOrder(taskID); // a task already queued keeps its place
+    return true;
   }
 
   @Override
   public void scheduleTask(T task) {
     if (task == null) return;
-    saveState();
-    task.setStatus("SCHEDULED");
-    taskList.add(task);
-    scheduledTasks.enqueue(task);
+    int shard = shardOf(task.getId());
+    addedAt.put(task.getId(), nextAdded.incrementAndGet());
+    shards[shard].scheduleTask(task);
+    enqueueOrder(task.getId());
+    recordChange(shard);
   }
 
+  // Helper: note that a task just entered its shard's queue
+  private void enqueueOrder(String taskID) {
+    ScheduledTask entry = new ScheduledTask(taskID);
+    ScheduledTask old = scheduledAt.put(taskID, entry);
+    if (old != null) scheduleOrder.remove(old);
+    scheduleOrder.enqueue(entry);
+  }
+
+  /**
+   * Processes the task that entered a schedule queue first, across all
+   * shards. An entry whose task left its queue in a way this class did not
+   * see (a change another thread made at the same time) is skipped.
+   */
   @Override
-  public T processNextScheduledTask() {  // Return T, not ListItem
-    if(scheduledTasks.isEmpty()) 
-      return null;
-    T task = scheduledTasks.dequeue();
-    task.setStatus("DONE");
-    return task;
+  public T processNextScheduledTask() {
+    for (ScheduledTask next = scheduleOrder.dequeue(); next != null; next = scheduleOrder.dequeue()) {
+      if (!scheduledAt.remove(next.id, next)) continue;
+      T task = shards[shardOf(next.id)].processScheduledTask(next.id);
+      if (task != null) return task;
+    }
+    for (int s = 0; s < shards.length; s++) {
+      T task = shards[s].processNextScheduledTask();
+      if (task != null) {
+        leftQueue(s, task.getId());
+        return task;
+      }
+    }
+    return null;
   }
 
   // BST Traversals
 
   @Override
   public void traverseBSTDFS() {
-    taskTree.buildTree(taskList);
-    taskTree.dfsPrint();
+    TaskTree<T> tree = new TaskTree<>();
+    tree.buildTree(getAllTasks());
+    tree.dfsPrint();
   }
 
   @Override
   public void traverseBSTBFS() {
-    taskTree.buildTree(taskList);
-    taskTree.bfsPrint();
+    TaskTree<T> tree = new TaskTree<>();
+    tree.buildTree(getAllTasks());
+    tree.bfsPrint();
   }
 
   // Priority Queue (Heap)
 
   @Override
   public T getNextHighPriorityTask() {
-    highPriorityTasks.clear();
-    // Only TODO tasks go into the heap
-    for (int i = 0; i < taskList.size(); i++) {
-      if ("TODO".equalsIgnoreCase(taskList.get(i).getStatus())) {
-        highPriorityTasks.insert(taskList.get(i));
+    Comparator<TaskItem> order = listOrder();
+    T best = null;
+    for (ConcurrentToDoListManager<T> shard : shards) {
+      T top = shard.getNextHighPriorityTask();
+      if (top == null) continue;
+      if (best == null || top.getPriority() > best.getPriority()
+          || (top.getPriority() == best.getPriority() && order.compare(top, best) < 0)) {
+        best = top;
       }
     }
-    return highPriorityTasks.extractMax();
+    return best;
   }
 
+  /** Prints one heap of every TODO task, inserted in list order like ToDoListManager does. */
   @Override
   public void displayHeap() {
-    highPriorityTasks.clear();
-    for (int i = 0; i < taskList.size(); i++) {
-        if ("TODO".equalsIgnoreCase(taskList.get(i).getStatus())) {
-            highPriorityTasks.insert(taskList.get(i));
-        }
+    PriorityTaskManager<T> heap = new PriorityTaskManager<>();
+    TaskList<T> all = getAllTasks();
+    for (int i = 0; i < all.size(); i++) {
+      if ("TODO".equalsIgnoreCase(all.get(i).getStatus())) heap.insert(all.get(i));
     }
-    highPriorityTasks.displayHeap();
+    heap.displayHeap();
+  }
+}
+
+//------------------------------
+//TaskListVersion
+//------------------------------
+
+/**
+ * One published version of a task list, for snapshot-isolated reads (see
+ * ConcurrentToDoListManager.openView()).
+ *
+ * <p>The tasks are private copies kept in chunks of CHUNK tasks and never
+ * changed after the constructor. When a version is built, every chunk whose
+ * tasks all match the same chunk of the previous version is taken over from
+ * it instead of copied, so versions share everything a write did not touch.</p>
+ *
+ * <p>A version counts the views that pin it. Once it is neither the newest
+ * version nor pinned, it leaves the live count and the garbage collector
+ * reclaims whatever chunks no other version shares.</p>
+ */
+class TaskListVersion<T extends TaskItem> {
+  static final int CHUNK = 1024;
+
+  private final long version;
+  private final TaskItem[][] chunks;
+  private final int size;
+  private int readers;
+  private boolean retired;
+
+  /**
+   * Copies tasks into a new version.
+   * @param version the manager version the tasks are at
+   * @param tasks the manager's task list (read, not kept)
+   * @param previous the version before, whose unchanged chunks are reused, or null
+   */
+  TaskListVersion(long version, TaskList<T> tasks, TaskListVersion<T> previous) {
+    this.version = version;
+    size = tasks.size();
+    chunks = new TaskItem[(size + CHUNK - 1) / CHUNK][];
+    for (int c = 0; c < chunks.length; c++) {
+      int from = c * CHUNK;
+      int n = Math.min(CHUNK, size - from);
+      TaskItem[] old = previous != null && c < previous.chunks.length ? previous.chunks[c] : null;
+      if (old != null && old.length == n && sameTasks(old, tasks, from)) {
+        chunks[c] = old;
+        continue;
+      }
+      TaskItem[] chunk = new TaskItem[n];
+      for (int i = 0; i < n; i++) {
+        chunk[i] = new TaskItem(tasks.get(from + i));
+      }
+      chunks[c] = chunk;
+    }
+  }
+
+  // Helper: whether a chunk holds the same field values as tasks[from..]
+  private static boolean sameTasks(TaskItem[] chunk, TaskList<? extends TaskItem> tasks, int from) {
+    for (int i = 0; i < chunk.length; i++) {
+      TaskItem a = chunk[i];
+      TaskItem b = tasks.get(from + i);
+      if (a.getPriority() != b.getPriority() || !same(a.getId(), b.getId()) || !same(a.getStatus(), b.getStatus())
+          || !same(a.getDescription(), b.getDescription()) || !same(a.getDueDate(), b.getDueDate()))
+        return false;
+    }
+    return true;
+  }
+
+  private static boolean same(String a, String b) {
+    return a == null ? b == null : a.equals(b);
+  }
+
+  public long version() {
+    return version;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    return (T) chunks[index / CHUNK][index % CHUNK];
+  }
+
+  // A view starts reading this version
+  synchronized void pin(AtomicInteger live) {
+    if (readers++ == 0 && retired) live.incrementAndGet();
+  }
+
+  // A view is done with this version
+  synchronized void unpin(AtomicInteger live) {
+    if (--readers == 0 && retired) live.decrementAndGet();
+  }
+
+  // A newer version has been published
+  synchronized void retire(AtomicInteger live) {
+    retired = true;
+    if (readers == 0) live.decrementAndGet();
+  }
+}
+
+//------------------------------
+//ReadView
+//------------------------------
+
+/**
+ * A pinned, unchanging view of one TaskListVersion, from
+ * ConcurrentToDoListManager.openView(). Reading it takes no locks. The tasks
+ * are shared by every view of the version, so they must not be changed.
+ * Close the view when done so the version can be reclaimed.
+ */
+class ReadView<T extends TaskItem> implements AutoCloseable {
+  private final TaskListVersion<T> tasks;
+  private final AtomicInteger live;
+  private boolean closed;
+
+  ReadView(TaskListVersion<T> tasks, AtomicInteger live) {
+    this.tasks = tasks;
+    this.live = live;
+    tasks.pin(live);
+  }
+
+  /** The manager version this view shows; it goes up by one per write. */
+  public long version() {
+    return tasks.version();
+  }
+
+  public int size() {
+    return tasks.size();
+  }
+
+  /** The task at index, in list order. */
+  public T get(int index) {
+    return tasks.get(index);
+  }
+
+  /** The tasks in list order, in a new list (the tasks themselves are shared). */
+  public TaskList<T> toList() {
+    TaskList<T> list = new TaskList<>();
+    for (int i = 0; i < tasks.size(); i++) {
+      list.add(tasks.get(i));
+    }
+    return list;
+  }
+
+  @Override
+  public void close() {
+    if (closed) return;
+    closed = true;
+    tasks.unpin(live);
+  }
 }
-}
\ No newline at end of file
@@ -0,0 +1,71 @@
+import java.io.OutputStream;
+import java.io.PrintStream;
+
+/**
+ * A script of ADD commands run through Solution.execute(), one command at a
+ * time and inside BEGIN/COMMIT.
+ *
+ *   plain        every ADD takes its own undo snapshot, a copy of every task
+ *                already in the list, so the script is quadratic in time and
+ *                memory (10,000 ADDs need about 50 million task copies)
+ *   transaction  the ADDs are queued and COMMIT runs them after one snapshot
+ *
+ * Both end with one UNDO, which takes back one ADD or the whole transaction.
+ * Prints milliseconds per script and the task count left after the UNDO.
+ *
+ * Usage: java TransactionBenchmark [adds] [runs]
+ */
+public class TransactionBenchmark {
+
+    public static void main(String[] args) {
+        int adds = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        ParsedCommand[] script = script(adds);
+        PrintStream console = System.out;
+        console.printf("%-12s %10s %14s%n", "mode", "ms", "after UNDO");
+        for (boolean batched : new boolean[] {false, true}) {
+            run(script, batched); // warm up
+            long best = Long.MAX_VALUE;
+            int left = 0;
+            for (int r = 0; r < runs; r++) {
+                long t0 = System.nanoTime();
+                left = run(script, batched);
+                best = Math.min(best, System.nanoTime() - t0);
+            }
+            console.printf("%-12s %10.1f %14d%n", batched ? "transaction" : "plain", best / 1e6, left);
+        }
+    }
+
+    // Returns the number of tasks left after the final UNDO
+    private static int run(ParsedCommand[] script, boolean batched) {
+        ToDoListManager<TaskItem> manager = new ToDoListManager<>();
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            if (batched) Solution.execute(manager, command("BEGIN"));
+            for (ParsedCommand p : script) {
+                Solution.execute(manager, p);
+            }
+            if (batched) Solution.execute(manager, command("COMMIT"));
+            Solution.execute(manager, command("UNDO"));
+        } finally {
+            System.setOut(console);
+        }
+        return manager.getAllTasks().size();
+    }
+
+    private static ParsedCommand[] script(int adds) {
+        ParsedCommand[] script = new ParsedCommand[adds];
+        for (int i = 0; i < adds; i++) {
+            script[i] = command("ADD;T" + i + ";task " + i + ";2025-01-01;" + (1 + i % 9));
+        }
+        return script;
+    }
+
+    private static ParsedCommand command(String line) {
+        CommandParser parser = new CommandParser();
+        parser.parse(line);
+        return new ParsedCommand(parser);
+    }
+}
@@ -0,0 +1,92 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Throughput of mutating commands with the write-ahead log at each sync
+ * policy, next to the same commands without a log.
+ *
+ * Every run adds a few tasks and then repeats UPDATE, SCHEDULE_ID and
+ * PROCESS_NEXT through Solution.execute(), committing the log every
+ * commitEvery commands the way the server commits once per read. The log
+ * file is created in dir (default: the temp directory) and deleted after
+ * each run. Command output is discarded.
+ *
+ * Usage: java WalBenchmark [commands] [commitEvery] [dir]
+ */
+public class WalBenchmark {
+    private static final int TASKS = 20;
+    private static final String[] POLICIES = {"none", "batch", "always"};
+
+    public static void main(String[] args) throws IOException {
+        int commands = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int commitEvery = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        Path dir = Path.of(args.length > 2 ? args[2] : System.getProperty("java.io.tmpdir"));
+
+        String[] script = script(commands);
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            // warm up the command path once before measuring
+            run(script, null, 0, commitEvery, dir);
+
+            console.printf("%-10s %14s %10s%n", "sync", "commands/s", "fsyncs");
+            long[] base = run(script, null, 0, commitEvery, dir);
+            console.printf("%-10s %14.0f %10s%n", "no log", rate(commands, base[0]), "-");
+            for (String policy : POLICIES) {
+                long[] r = run(script, policy, WriteAheadLog.policy(policy), commitEvery, dir);
+                console.printf("%-10s %14.0f %10d%n", policy, rate(commands, r[0]), r[1]);
+            }
+        } finally {
+            System.setOut(console);
+        }
+    }
+
+    // Returns {elapsed nanoseconds, fsyncs}
+    private static long[] run(String[] script, String name, int policy, int commitEvery, Path dir)
+            throws IOException {
+        ToDoListManager<TaskItem> manager = new ToDoListManager<>();
+        Path file = name == null ? null : Files.createTempFile(dir, "wal-" + name, ".log");
+        try {
+            Solution.log = file == null ? null : WriteAheadLog.open(file, policy, manager);
+            CommandParser parser = new CommandParser();
+            long t0 = System.nanoTime();
+            for (int i = 0; i < script.length; i++) {
+                parser.parse(script[i]);
+                Solution.execute(manager, parser);
+                if ((i + 1) % commitEvery == 0) Solution.commitLog();
+            }
+            Solution.commitLog();
+            long elapsed = System.nanoTime() - t0;
+            long syncs = Solution.log == null ? 0 : Solution.log.syncs();
+            if (Solution.log != null) Solution.log.close();
+            return new long[] {elapsed, syncs};
+        } finally {
+            Solution.log = null;
+            if (file != null) Files.deleteIfExists(file);
+        }
+    }
+
+    private static String[] script(int commands) {
+        String[] script = new String[commands];
+        for (int i = 0; i < commands; i++) {
+            int id = i % TASKS;
+            if (i < TASKS) {
+                script[i] = "ADD;T" + id + ";task " + id + ";2025-01-01;" + (1 + id % 9);
+            } else if (i % 3 == 0) {
+                script[i] = "UPDATE;T" + id + ";task " + i + ";2025-02-01;" + (1 + i % 9);
+            } else if (i % 3 == 1) {
+                script[i] = "SCHEDULE_ID;T" + id;
+            } else {
+                script[i] = "PROCESS_NEXT";
+            }
+        }
+        return script;
+    }
+
+    private static double rate(int commands, long nanos) {
+        return commands / (nanos / 1_000_000_000.0);
+    }
+}
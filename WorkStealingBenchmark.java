@@ -0,0 +1,118 @@
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Throughput benchmark for draining scheduled tasks with several workers.
+ *
+ * Every worker calls processNextScheduledTask() on one shared
+ * ConcurrentToDoListManager and does a small amount of work per task. The
+ * run is repeated for 1 to 16 workers with four setups:
+ *
+ *   locked         a LockFreeScheduler, but every call takes the write lock
+ *                  (sharedQueue = false), as before shared queues
+ *   single FIFO    a LockFreeScheduler dequeued under the read lock
+ *   stealing       the work-stealing deques, dequeued under the read lock
+ *   stealing FIFO  the work-stealing scheduler in FIFO mode
+ *
+ * In the last three, completing a task (DONE, timing wheel, dependents)
+ * still happens under the write lock, batched over the tasks taken since
+ * the last write.
+ *
+ * Usage: java WorkStealingBenchmark [tasksPerRun] [workPerTask]
+ */
+public class WorkStealingBenchmark {
+    private static final int[] WORKERS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        int work = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+
+        TaskItem[] items = new TaskItem[tasks];
+        for (int i = 0; i < tasks; i++) {
+            items[i] = new TaskItem("T" + i, "task " + i, "2025-01-01", i % 10);
+        }
+
+        System.out.printf("%-8s %16s %16s %16s %16s%n", "workers", "locked", "single FIFO",
+                "stealing", "stealing FIFO");
+        for (int workers : WORKERS) {
+            // warm up once before measuring
+            run(new LockFreeScheduler<>(), false, workers, items, work);
+            run(new WorkStealingScheduler<>(workers), true, workers, items, work);
+
+            double locked = run(new LockFreeScheduler<>(), false, workers, items, work);
+            double single = run(new LockFreeScheduler<>(), true, workers, items, work);
+            double stealing = run(new WorkStealingScheduler<>(workers), true, workers, items, work);
+            double fifo = run(new WorkStealingScheduler<>(workers, true), true, workers, items, work);
+            System.out.printf("%-8d %16.0f %16.0f %16.0f %16.0f%n", workers, locked, single, stealing, fifo);
+        }
+        System.out.println("(processed tasks per ms)");
+    }
+
+    // Returns processed tasks per millisecond
+    private static double run(Ischeduler<TaskItem> queue, boolean sharedQueue, int workers, TaskItem[] items,
+            int work) throws IOException, InterruptedException {
+        ToDoListManager<TaskItem> inner = new ToDoListManager<>(queue);
+        inner.importTasks(scheduled(items));
+        ConcurrentToDoListManager<TaskItem> manager = new ConcurrentToDoListManager<>(inner, sharedQueue);
+
+        AtomicLong sink = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(workers);
+        for (int w = 0; w < workers; w++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long local = 0;
+                for (TaskItem t = manager.processNextScheduledTask(); t != null;
+                        t = manager.processNextScheduledTask()) {
+                    local += spin(t.getPriority(), work);
+                }
+                sink.addAndGet(local);
+                done.countDown();
+            }).start();
+        }
+
+        long t0 = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - t0;
+        if (sink.get() == 42) System.out.print(""); // keep the work alive
+        TaskList<TaskItem> all = manager.getAllTasks();
+        for (int i = 0; i < all.size(); i++) {
+            if (!"DONE".equals(all.get(i).getStatus())) throw new IllegalStateException("task left undone");
+        }
+        return items.length / (elapsed / 1_000_000.0);
+    }
+
+    // The items as SCHEDULED rows for one import
+    private static ItaskReader scheduled(TaskItem[] items) {
+        return new ItaskReader() {
+            private int next;
+
+            public TaskItem next() {
+                if (next == items.length) return null;
+                TaskItem t = items[next++];
+                t.setStatus("SCHEDULED");
+                return t;
+            }
+
+            public void close() {
+            }
+        };
+    }
+
+    // Simulated per-task work
+    private static long spin(int seed, int rounds) {
+        long x = seed + 1;
+        for (int i = 0; i < rounds; i++) {
+            x ^= x << 13;
+            x ^= x >>> 7;
+            x ^= x << 17;
+        }
+        return x;
+    }
+}